@@ -0,0 +1,51 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dwp.uc.pairtest.admission.AccountRateLimiter;
+
+/**
+ * Admission cost when purchases come from millions of distinct accounts, more
+ * than the limiter tracks at once. Run with {@code -prof gc} to confirm the
+ * heap does not grow with the number of accounts seen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AccountRateLimiterBenchmark {
+
+    @Param({ "1000000", "10000000" })
+    private int distinctAccounts;
+
+    @Param({ "1048576" })
+    private int capacity;
+
+    private AccountRateLimiter accountRateLimiter;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        accountRateLimiter = new AccountRateLimiter(5, 10, capacity);
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return accountRateLimiter.tryAcquire(random.nextInt(distinctAccounts) + 1, System.nanoTime());
+    }
+}
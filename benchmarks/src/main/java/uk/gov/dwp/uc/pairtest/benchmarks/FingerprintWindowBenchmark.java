@@ -0,0 +1,66 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dwp.uc.pairtest.idempotency.FingerprintWindow;
+
+/**
+ * Cost of checking a purchase fingerprint against a window already holding
+ * millions of entries, for retries (hits) and for new purchases (misses that
+ * claim a slot, evicting once the table is full).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class FingerprintWindowBenchmark {
+
+    private static final int HIT_POOL_SIZE = 1 << 16;
+
+    @Param({ "1048576", "8388608" })
+    private int capacity;
+
+    private FingerprintWindow fingerprintWindow;
+    private final long[] liveFingerprints = new long[HIT_POOL_SIZE];
+    private final SplittableRandom random = new SplittableRandom(42);
+    private int next;
+
+    @Setup
+    public void setUp() {
+        fingerprintWindow = new FingerprintWindow(capacity, Duration.ofHours(1));
+        long now = System.nanoTime();
+        for (int i = 0; i < capacity / 2; i++) {
+            long fingerprint = random.nextLong() | 1;
+            fingerprintWindow.tryClaim(fingerprint, now);
+            if (i < HIT_POOL_SIZE) {
+                liveFingerprints[i] = fingerprint;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean duplicateHit() {
+        return fingerprintWindow.tryClaim(liveFingerprints[next++ & (HIT_POOL_SIZE - 1)], System.nanoTime());
+    }
+
+    @Benchmark
+    public boolean newPurchaseMiss() {
+        return fingerprintWindow.tryClaim(random.nextLong() | 1, System.nanoTime());
+    }
+}
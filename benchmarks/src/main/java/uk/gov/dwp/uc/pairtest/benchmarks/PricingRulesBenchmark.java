@@ -0,0 +1,118 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.pricing.ReloadablePricingRules;
+import uk.gov.dwp.uc.pairtest.pricing.TicketPricingEngine;
+
+/**
+ * Cost of pricing a purchase from configured rules against prices written
+ * into the code. {@link #hardCoded} takes the same single-pass tally as the
+ * engine with the prices and ticket limit as constants; the others go through
+ * {@link TicketPricingEngine}, with the built in rules and with rules loaded
+ * from a file, with and without peak hours.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PricingRulesBenchmark {
+
+    private static final String RULES = "price.ADULT=20\nprice.CHILD=10\nprice.INFANT=0\nmaxTicketsPerPurchase=20\n";
+
+    @Param({ "SMALL", "TYPICAL", "MAXIMUM" })
+    private PurchaseScenario scenario;
+
+    @Param({ "false", "true" })
+    private boolean peakHours;
+
+    private final TicketPricingEngine standardRulesEngine = new TicketPricingEngine();
+    private final PurchaseTally tally = new PurchaseTally();
+    private final long[] hardCodedTicketsByType = new long[Type.values().length];
+    private TicketPricingEngine reloadableRulesEngine;
+    private Path rulesFile;
+    private TicketPurchaseRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        requests = scenario.requests();
+        rulesFile = Files.createTempFile("pricing", ".properties");
+        // Peak all day, so that every call takes the clock path
+        Files.writeString(rulesFile, peakHours ? RULES + "peak.hours=0-24\npeak.price.ADULT=20\n" : RULES);
+        reloadableRulesEngine = new TicketPricingEngine(new ReloadablePricingRules(rulesFile));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(rulesFile);
+    }
+
+    @Benchmark
+    public void hardCoded(Blackhole blackhole) {
+        long[] ticketsByType = hardCodedTicketsByType;
+        Arrays.fill(ticketsByType, 0);
+        long totalTickets = 0;
+        long totalSeats = 0;
+        long totalCost = 0;
+        for (TicketTypeRequest ticketTypeRequest : requests[next++ & (PurchaseScenario.POOL_SIZE - 1)]
+                .ticketTypeRequests()) {
+            int noOfTickets = ticketTypeRequest.noOfTickets();
+            if (noOfTickets <= 0) {
+                break;
+            }
+            ticketsByType[ticketTypeRequest.type().ordinal()] += noOfTickets;
+            totalTickets += noOfTickets;
+            if (ticketTypeRequest.type() == Type.ADULT) {
+                totalSeats += noOfTickets;
+                totalCost += noOfTickets * 20L;
+            } else if (ticketTypeRequest.type() == Type.CHILD) {
+                totalSeats += noOfTickets;
+                totalCost += noOfTickets * 10L;
+            }
+        }
+        blackhole.consume(totalTickets > 20);
+        blackhole.consume(totalSeats);
+        blackhole.consume(totalCost);
+    }
+
+    @Benchmark
+    public void standardRules(Blackhole blackhole) {
+        consume(standardRulesEngine.tally(requests[next++ & (PurchaseScenario.POOL_SIZE - 1)], tally), blackhole);
+    }
+
+    @Benchmark
+    public void reloadableRules(Blackhole blackhole) {
+        consume(reloadableRulesEngine.tally(requests[next++ & (PurchaseScenario.POOL_SIZE - 1)], tally), blackhole);
+    }
+
+    private static void consume(PurchaseTally tally, Blackhole blackhole) {
+        blackhole.consume(tally.getTotalTickets() > 20);
+        blackhole.consume(tally.getTotalSeats());
+        blackhole.consume(tally.getTotalCost());
+    }
+}
@@ -0,0 +1,85 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventRing;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventSink;
+import uk.gov.dwp.uc.pairtest.events.PurchaseOutcome;
+import uk.gov.dwp.uc.pairtest.events.RollingFilePurchaseEventSink;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.pricing.TicketPricingEngine;
+
+/**
+ * Publishing events from four purchase threads, into a sink that does
+ * nothing and into rolling files. Run with {@code -prof gc} to see that
+ * publishing allocates nothing; the ring's dropped count after a run shows
+ * whether the drain thread kept up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PurchaseEventRingBenchmark {
+
+    @Param({ "discard", "file" })
+    private String sink;
+
+    private final PurchaseTally tally = new TicketPricingEngine().tally(new TicketPurchaseRequest(1,
+            new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2), new TicketTypeRequest(Type.CHILD, 1) }),
+            PurchaseTally.scratch());
+
+    private Path directory;
+    private PurchaseEventRing ring;
+
+    @Setup
+    public void setUp() throws IOException {
+        PurchaseEventSink purchaseEventSink = event -> {
+        };
+        if (sink.equals("file")) {
+            directory = Files.createTempDirectory("purchase-events");
+            purchaseEventSink = new RollingFilePurchaseEventSink(directory, 64 * 1024 * 1024, 4);
+        }
+        ring = new PurchaseEventRing(1 << 16, 1024, List.of(purchaseEventSink));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ring.close();
+        System.out.printf("%n%d published, %d dropped%n", ring.getPublished(), ring.getDropped());
+        if (directory != null) {
+            for (Path file : RollingFilePurchaseEventSink.files(directory)) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Benchmark
+    public void publish() {
+        ring.publish(PurchaseOutcome.PURCHASED, 1, 0, tally, 50);
+    }
+}
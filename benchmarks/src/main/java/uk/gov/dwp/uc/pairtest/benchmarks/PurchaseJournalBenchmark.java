@@ -0,0 +1,78 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dwp.uc.pairtest.journal.FilePurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord.Stage;
+
+/**
+ * Durable appends per second to {@link FilePurchaseJournal} as the group
+ * commit batch size grows. Each invocation keeps {@value #APPENDS_IN_FLIGHT}
+ * appends outstanding, as a busy service would, and waits for all of them to
+ * reach disk. With a batch size of one every append pays for its own fsync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PurchaseJournalBenchmark {
+
+    private static final int APPENDS_IN_FLIGHT = 512;
+
+    @Param({ "1", "8", "64", "512" })
+    private int maxBatchSize;
+
+    private final CompletableFuture<?>[] written = new CompletableFuture<?>[APPENDS_IN_FLIGHT];
+    private Path directory;
+    private FilePurchaseJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("purchase-journal");
+        journal = new FilePurchaseJournal(directory, 64 << 20, maxBatchSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(APPENDS_IN_FLIGHT)
+    public void append() {
+        for (int i = 0; i < APPENDS_IN_FLIGHT; i++) {
+            long purchaseId = journal.nextPurchaseId();
+            written[i] = journal.append(new PurchaseJournalRecord(purchaseId, purchaseId, 2, 2, 1, 4, 60,
+                    Stage.STARTED));
+        }
+        CompletableFuture.allOf(written).join();
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Request shapes used across the benchmarks. Each scenario is a small pool of
+ * requests that the benchmarks cycle through, so the JIT cannot specialise on
+ * a single constant input.
+ */
+public enum PurchaseScenario {
+
+    /** A single adult ticket. */
+    SMALL {
+        @Override
+        TicketPurchaseRequest request(long accountId) {
+            return new TicketPurchaseRequest(accountId, new TicketTypeRequest[] {
+                    new TicketTypeRequest(Type.ADULT, 1) });
+        }
+    },
+
+    /** A family booking: two adults, two children and an infant. */
+    TYPICAL {
+        @Override
+        TicketPurchaseRequest request(long accountId) {
+            return new TicketPurchaseRequest(accountId, new TicketTypeRequest[] {
+                    new TicketTypeRequest(Type.ADULT, 2),
+                    new TicketTypeRequest(Type.CHILD, 2),
+                    new TicketTypeRequest(Type.INFANT, 1) });
+        }
+    },
+
+    /** The 20 ticket limit, spread over one TicketTypeRequest per ticket. */
+    MAXIMUM {
+        @Override
+        TicketPurchaseRequest request(long accountId) {
+            TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[20];
+            for (int i = 0; i < ticketTypeRequests.length; i++) {
+                Type type = i < 10 ? Type.ADULT : i < 16 ? Type.CHILD : Type.INFANT;
+                ticketTypeRequests[i] = new TicketTypeRequest(type, 1);
+            }
+            return new TicketPurchaseRequest(accountId, ticketTypeRequests);
+        }
+    },
+
+    /** Every request breaks at least one business rule. */
+    INVALID {
+        @Override
+        TicketPurchaseRequest request(long accountId) {
+            switch ((int) (accountId % 4)) {
+                case 0:
+                    return new TicketPurchaseRequest(-accountId, new TicketTypeRequest[] {
+                            new TicketTypeRequest(Type.ADULT, 1) });
+                case 1:
+                    return new TicketPurchaseRequest(accountId, new TicketTypeRequest[] {
+                            new TicketTypeRequest(Type.ADULT, 21) });
+                case 2:
+                    return new TicketPurchaseRequest(accountId, new TicketTypeRequest[] {
+                            new TicketTypeRequest(Type.CHILD, 2),
+                            new TicketTypeRequest(Type.INFANT, 1) });
+                default:
+                    return new TicketPurchaseRequest(accountId, new TicketTypeRequest[] {
+                            new TicketTypeRequest(Type.ADULT, 1),
+                            new TicketTypeRequest(Type.INFANT, 2) });
+            }
+        }
+    },
+
+    /** Mostly valid traffic with one invalid request in four, as seen during an on-sale. */
+    MIXED {
+        @Override
+        TicketPurchaseRequest request(long accountId) {
+            return accountId % 4 == 0 ? INVALID.request(accountId + 1) : TYPICAL.request(accountId);
+        }
+    };
+
+    public static final int POOL_SIZE = 1024;
+
+    abstract TicketPurchaseRequest request(long accountId);
+
+    public TicketPurchaseRequest[] requests() {
+        TicketPurchaseRequest[] requests = new TicketPurchaseRequest[POOL_SIZE];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = request(i + 1);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,78 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetricsListener;
+
+/**
+ * End to end cost of {@link TicketService#purchaseTickets} with third party
+ * services that only hand their arguments to a {@link Blackhole}, with metrics
+ * switched off and recorded in memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PurchaseTicketsBenchmark {
+
+    @Param({ "SMALL", "TYPICAL", "MAXIMUM", "INVALID", "MIXED" })
+    private PurchaseScenario scenario;
+
+    @Param({ "NOOP", "IN_MEMORY" })
+    private String metrics;
+
+    private TicketService ticketService;
+    private TicketPurchaseRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        requests = scenario.requests();
+        PurchaseMetricsListener purchaseMetricsListener = "NOOP".equals(metrics) ? PurchaseMetricsListener.NOOP
+                : new PurchaseMetrics();
+        ticketService = TicketServiceImpl.builder()
+                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator(purchaseMetricsListener))
+                .seatReservationService((accountId, totalSeatsToAllocate) -> {
+                    blackhole.consume(accountId);
+                    blackhole.consume(totalSeatsToAllocate);
+                })
+                .ticketPaymentService((accountId, totalAmountToPay) -> {
+                    blackhole.consume(accountId);
+                    blackhole.consume(totalAmountToPay);
+                })
+                .purchaseMetricsListener(purchaseMetricsListener)
+                .build();
+    }
+
+    @Benchmark
+    public Object purchaseTickets() {
+        TicketPurchaseRequest request = requests[next++ & (PurchaseScenario.POOL_SIZE - 1)];
+        try {
+            ticketService.purchaseTickets(request);
+            return request;
+        } catch (InvalidPurchaseException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dwp.uc.pairtest.seating.InMemorySeatInventory;
+import uk.gov.dwp.uc.pairtest.seating.ScreeningSeatMap;
+import uk.gov.dwp.uc.pairtest.seating.SeatAllocation;
+
+/**
+ * Reserve and release throughput of the in-memory seat inventory as threads
+ * are added. With {@code screenings=PER_THREAD} every thread books its own
+ * screening, which should scale with cores; {@code SHARED} has every thread
+ * racing for the same seat map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SeatInventoryBenchmark {
+
+    private static final int MAX_THREADS = 64;
+
+    @Param({ "PER_THREAD", "SHARED" })
+    private String screenings;
+
+    @Param({ "4" })
+    private int seatsPerReservation;
+
+    private final InMemorySeatInventory inventory = new InMemorySeatInventory();
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        int screeningCount = "SHARED".equals(screenings) ? 1 : MAX_THREADS;
+        for (int screeningId = 0; screeningId < screeningCount; screeningId++) {
+            inventory.addScreening(screeningId, 20, 30);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScreening {
+
+        private ScreeningSeatMap seatMap;
+
+        @Setup
+        public void setUp(SeatInventoryBenchmark benchmark) {
+            int screeningId = "SHARED".equals(benchmark.screenings) ? 0
+                    : benchmark.threadIndex.getAndIncrement() % MAX_THREADS;
+            seatMap = benchmark.inventory.getScreening(screeningId);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public SeatAllocation reserveAndRelease1Thread(ThreadScreening screening) {
+        return reserveAndRelease(screening);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public SeatAllocation reserveAndRelease2Threads(ThreadScreening screening) {
+        return reserveAndRelease(screening);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public SeatAllocation reserveAndRelease4Threads(ThreadScreening screening) {
+        return reserveAndRelease(screening);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public SeatAllocation reserveAndReleaseAllCores(ThreadScreening screening) {
+        return reserveAndRelease(screening);
+    }
+
+    private SeatAllocation reserveAndRelease(ThreadScreening screening) {
+        SeatAllocation allocation = screening.seatMap.reserve(seatsPerReservation);
+        screening.seatMap.release(allocation);
+        return allocation;
+    }
+}
@@ -0,0 +1,91 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.sharding.ShardedTicketService;
+
+/**
+ * Purchases per second through {@link ShardedTicketService} as the number of
+ * shards grows, with many callers spread over a large set of accounts. Each
+ * shard has its own TicketServiceImpl whose seat and payment stubs burn a
+ * fixed amount of CPU, standing in for the per-purchase downstream work. On a
+ * machine with at least as many cores as shards, throughput should grow with
+ * the shard count until the callers become the limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ShardedTicketServiceBenchmark {
+
+    private static final int PURCHASES_IN_FLIGHT = 64;
+    private static final int ACCOUNTS = 100_000;
+    private static final long DOWNSTREAM_TOKENS = 2_000;
+
+    @Param({ "1", "2", "4", "8" })
+    private int shards;
+
+    private ShardedTicketService shardedTicketService;
+
+    @Setup
+    public void setUp() {
+        shardedTicketService = ShardedTicketService.ofLocalShards(shards,
+                shard -> TicketServiceImpl.builder()
+                        .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                        .seatReservationService((accountId, totalSeatsToAllocate) -> Blackhole
+                                .consumeCPU(DOWNSTREAM_TOKENS))
+                        .ticketPaymentService((accountId, totalAmountToPay) -> Blackhole
+                                .consumeCPU(DOWNSTREAM_TOKENS))
+                        .build(),
+                PURCHASES_IN_FLIGHT * 8, 128);
+    }
+
+    @TearDown
+    public void tearDown() {
+        shardedTicketService.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        final CompletableFuture<?>[] purchased = new CompletableFuture<?>[PURCHASES_IN_FLIGHT];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PURCHASES_IN_FLIGHT)
+    public void purchaseTickets(Caller caller) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < PURCHASES_IN_FLIGHT; i++) {
+            caller.purchased[i] = shardedTicketService.purchaseTicketsAsync(new TicketPurchaseRequest(
+                    1 + random.nextInt(ACCOUNTS), new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                            new TicketTypeRequest(Type.CHILD, 1) }));
+        }
+        CompletableFuture.allOf(caller.purchased).join();
+    }
+}
@@ -0,0 +1,83 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.pricing.TicketPricingEngine;
+
+/**
+ * Cost of working out the amount to pay and the number of seats to reserve.
+ * {@link #streamPipelines} keeps the original two stream pipelines from
+ * TicketServiceImpl as a baseline for {@link TicketPricingEngine}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TicketCostCalculationBenchmark {
+
+    @Param({ "SMALL", "TYPICAL", "MAXIMUM" })
+    private PurchaseScenario scenario;
+
+    private final TicketPricingEngine ticketPricingEngine = new TicketPricingEngine();
+    private final PurchaseTally tally = new PurchaseTally();
+    private TicketPurchaseRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        requests = scenario.requests();
+    }
+
+    @Benchmark
+    public void streamPipelines(Blackhole blackhole) {
+        TicketPurchaseRequest request = requests[next++ & (PurchaseScenario.POOL_SIZE - 1)];
+        blackhole.consume(calculateTotalCost(request));
+        blackhole.consume(calculateTotalSeatsToAllocate(request));
+    }
+
+    @Benchmark
+    public void singlePassTally(Blackhole blackhole) {
+        ticketPricingEngine.tally(requests[next++ & (PurchaseScenario.POOL_SIZE - 1)], tally);
+        blackhole.consume(tally.getTotalCost());
+        blackhole.consume(tally.getTotalSeats());
+    }
+
+    private static int calculateTotalCost(TicketPurchaseRequest ticketPurchaseRequest) {
+        return Arrays.stream(ticketPurchaseRequest.ticketTypeRequests())
+                .map((r) -> {
+                    if (r.type() == Type.ADULT) {
+                        return r.noOfTickets() * 20;
+                    } else if (r.type() == Type.CHILD) {
+                        return r.noOfTickets() * 10;
+                    } else
+                        return 0;
+                }).mapToInt(Integer::intValue)
+                .sum();
+    }
+
+    private static int calculateTotalSeatsToAllocate(TicketPurchaseRequest ticketPurchaseRequest) {
+        return Arrays.stream(ticketPurchaseRequest.ticketTypeRequests())
+                .filter((r) -> r.type() == Type.ADULT || r.type() == Type.CHILD)
+                .map((r) -> r.noOfTickets()).mapToInt(Integer::intValue)
+                .sum();
+    }
+}
@@ -0,0 +1,75 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestCodec;
+import uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestView;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.pricing.TicketPricingEngine;
+
+/**
+ * Validating requests straight off the wire: decoding into
+ * {@link TicketPurchaseRequest} records against reading them in place through
+ * a reused {@link TicketPurchaseRequestView}. Run with {@code -prof gc} to see
+ * the allocation difference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TicketPurchaseRequestCodecBenchmark {
+
+    @Param({ "SMALL", "TYPICAL", "MAXIMUM", "INVALID", "MIXED" })
+    private PurchaseScenario scenario;
+
+    @Param({ "true", "false" })
+    private boolean direct;
+
+    private final TicketPurchaseRequestValidator validator = new TicketPurchaseRequestValidator();
+    private final TicketPricingEngine ticketPricingEngine = new TicketPricingEngine();
+    private final TicketPurchaseRequestView view = new TicketPurchaseRequestView();
+    private final PurchaseTally tally = new PurchaseTally();
+    private ByteBuffer buffer;
+    private int[] offsets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        TicketPurchaseRequest[] requests = scenario.requests();
+        buffer = direct ? ByteBuffer.allocateDirect(requests.length * 64) : ByteBuffer.allocate(requests.length * 64);
+        offsets = new int[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            offsets[i] = buffer.position();
+            TicketPurchaseRequestCodec.encode(requests[i], buffer);
+        }
+    }
+
+    @Benchmark
+    public int decodeToRecords() {
+        ByteBuffer message = buffer.duplicate().position(offsets[next++ & (PurchaseScenario.POOL_SIZE - 1)]);
+        return validator.check(TicketPurchaseRequestCodec.decode(message));
+    }
+
+    @Benchmark
+    public int readInPlace() {
+        view.wrap(buffer, offsets[next++ & (PurchaseScenario.POOL_SIZE - 1)]);
+        return validator.checkEncoded(view, ticketPricingEngine.tallyEncoded(view, tally));
+    }
+}
@@ -0,0 +1,61 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Cost of {@link TicketPurchaseRequestValidator#validate} on its own, for both
+ * accepted and rejected requests, against the exception-free
+ * {@link TicketPurchaseRequestValidator#check}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TicketPurchaseRequestValidatorBenchmark {
+
+    @Param({ "SMALL", "TYPICAL", "MAXIMUM", "INVALID", "MIXED" })
+    private PurchaseScenario scenario;
+
+    private final TicketPurchaseRequestValidator validator = new TicketPurchaseRequestValidator();
+    private TicketPurchaseRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        requests = scenario.requests();
+    }
+
+    @Benchmark
+    public Object validate() {
+        TicketPurchaseRequest request = requests[next++ & (PurchaseScenario.POOL_SIZE - 1)];
+        try {
+            validator.validate(request);
+            return request;
+        } catch (InvalidPurchaseException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public int check() {
+        return validator.check(requests[next++ & (PurchaseScenario.POOL_SIZE - 1)]);
+    }
+}
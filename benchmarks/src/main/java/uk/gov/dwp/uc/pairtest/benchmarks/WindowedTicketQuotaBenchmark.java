@@ -0,0 +1,62 @@
+package uk.gov.dwp.uc.pairtest.benchmarks;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.gov.dwp.uc.pairtest.quota.WindowedTicketQuota;
+
+/**
+ * Taking and giving back tickets from four threads when every account has
+ * already been seen, so the tables are at their full size. Each account
+ * takes two to four 16 byte slots, about 1GB of heap in the larger case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+public class WindowedTicketQuotaBenchmark {
+
+    @Param({ "1000000", "20000000" })
+    private int distinctAccounts;
+
+    private WindowedTicketQuota ticketQuota;
+
+    @Setup
+    public void setUp() {
+        ticketQuota = new WindowedTicketQuota(1_000, Duration.ofDays(1), distinctAccounts);
+        for (long accountId = 1; accountId <= distinctAccounts; accountId++) {
+            ticketQuota.tryTake(accountId, 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public boolean tryTakeAndGiveBack(Caller caller) {
+        long accountId = caller.random.nextInt(distinctAccounts) + 1;
+        boolean taken = ticketQuota.tryTake(accountId, 2);
+        ticketQuota.giveBack(accountId, 2);
+        return taken;
+    }
+}
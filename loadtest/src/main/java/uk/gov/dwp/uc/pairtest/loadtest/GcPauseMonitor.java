@@ -0,0 +1,79 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import uk.gov.dwp.uc.pairtest.metrics.LatencyHistogram;
+
+/**
+ * Records the length of every stop-the-world collection, from the JVM's
+ * collection notifications. Collectors that report their concurrent cycles
+ * as well as their pauses, such as ZGC, are told apart by name, and only the
+ * pauses are counted.
+ */
+final class GcPauseMonitor implements NotificationListener, AutoCloseable {
+
+    private final LatencyHistogram pauseMillis = new LatencyHistogram();
+    private final LongAdder totalPauseMillis = new LongAdder();
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    GcPauseMonitor() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo
+                .from((CompositeData) notification.getUserData());
+        String name = info.getGcName();
+        if (name.contains("Cycles") || name.contains("Concurrent")) {
+            return;
+        }
+        long millis = info.getGcInfo().getDuration();
+        pauseMillis.record(millis);
+        totalPauseMillis.add(millis);
+    }
+
+    LatencyHistogram getPauseMillis() {
+        return pauseMillis;
+    }
+
+    long getTotalPauseMillis() {
+        return totalPauseMillis.sum();
+    }
+
+    void reset() {
+        pauseMillis.reset();
+        totalPauseMillis.reset();
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                // Already gone
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * A gateway's response time: a fixed base plus an exponentially distributed
+ * extra with the given mean, which gives the long right tail real gateways
+ * have. Written as {@code base,jitter}, for example {@code 5ms,20ms}.
+ */
+public record LatencyModel(long baseNanos, long meanJitterNanos) {
+
+    public static final LatencyModel NONE = new LatencyModel(0, 0);
+
+    public static LatencyModel parse(String text) {
+        String[] parts = text.split(",");
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Expected base,jitter but got " + text);
+        }
+        long base = LoadTestConfig.parseDuration(parts[0]).toNanos();
+        long jitter = parts.length == 2 ? LoadTestConfig.parseDuration(parts[1]).toNanos() : 0;
+        return new LatencyModel(base, jitter);
+    }
+
+    public long sampleNanos(RandomGenerator random) {
+        if (meanJitterNanos == 0) {
+            return baseNanos;
+        }
+        return baseNanos + (long) (-Math.log(1 - random.nextDouble()) * meanJitterNanos);
+    }
+
+    @Override
+    public String toString() {
+        return Duration.ofNanos(baseNanos).toMillis() + "ms+exp(" + Duration.ofNanos(meanJitterNanos).toMillis()
+                + "ms)";
+    }
+}
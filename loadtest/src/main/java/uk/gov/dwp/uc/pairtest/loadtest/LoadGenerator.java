@@ -0,0 +1,144 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.loadtest.RequestMix.Purchase;
+
+/**
+ * Sends purchases open loop. Every request is given the time it is due from
+ * the traffic shape, whether or not earlier ones have finished, and the
+ * caller threads take them in turn. While the service keeps up each request
+ * goes out on time; when it falls behind, requests wait for a free thread,
+ * and the wait shows in their corrected latency instead of quietly lowering
+ * the rate sent, which is the coordinated omission a closed loop suffers.
+ */
+final class LoadGenerator {
+
+    private final TicketService ticketService;
+    private final LoadTestConfig config;
+    private final RequestMix requestMix;
+    private final GcPauseMonitor gcPauseMonitor;
+    private final PrintStream out;
+    private final LoadTestReport report = new LoadTestReport();
+    private final long warmupNanos;
+    private final long endNanos;
+    private long nextDueNanos;
+    private long lastDueNanos;
+
+    LoadGenerator(TicketService ticketService, LoadTestConfig config, RequestMix requestMix,
+            GcPauseMonitor gcPauseMonitor, PrintStream out) {
+        this.ticketService = ticketService;
+        this.config = config;
+        this.requestMix = requestMix;
+        this.gcPauseMonitor = gcPauseMonitor;
+        this.out = out;
+        this.warmupNanos = config.warmup().toNanos();
+        this.endNanos = warmupNanos + config.duration().toNanos();
+    }
+
+    LoadTestReport run() throws InterruptedException {
+        long startNanos = System.nanoTime();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < config.threads(); i++) {
+            Thread caller = new Thread(() -> callUntilDone(startNanos), "load-" + i);
+            caller.setDaemon(true);
+            caller.start();
+            callers.add(caller);
+        }
+
+        if (warmupNanos > 0) {
+            out.printf("Warming up for %ds%n", config.warmup().toSeconds());
+        }
+        parkUntil(startNanos + warmupNanos);
+        gcPauseMonitor.reset();
+        long intervalNanos = config.reportInterval().toNanos();
+        long intervalStart = startNanos + warmupNanos;
+        for (Thread caller : callers) {
+            while (caller.isAlive()) {
+                long intervalEnd = intervalStart + intervalNanos;
+                caller.join(Math.max(1, (intervalEnd - System.nanoTime()) / 1_000_000));
+                long now = System.nanoTime();
+                if (now >= intervalEnd) {
+                    printInterval(startNanos, intervalStart, now);
+                    intervalStart = now;
+                }
+            }
+        }
+        printInterval(startNanos, intervalStart, System.nanoTime());
+        report.print(out, config, config.duration(), gcPauseMonitor);
+        return report;
+    }
+
+    private void printInterval(long startNanos, long intervalStart, long now) {
+        long elapsed = now - startNanos;
+        long behind;
+        synchronized (this) {
+            behind = nextDueNanos < endNanos ? Math.max(0, elapsed - lastDueNanos) : 0;
+        }
+        report.printInterval(out, (elapsed - warmupNanos) / 1e9, rateAt(Math.min(elapsed, endNanos)),
+                (now - intervalStart) / 1e9, behind / 1_000_000);
+    }
+
+    /**
+     * The time the next request is due, from the start of the run, or -1
+     * once the run is over.
+     */
+    private synchronized long nextDue() {
+        if (nextDueNanos >= endNanos) {
+            return -1;
+        }
+        lastDueNanos = nextDueNanos;
+        nextDueNanos += (long) (1e9 / rateAt(lastDueNanos));
+        return lastDueNanos;
+    }
+
+    private double rateAt(long dueNanos) {
+        return dueNanos < warmupNanos ? config.baselineRate() : config.shape().rate(progressAt(dueNanos), config);
+    }
+
+    private double progressAt(long dueNanos) {
+        return Math.max(0, (double) (dueNanos - warmupNanos) / (endNanos - warmupNanos));
+    }
+
+    private void callUntilDone(long startNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long due = nextDue(); due >= 0; due = nextDue()) {
+            Purchase purchase = requestMix.next(random, progressAt(due));
+            long dueAt = startNanos + due;
+            parkUntil(dueAt);
+            long sentAt = System.nanoTime();
+            String outcome;
+            boolean expected;
+            try {
+                ticketService.purchaseTickets(purchase.request());
+                outcome = LoadTestReport.PURCHASED;
+                expected = purchase.expectedError() == null;
+            } catch (InvalidPurchaseException e) {
+                List<ValidationError> validationErrors = e.getValidationErrors();
+                outcome = validationErrors.size() == 1 ? validationErrors.get(0).name()
+                        : validationErrors.toString();
+                expected = validationErrors.contains(purchase.expectedError());
+            } catch (RuntimeException e) {
+                outcome = e.getClass().getSimpleName();
+                expected = false;
+            }
+            long doneAt = System.nanoTime();
+            if (due >= warmupNanos) {
+                report.record(outcome, expected, doneAt - dueAt, doneAt - sentAt);
+            }
+        }
+    }
+
+    private static void parkUntil(long deadline) {
+        for (long nanos = deadline - System.nanoTime(); nanos > 0; nanos = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(nanos);
+        }
+    }
+}
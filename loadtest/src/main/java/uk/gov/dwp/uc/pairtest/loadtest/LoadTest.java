@@ -0,0 +1,43 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.discount.PurchaseDiscounts;
+
+/**
+ * Drives a TicketServiceImpl wired to local stub gateways with a chosen
+ * traffic shape, for capacity planning without the real gateways. Run with
+ * {@code --help} for the options.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestConfig config;
+        try {
+            if (args.length == 1 && args[0].equals("--help")) {
+                System.out.print(LoadTestConfig.USAGE);
+                return;
+            }
+            config = LoadTestConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        TicketService ticketService = TicketServiceImpl.builder()
+                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                .seatReservationService(StubGateways.seatReservationService(config.seatLatency()))
+                .ticketPaymentService(StubGateways.ticketPaymentService(config.paymentLatency()))
+                .purchaseDiscounts(new PurchaseDiscounts(StubGateways.discountService(config.discountLatency())))
+                .build();
+        try (GcPauseMonitor gcPauseMonitor = new GcPauseMonitor()) {
+            new LoadGenerator(ticketService, config, new RequestMix(config), gcPauseMonitor, System.out).run();
+        }
+    }
+}
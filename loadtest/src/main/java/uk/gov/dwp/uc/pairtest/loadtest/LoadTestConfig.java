@@ -0,0 +1,106 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The settings for a load test run, from {@code --name=value} arguments.
+ */
+public record LoadTestConfig(
+        TrafficShape shape,
+        double baselineRate,
+        double peakMultiplier,
+        Duration warmup,
+        Duration duration,
+        Duration reportInterval,
+        int threads,
+        long accounts,
+        long botAccounts,
+        double invalidShare,
+        double discountShare,
+        LatencyModel seatLatency,
+        LatencyModel paymentLatency,
+        LatencyModel discountLatency) {
+
+    static final String USAGE = """
+            Usage: java -jar loadtest.jar [--name=value ...]
+              --shape=STEADY|ON_SALE_SPIKE|INVALID_FLOOD   traffic shape (STEADY)
+              --rate=1000              baseline purchases per second
+              --peak=10                peak rate as a multiple of the baseline
+              --warmup=10s             run at the baseline first, without recording
+              --duration=60s           how long to record for
+              --report-interval=1s     how often to print progress
+              --threads=64             caller threads; enough to cover rate x latency
+              --accounts=1000000       distinct accounts making valid purchases
+              --bot-accounts=50        distinct accounts behind the invalid flood
+              --invalid-share=0.05     invalid requests in the baseline traffic
+              --discount-share=0.1     valid requests carrying a discount code
+              --seat-latency=2ms,3ms   base and mean extra latency of each stub
+              --payment-latency=20ms,30ms
+              --discount-latency=1ms,1ms
+            """;
+
+    public static LoadTestConfig parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        LoadTestConfig config = new LoadTestConfig(
+                TrafficShape.valueOf(take(values, "shape", "STEADY").toUpperCase(Locale.ROOT)),
+                Double.parseDouble(take(values, "rate", "1000")),
+                Double.parseDouble(take(values, "peak", "10")),
+                parseDuration(take(values, "warmup", "10s")),
+                parseDuration(take(values, "duration", "60s")),
+                parseDuration(take(values, "report-interval", "1s")),
+                Integer.parseInt(take(values, "threads", "64")),
+                Long.parseLong(take(values, "accounts", "1000000")),
+                Long.parseLong(take(values, "bot-accounts", "50")),
+                Double.parseDouble(take(values, "invalid-share", "0.05")),
+                Double.parseDouble(take(values, "discount-share", "0.1")),
+                LatencyModel.parse(take(values, "seat-latency", "2ms,3ms")),
+                LatencyModel.parse(take(values, "payment-latency", "20ms,30ms")),
+                LatencyModel.parse(take(values, "discount-latency", "1ms,1ms")));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+        if (config.baselineRate <= 0 || config.peakMultiplier < 1 || config.threads <= 0 || config.accounts <= 0
+                || config.botAccounts <= 0 || config.duration.isZero()) {
+            throw new IllegalArgumentException("Rates, threads, accounts and duration must be positive");
+        }
+        return config;
+    }
+
+    /**
+     * Parses durations such as {@code 250us}, {@code 5ms}, {@code 30s} and
+     * {@code 2m}.
+     */
+    static Duration parseDuration(String text) {
+        String trimmed = text.trim();
+        int unitStart = 0;
+        while (unitStart < trimmed.length()
+                && (Character.isDigit(trimmed.charAt(unitStart)) || trimmed.charAt(unitStart) == '.')) {
+            unitStart++;
+        }
+        double amount = Double.parseDouble(trimmed.substring(0, unitStart));
+        double nanosPerUnit = switch (trimmed.substring(unitStart)) {
+            case "us" -> 1e3;
+            case "ms" -> 1e6;
+            case "s" -> 1e9;
+            case "m" -> 60e9;
+            case "h" -> 3600e9;
+            default -> throw new IllegalArgumentException("Expected a duration such as 5ms but got " + text);
+        };
+        return Duration.ofNanos((long) (amount * nanosPerUnit));
+    }
+
+    private static String take(Map<String, String> values, String name, String defaultValue) {
+        String value = values.remove(name);
+        return value == null ? defaultValue : value;
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.gov.dwp.uc.pairtest.metrics.LatencyHistogram;
+
+/**
+ * What a run measured. Corrected latencies are taken from when each request
+ * was due to be sent, so time spent waiting for a free caller thread behind
+ * a slow purchase is counted, as it would be for a real user; uncorrected
+ * latencies are only the time inside purchaseTickets, and show how far off
+ * a closed-loop measurement would be.
+ */
+final class LoadTestReport {
+
+    static final String PURCHASED = "PURCHASED";
+
+    private final LatencyHistogram correctedNanos = new LatencyHistogram();
+    private final LatencyHistogram uncorrectedNanos = new LatencyHistogram();
+    private final LatencyHistogram intervalCorrectedNanos = new LatencyHistogram();
+    private final LongAdder intervalRequests = new LongAdder();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder unexpectedOutcomes = new LongAdder();
+
+    void record(String outcome, boolean expected, long correctedLatencyNanos, long uncorrectedLatencyNanos) {
+        correctedNanos.record(correctedLatencyNanos);
+        uncorrectedNanos.record(uncorrectedLatencyNanos);
+        intervalCorrectedNanos.record(correctedLatencyNanos);
+        intervalRequests.increment();
+        outcomes.computeIfAbsent(outcome, name -> new LongAdder()).increment();
+        if (!expected) {
+            unexpectedOutcomes.increment();
+        }
+    }
+
+    long getRequests() {
+        return correctedNanos.getCount();
+    }
+
+    /**
+     * Prints a line for the interval since the last one and starts the next.
+     * A request recorded while the line is printed may be left out of it.
+     */
+    void printInterval(PrintStream out, double elapsedSeconds, double targetRate, double intervalSeconds,
+            long behindMillis) {
+        out.printf("%7.1fs  target %9.1f/s  achieved %9.1f/s  p99 %9.2fms  max %9.2fms  behind %dms%n",
+                elapsedSeconds, targetRate, intervalRequests.sumThenReset() / intervalSeconds,
+                millis(intervalCorrectedNanos.valueAtPercentile(99)), millis(intervalCorrectedNanos.getMax()),
+                behindMillis);
+        intervalCorrectedNanos.reset();
+    }
+
+    void print(PrintStream out, LoadTestConfig config, Duration measured, GcPauseMonitor gcPauseMonitor) {
+        double seconds = measured.toNanos() / 1e9;
+        out.println();
+        out.printf("%s for %.1fs at a baseline of %.0f/s (peak x%.1f) from %d threads%n", config.shape(), seconds,
+                config.baselineRate(), config.peakMultiplier(), config.threads());
+        out.printf("Stub latency: seats %s, payment %s, discounts %s%n", config.seatLatency(),
+                config.paymentLatency(), config.discountLatency());
+        out.printf("Requests: %d (%.1f/s)%n", getRequests(), getRequests() / seconds);
+        out.println("Outcomes:");
+        new TreeMap<>(outcomes).forEach((outcome, count) -> out.printf("  %-60s %12d%n", outcome, count.sum()));
+        out.printf("  %-60s %12d%n", "Not the expected outcome", unexpectedOutcomes.sum());
+        out.println();
+        out.printf("Latency (ms)   %10s %10s %10s %10s %10s%n", "mean", "p50", "p99", "p99.9", "max");
+        printLatency(out, "corrected", correctedNanos);
+        printLatency(out, "uncorrected", uncorrectedNanos);
+        out.println();
+        LatencyHistogram pauses = gcPauseMonitor.getPauseMillis();
+        out.printf("GC pauses: %d, total %dms (%.2f%% of the run), p99 %dms, max %dms%n", pauses.getCount(),
+                gcPauseMonitor.getTotalPauseMillis(), gcPauseMonitor.getTotalPauseMillis() / 10.0 / seconds,
+                pauses.valueAtPercentile(99), pauses.getMax());
+    }
+
+    private static void printLatency(PrintStream out, String name, LatencyHistogram histogram) {
+        out.printf("  %-12s %10.2f %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getMean() / 1e6,
+                millis(histogram.valueAtPercentile(50)), millis(histogram.valueAtPercentile(99)),
+                millis(histogram.valueAtPercentile(99.9)), millis(histogram.getMax()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
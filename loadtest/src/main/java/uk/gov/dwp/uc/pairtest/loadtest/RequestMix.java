@@ -0,0 +1,122 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_THAN_20_TICKETS;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.DISCOUNT_CODE_IS_NOT_VALID;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.NOOFTICKETS_CANNOT_BE_ZERO_OR_NEGATIVE;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.TICKETPURCHASEREQUEST_CANNOT_BE_NULL;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY;
+
+import java.util.random.RandomGenerator;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+/**
+ * Draws the requests for a run. Valid requests are spread over the booking
+ * shapes seen at a cinema, some with a discount code. Invalid requests each
+ * break one rule, chosen evenly from every ValidationError a request can
+ * cause on its own; the ticket quota depends on earlier purchases and is left
+ * out.
+ */
+final class RequestMix {
+
+    static final String[] VALID_DISCOUNT_CODES = { "STUDENT10", "MEMBER25" };
+    static final double[] DISCOUNT_PERCENTAGES = { 10, 25 };
+
+    private static final ValidationError[] INVALID_CASES = {
+            TICKETPURCHASEREQUEST_CANNOT_BE_NULL,
+            TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY,
+            ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE,
+            NOOFTICKETS_CANNOT_BE_ZERO_OR_NEGATIVE,
+            CANNOT_PURCHASE_MORE_THAN_20_TICKETS,
+            CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET,
+            CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS,
+            DISCOUNT_CODE_IS_NOT_VALID };
+
+    private final LoadTestConfig config;
+
+    RequestMix(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * A request for this point in the run, with the error it is expected to
+     * fail with, or null if it should succeed.
+     */
+    Purchase next(RandomGenerator random, double progress) {
+        double draw = random.nextDouble();
+        double botShare = config.shape().botShare(progress, config);
+        if (draw < botShare) {
+            return invalid(random, 1 + random.nextLong(config.botAccounts()));
+        }
+        long accountId = config.botAccounts() + 1 + random.nextLong(config.accounts());
+        if (draw < botShare + (1 - botShare) * config.invalidShare()) {
+            return invalid(random, accountId);
+        }
+        return new Purchase(valid(random, accountId), null);
+    }
+
+    private TicketPurchaseRequest valid(RandomGenerator random, long accountId) {
+        TicketTypeRequest[] ticketTypeRequests;
+        int shape = random.nextInt(100);
+        if (shape < 30) {
+            ticketTypeRequests = tickets(1, 0, 0);
+        } else if (shape < 55) {
+            ticketTypeRequests = tickets(2, 0, 0);
+        } else if (shape < 80) {
+            ticketTypeRequests = tickets(2, 2, 1);
+        } else if (shape < 95) {
+            ticketTypeRequests = tickets(4 + random.nextInt(7), random.nextInt(7), random.nextInt(3));
+        } else {
+            ticketTypeRequests = tickets(10, 6, 4);
+        }
+        String discountCode = random.nextDouble() < config.discountShare()
+                ? VALID_DISCOUNT_CODES[random.nextInt(VALID_DISCOUNT_CODES.length)]
+                : null;
+        return new TicketPurchaseRequest(accountId, ticketTypeRequests, discountCode);
+    }
+
+    private static Purchase invalid(RandomGenerator random, long accountId) {
+        ValidationError expectedError = INVALID_CASES[random.nextInt(INVALID_CASES.length)];
+        TicketPurchaseRequest request = switch (expectedError) {
+            case TICKETPURCHASEREQUEST_CANNOT_BE_NULL -> null;
+            case TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY -> new TicketPurchaseRequest(accountId,
+                    new TicketTypeRequest[0]);
+            case ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE -> new TicketPurchaseRequest(-accountId, tickets(1, 0, 0));
+            case NOOFTICKETS_CANNOT_BE_ZERO_OR_NEGATIVE -> new TicketPurchaseRequest(accountId,
+                    new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 0) });
+            case CANNOT_PURCHASE_MORE_THAN_20_TICKETS -> new TicketPurchaseRequest(accountId, tickets(15, 6, 0));
+            case CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET -> new TicketPurchaseRequest(accountId,
+                    tickets(0, 2, 0));
+            case CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS -> new TicketPurchaseRequest(accountId, tickets(1, 0, 2));
+            case DISCOUNT_CODE_IS_NOT_VALID -> new TicketPurchaseRequest(accountId, tickets(2, 0, 0),
+                    "FREETICKETS");
+            default -> throw new IllegalStateException("No request for " + expectedError);
+        };
+        return new Purchase(request, expectedError);
+    }
+
+    private static TicketTypeRequest[] tickets(int adults, int children, int infants) {
+        int lines = (adults > 0 ? 1 : 0) + (children > 0 ? 1 : 0) + (infants > 0 ? 1 : 0);
+        TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[lines];
+        int line = 0;
+        if (adults > 0) {
+            ticketTypeRequests[line++] = new TicketTypeRequest(Type.ADULT, adults);
+        }
+        if (children > 0) {
+            ticketTypeRequests[line++] = new TicketTypeRequest(Type.CHILD, children);
+        }
+        if (infants > 0) {
+            ticketTypeRequests[line] = new TicketTypeRequest(Type.INFANT, infants);
+        }
+        return ticketTypeRequests;
+    }
+
+    record Purchase(TicketPurchaseRequest request, ValidationError expectedError) {
+    }
+}
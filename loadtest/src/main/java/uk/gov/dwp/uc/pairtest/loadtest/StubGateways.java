@@ -0,0 +1,50 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import thirdparty.discount.Discount;
+import thirdparty.discount.DiscountService;
+import thirdparty.discount.exception.InvalidDiscountCodeException;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+
+/**
+ * Local stand-ins for the third-party gateways that only take time. The
+ * discount service accepts the codes in {@link RequestMix#VALID_DISCOUNT_CODES}
+ * and rejects any other.
+ */
+final class StubGateways {
+
+    private StubGateways() {
+    }
+
+    static SeatReservationService seatReservationService(LatencyModel latency) {
+        return (accountId, totalSeatsToAllocate) -> pause(latency);
+    }
+
+    static TicketPaymentService ticketPaymentService(LatencyModel latency) {
+        return (accountId, totalAmountToPay) -> pause(latency);
+    }
+
+    static DiscountService discountService(LatencyModel latency) {
+        return (accountId, discountCode) -> {
+            pause(latency);
+            for (int i = 0; i < RequestMix.VALID_DISCOUNT_CODES.length; i++) {
+                if (RequestMix.VALID_DISCOUNT_CODES[i].equals(discountCode)) {
+                    return new Discount(RequestMix.DISCOUNT_PERCENTAGES[i]);
+                }
+            }
+            throw new InvalidDiscountCodeException("Unknown discount code");
+        };
+    }
+
+    private static void pause(LatencyModel latency) {
+        long nanos = latency.sampleNanos(ThreadLocalRandom.current());
+        long deadline = System.nanoTime() + nanos;
+        while (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+            nanos = deadline - System.nanoTime();
+        }
+    }
+}
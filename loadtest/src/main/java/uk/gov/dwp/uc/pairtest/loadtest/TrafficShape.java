@@ -0,0 +1,73 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+/**
+ * How the request rate, and the share of it coming from bots, changes over
+ * the recorded part of a run. Progress runs from 0 at the end of the warmup
+ * to 1 at the end of the run.
+ */
+public enum TrafficShape {
+
+    /** The baseline rate throughout. */
+    STEADY {
+        @Override
+        double rate(double progress, LoadTestConfig config) {
+            return config.baselineRate();
+        }
+    },
+
+    /**
+     * A big release goes on sale a fifth of the way in: the rate climbs to
+     * the peak over 5% of the run, holds there for 20% and falls back to the
+     * baseline over the next 15%.
+     */
+    ON_SALE_SPIKE {
+        @Override
+        double rate(double progress, LoadTestConfig config) {
+            double peak = config.peakMultiplier();
+            double multiplier;
+            if (progress < 0.20 || progress >= 0.60) {
+                multiplier = 1;
+            } else if (progress < 0.25) {
+                multiplier = 1 + (peak - 1) * (progress - 0.20) / 0.05;
+            } else if (progress < 0.45) {
+                multiplier = peak;
+            } else {
+                multiplier = peak - (peak - 1) * (progress - 0.45) / 0.15;
+            }
+            return config.baselineRate() * multiplier;
+        }
+    },
+
+    /**
+     * The baseline, with bots adding invalid requests for the middle 40% of
+     * the run so that the total reaches the peak rate.
+     */
+    INVALID_FLOOD {
+        @Override
+        double rate(double progress, LoadTestConfig config) {
+            return config.baselineRate() * (isFlooding(progress) ? config.peakMultiplier() : 1);
+        }
+
+        @Override
+        double botShare(double progress, LoadTestConfig config) {
+            return isFlooding(progress) ? 1 - 1 / config.peakMultiplier() : 0;
+        }
+
+        private boolean isFlooding(double progress) {
+            return progress >= 0.30 && progress < 0.70;
+        }
+    };
+
+    /**
+     * Requests per second at this point in the run.
+     */
+    abstract double rate(double progress, LoadTestConfig config);
+
+    /**
+     * The share of requests at this point that are bots sending invalid
+     * requests.
+     */
+    double botShare(double progress, LoadTestConfig config) {
+        return 0;
+    }
+}
@@ -0,0 +1,16 @@
+package uk.gov.dwp.uc.pairtest;
+
+import java.util.concurrent.CompletableFuture;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+
+public interface AsyncTicketService {
+
+    /**
+     * Purchases the tickets without blocking the caller. The future completes
+     * exceptionally with an InvalidPurchaseException for an invalid request,
+     * or with the failure of the seat reservation or payment.
+     */
+    CompletableFuture<Void> purchaseTicketsAsync(TicketPurchaseRequest ticketPurchaseRequest);
+
+}
@@ -0,0 +1,147 @@
+package uk.gov.dwp.uc.pairtest;
+
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNT_TICKET_QUOTA_EXCEEDED;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.compensation.SeatCompensation;
+import uk.gov.dwp.uc.pairtest.discount.PurchaseDiscounts;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord.Stage;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.quota.TicketQuota;
+
+/**
+ * Runs the seat reservation and the payment as separate asynchronous stages,
+ * each with its own limit on calls in flight. As the stages do not share a
+ * limit, the payment for one purchase overlaps the reservation for the next.
+ * Validation runs on the caller's thread so that invalid requests never reach
+ * the executor. Calls over a stage's limit wait in a queue rather than on a
+ * thread, so a burst of purchases does not tie up the executor's threads.
+ * Purchases are journalled, take their tickets from the account's quota and
+ * have their seats released when payment fails, just as in
+ * {@link TicketServiceImpl}.
+ */
+public class AsyncTicketServiceImpl implements AsyncTicketService {
+
+    private final TicketPurchaseRequestValidator ticketPurchaseRequestValidator;
+    private final SeatReservationService seatReservationService;
+    private final TicketPaymentService ticketPaymentService;
+    private final PurchaseDiscounts purchaseDiscounts;
+    private final PurchaseJournal purchaseJournal;
+    private final SeatCompensation seatCompensation;
+    private final TicketQuota ticketQuota;
+    private final Executor executor;
+    private final StageLimiter seatReservations;
+    private final StageLimiter ticketPayments;
+
+    public AsyncTicketServiceImpl(TicketPurchaseRequestValidator ticketPurchaseRequestValidator,
+            SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+            PurchaseDiscounts purchaseDiscounts, PurchaseJournal purchaseJournal, SeatCompensation seatCompensation,
+            TicketQuota ticketQuota, Executor executor, int maxConcurrentSeatReservations,
+            int maxConcurrentTicketPayments) {
+        this.ticketPurchaseRequestValidator = ticketPurchaseRequestValidator;
+        this.seatReservationService = seatReservationService;
+        this.ticketPaymentService = ticketPaymentService;
+        this.purchaseDiscounts = purchaseDiscounts;
+        this.purchaseJournal = purchaseJournal;
+        this.seatCompensation = seatCompensation;
+        this.ticketQuota = ticketQuota;
+        this.executor = executor;
+        this.seatReservations = new StageLimiter(maxConcurrentSeatReservations);
+        this.ticketPayments = new StageLimiter(maxConcurrentTicketPayments);
+    }
+
+    public AsyncTicketServiceImpl(TicketPurchaseRequestValidator ticketPurchaseRequestValidator,
+            SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+            PurchaseDiscounts purchaseDiscounts, Executor executor, int maxConcurrentSeatReservations,
+            int maxConcurrentTicketPayments) {
+        this(ticketPurchaseRequestValidator, seatReservationService, ticketPaymentService, purchaseDiscounts,
+                PurchaseJournal.NOOP, SeatCompensation.NONE, TicketQuota.NONE, executor, maxConcurrentSeatReservations,
+                maxConcurrentTicketPayments);
+    }
+
+    public AsyncTicketServiceImpl(TicketPurchaseRequestValidator ticketPurchaseRequestValidator,
+            SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService,
+            Executor executor, int maxConcurrentSeatReservations, int maxConcurrentTicketPayments) {
+        this(ticketPurchaseRequestValidator, seatReservationService, ticketPaymentService,
+                PurchaseDiscounts.NONE, executor, maxConcurrentSeatReservations, maxConcurrentTicketPayments);
+    }
+
+    @Override
+    public CompletableFuture<Void> purchaseTicketsAsync(TicketPurchaseRequest ticketPurchaseRequest) {
+        PurchaseTally tally = ticketPurchaseRequestValidator.getTicketPricingEngine().tally(ticketPurchaseRequest, PurchaseTally.scratch());
+        try {
+            ticketPurchaseRequestValidator.validate(ticketPurchaseRequest, tally);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long accountId = ticketPurchaseRequest.accountId();
+        int totalSeats = tally.getTotalSeats();
+        int undiscountedCost = tally.getTotalCost();
+        // The validator has capped the tickets, so the total fits in an int
+        int totalTickets = (int) tally.getTotalTickets();
+        // The tally is only good on this thread, so the record is taken now and given its discounted cost later
+        PurchaseJournalRecord undiscountedRecord = purchaseJournal == PurchaseJournal.NOOP ? null
+                : PurchaseJournalRecord.started(purchaseJournal.nextPurchaseId(), accountId, tally, undiscountedCost);
+
+        // The discount lookup may be remote, so it runs on the executor ahead of the reservation, as does the
+        // wait for the first journal record, so that neither holds a seat reservation permit
+        return CompletableFuture
+                .supplyAsync(() -> {
+                    int totalCost = purchaseDiscounts.apply(ticketPurchaseRequest, undiscountedCost);
+                    if (!ticketQuota.tryTake(accountId, totalTickets)) {
+                        throw InvalidPurchaseException.fromMask(ACCOUNT_TICKET_QUOTA_EXCEEDED.bit());
+                    }
+                    if (undiscountedRecord != null) {
+                        try {
+                            purchaseJournal.appendAndWait(undiscountedRecord.withTotalCost(totalCost));
+                        } catch (RuntimeException e) {
+                            ticketQuota.giveBack(accountId, totalTickets);
+                            throw e;
+                        }
+                    }
+                    return totalCost;
+                }, executor)
+                .thenCompose(totalCost -> {
+                    PurchaseJournalRecord journalRecord = undiscountedRecord == null ? null
+                            : undiscountedRecord.withTotalCost(totalCost);
+                    return seatReservations.submit(() -> {
+                        try {
+                            seatReservationService.reserveSeat(accountId, totalSeats);
+                        } catch (RuntimeException e) {
+                            journal(journalRecord, Stage.SEATS_NOT_RESERVED);
+                            ticketQuota.giveBack(accountId, totalTickets);
+                            throw e;
+                        }
+                        journal(journalRecord, Stage.SEATS_RESERVED);
+                        return seatCompensation != SeatCompensation.NONE ? System.nanoTime() : 0L;
+                    }, executor).thenCompose(seatsHeldSince -> ticketPayments.submit(() -> {
+                        try {
+                            ticketPaymentService.makePayment(accountId, totalCost);
+                        } catch (RuntimeException e) {
+                            journal(journalRecord, Stage.PAYMENT_FAILED);
+                            ticketQuota.giveBack(accountId, totalTickets);
+                            seatCompensation.releaseSeats(accountId, totalSeats, seatsHeldSince,
+                                    journalRecord == null ? null : () -> journal(journalRecord, Stage.SEATS_RELEASED));
+                            throw e;
+                        }
+                        journal(journalRecord, Stage.COMPLETED);
+                        return null;
+                    }, executor));
+                });
+    }
+
+    private void journal(PurchaseJournalRecord journalRecord, Stage stage) {
+        if (journalRecord != null) {
+            purchaseJournal.append(journalRecord.withStage(stage));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package uk.gov.dwp.uc.pairtest;
+
+import java.util.List;
+
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+
+public interface BatchTicketService {
+
+    /**
+     * Purchases every request in the batch, returning one result per request
+     * in the same order. A request that fails never fails the others.
+     */
+    List<PurchaseResult> purchaseTicketsBatch(List<TicketPurchaseRequest> ticketPurchaseRequests);
+
+}
@@ -0,0 +1,274 @@
+package uk.gov.dwp.uc.pairtest;
+
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNT_TICKET_QUOTA_EXCEEDED;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.compensation.SeatCompensation;
+import uk.gov.dwp.uc.pairtest.discount.PurchaseDiscounts;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord.Stage;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.quota.TicketQuota;
+
+/**
+ * Purchases a batch of requests with one seat reservation and one payment per
+ * account rather than per request. When a coalesced call fails it is replayed
+ * request by request for that account, so that only the requests that fail
+ * on their own are reported as failed. Each request is journalled, takes its
+ * tickets from the account's quota and has its seats released on a failed
+ * payment just as in {@link TicketServiceImpl}; with a seat compensation
+ * configured, seats are reserved per request so that each can be released.
+ */
+@Builder
+@AllArgsConstructor
+public class BatchTicketServiceImpl implements BatchTicketService {
+
+    private TicketPurchaseRequestValidator ticketPurchaseRequestValidator;
+    private SeatReservationService seatReservationService;
+    private TicketPaymentService ticketPaymentService;
+    @Builder.Default
+    private PurchaseDiscounts purchaseDiscounts = PurchaseDiscounts.NONE;
+    @Builder.Default
+    private PurchaseJournal purchaseJournal = PurchaseJournal.NOOP;
+    @Builder.Default
+    private SeatCompensation seatCompensation = SeatCompensation.NONE;
+    @Builder.Default
+    private TicketQuota ticketQuota = TicketQuota.NONE;
+
+    public BatchTicketServiceImpl(TicketPurchaseRequestValidator ticketPurchaseRequestValidator,
+            SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService) {
+        this(ticketPurchaseRequestValidator, seatReservationService, ticketPaymentService,
+                PurchaseDiscounts.NONE, PurchaseJournal.NOOP, SeatCompensation.NONE,
+                TicketQuota.NONE);
+    }
+
+    @Override
+    public List<PurchaseResult> purchaseTicketsBatch(List<TicketPurchaseRequest> ticketPurchaseRequests) {
+        int size = ticketPurchaseRequests.size();
+        PurchaseResult[] results = new PurchaseResult[size];
+        int[] seats = new int[size];
+        int[] costs = new int[size];
+        int[] tickets = new int[size];
+        PurchaseJournalRecord[] journalRecords = new PurchaseJournalRecord[size];
+        Map<Long, List<Integer>> validRequestsByAccount = new LinkedHashMap<>();
+
+        PurchaseTally tally = new PurchaseTally();
+        for (int i = 0; i < size; i++) {
+            TicketPurchaseRequest ticketPurchaseRequest = ticketPurchaseRequests.get(i);
+            ticketPurchaseRequestValidator.getTicketPricingEngine().tally(ticketPurchaseRequest, tally);
+            int validationErrors = ticketPurchaseRequestValidator.check(ticketPurchaseRequest, tally);
+            if (validationErrors != TicketPurchaseRequestValidator.VALID) {
+                results[i] = PurchaseResult.rejected(ticketPurchaseRequest, validationErrors);
+                continue;
+            }
+            seats[i] = tally.getTotalSeats();
+            try {
+                costs[i] = purchaseDiscounts.apply(ticketPurchaseRequest, tally.getTotalCost());
+            } catch (InvalidPurchaseException e) {
+                results[i] = PurchaseResult.rejected(ticketPurchaseRequest, e.getValidationErrors());
+                continue;
+            } catch (RuntimeException e) {
+                results[i] = PurchaseResult.failed(ticketPurchaseRequest, e);
+                continue;
+            }
+            // The validator has capped the tickets, so the total fits in an int
+            tickets[i] = (int) tally.getTotalTickets();
+            if (!ticketQuota.tryTake(ticketPurchaseRequest.accountId(), tickets[i])) {
+                results[i] = PurchaseResult.rejected(ticketPurchaseRequest, ACCOUNT_TICKET_QUOTA_EXCEEDED.bit());
+                continue;
+            }
+            if (purchaseJournal != PurchaseJournal.NOOP) {
+                journalRecords[i] = PurchaseJournalRecord.started(purchaseJournal.nextPurchaseId(),
+                        ticketPurchaseRequest.accountId(), tally, costs[i]);
+            }
+            validRequestsByAccount.computeIfAbsent(ticketPurchaseRequest.accountId(), k -> new ArrayList<>())
+                    .add(i);
+        }
+
+        validRequestsByAccount.forEach((accountId, indexes) -> purchaseForAccount(accountId, indexes,
+                ticketPurchaseRequests, seats, costs, tickets, journalRecords, results));
+
+        return Arrays.asList(results);
+    }
+
+    private void purchaseForAccount(long accountId, List<Integer> indexes,
+            List<TicketPurchaseRequest> ticketPurchaseRequests, int[] seats, int[] costs, int[] tickets,
+            PurchaseJournalRecord[] journalRecords, PurchaseResult[] results) {
+        indexes = journalStarted(accountId, indexes, ticketPurchaseRequests, tickets, journalRecords, results);
+        if (indexes.isEmpty()) {
+            return;
+        }
+        long seatsHeldSince;
+        if (seatCompensation == SeatCompensation.NONE) {
+            int totalSeats = 0;
+            for (int i : indexes) {
+                totalSeats += seats[i];
+            }
+            try {
+                seatReservationService.reserveSeat(accountId, totalSeats);
+            } catch (RuntimeException e) {
+                if (indexes.size() == 1) {
+                    int i = indexes.get(0);
+                    seatsNotReserved(accountId, tickets[i], journalRecords[i]);
+                    results[i] = PurchaseResult.failed(ticketPurchaseRequests.get(i), e);
+                } else {
+                    for (int i : indexes) {
+                        results[i] = purchaseIndividually(accountId, ticketPurchaseRequests.get(i), seats[i],
+                                costs[i], tickets[i], journalRecords[i]);
+                    }
+                }
+                return;
+            }
+            for (int i : indexes) {
+                journal(journalRecords[i], Stage.SEATS_RESERVED);
+            }
+            seatsHeldSince = 0;
+        } else {
+            // A release frees only an allocation of the same size, so seats that may
+            // have to be released are reserved request by request
+            seatsHeldSince = System.nanoTime();
+            indexes = reserveIndividually(accountId, indexes, ticketPurchaseRequests, seats, tickets,
+                    journalRecords, results);
+            if (indexes.isEmpty()) {
+                return;
+            }
+        }
+        int totalCost = 0;
+        for (int i : indexes) {
+            totalCost += costs[i];
+        }
+
+        try {
+            ticketPaymentService.makePayment(accountId, totalCost);
+        } catch (RuntimeException e) {
+            if (indexes.size() == 1) {
+                int i = indexes.get(0);
+                paymentFailed(accountId, seats[i], tickets[i], seatsHeldSince, journalRecords[i]);
+                results[i] = PurchaseResult.failed(ticketPurchaseRequests.get(i), e);
+            } else {
+                // Seats are already held for the whole account, so only the payments are replayed
+                for (int i : indexes) {
+                    results[i] = payIndividually(accountId, ticketPurchaseRequests.get(i), seats[i], costs[i],
+                            tickets[i], seatsHeldSince, journalRecords[i]);
+                }
+            }
+            return;
+        }
+        for (int i : indexes) {
+            journal(journalRecords[i], Stage.COMPLETED);
+            results[i] = PurchaseResult.accepted(ticketPurchaseRequests.get(i));
+        }
+    }
+
+    /**
+     * Writes the first record of each purchase and waits for them together,
+     * returning the purchases whose record is on disk. The others fail
+     * before anything is reserved, and give their tickets back.
+     */
+    private List<Integer> journalStarted(long accountId, List<Integer> indexes,
+            List<TicketPurchaseRequest> ticketPurchaseRequests, int[] tickets, PurchaseJournalRecord[] journalRecords,
+            PurchaseResult[] results) {
+        if (purchaseJournal == PurchaseJournal.NOOP) {
+            return indexes;
+        }
+        List<CompletableFuture<Void>> appends = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            appends.add(purchaseJournal.append(journalRecords[i]));
+        }
+        List<Integer> started = new ArrayList<>(indexes.size());
+        for (int n = 0; n < indexes.size(); n++) {
+            int i = indexes.get(n);
+            try {
+                appends.get(n).join();
+                started.add(i);
+            } catch (CompletionException e) {
+                RuntimeException failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                ticketQuota.giveBack(accountId, tickets[i]);
+                results[i] = PurchaseResult.failed(ticketPurchaseRequests.get(i), failure);
+            }
+        }
+        return started;
+    }
+
+    /**
+     * Reserves the seats of each purchase on its own, returning the purchases
+     * that got them.
+     */
+    private List<Integer> reserveIndividually(long accountId, List<Integer> indexes,
+            List<TicketPurchaseRequest> ticketPurchaseRequests, int[] seats, int[] tickets,
+            PurchaseJournalRecord[] journalRecords, PurchaseResult[] results) {
+        List<Integer> reserved = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            try {
+                seatReservationService.reserveSeat(accountId, seats[i]);
+            } catch (RuntimeException e) {
+                seatsNotReserved(accountId, tickets[i], journalRecords[i]);
+                results[i] = PurchaseResult.failed(ticketPurchaseRequests.get(i), e);
+                continue;
+            }
+            journal(journalRecords[i], Stage.SEATS_RESERVED);
+            reserved.add(i);
+        }
+        return reserved;
+    }
+
+    private PurchaseResult purchaseIndividually(long accountId, TicketPurchaseRequest ticketPurchaseRequest,
+            int seats, int cost, int tickets, PurchaseJournalRecord journalRecord) {
+        try {
+            seatReservationService.reserveSeat(accountId, seats);
+        } catch (RuntimeException e) {
+            seatsNotReserved(accountId, tickets, journalRecord);
+            return PurchaseResult.failed(ticketPurchaseRequest, e);
+        }
+        journal(journalRecord, Stage.SEATS_RESERVED);
+        long seatsHeldSince = seatCompensation != SeatCompensation.NONE ? System.nanoTime() : 0;
+        return payIndividually(accountId, ticketPurchaseRequest, seats, cost, tickets, seatsHeldSince,
+                journalRecord);
+    }
+
+    private PurchaseResult payIndividually(long accountId, TicketPurchaseRequest ticketPurchaseRequest, int seats,
+            int cost, int tickets, long seatsHeldSince, PurchaseJournalRecord journalRecord) {
+        try {
+            ticketPaymentService.makePayment(accountId, cost);
+        } catch (RuntimeException e) {
+            paymentFailed(accountId, seats, tickets, seatsHeldSince, journalRecord);
+            return PurchaseResult.failed(ticketPurchaseRequest, e);
+        }
+        journal(journalRecord, Stage.COMPLETED);
+        return PurchaseResult.accepted(ticketPurchaseRequest);
+    }
+
+    private void seatsNotReserved(long accountId, int tickets, PurchaseJournalRecord journalRecord) {
+        journal(journalRecord, Stage.SEATS_NOT_RESERVED);
+        ticketQuota.giveBack(accountId, tickets);
+    }
+
+    private void paymentFailed(long accountId, int seats, int tickets, long seatsHeldSince,
+            PurchaseJournalRecord journalRecord) {
+        journal(journalRecord, Stage.PAYMENT_FAILED);
+        ticketQuota.giveBack(accountId, tickets);
+        seatCompensation.releaseSeats(accountId, seats, seatsHeldSince,
+                journalRecord == null ? null : () -> journal(journalRecord, Stage.SEATS_RELEASED));
+    }
+
+    private void journal(PurchaseJournalRecord journalRecord, Stage stage) {
+        if (journalRecord != null) {
+            purchaseJournal.append(journalRecord.withStage(stage));
+        }
+    }
+}
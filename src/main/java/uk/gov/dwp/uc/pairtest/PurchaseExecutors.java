@@ -0,0 +1,51 @@
+package uk.gov.dwp.uc.pairtest;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class PurchaseExecutors {
+
+    /**
+     * The most platform threads the fallback executor starts. Tasks beyond
+     * them queue.
+     */
+    static final int MAX_PLATFORM_THREADS = 256;
+
+    private PurchaseExecutors() {
+    }
+
+    /**
+     * An executor that starts a new thread per task: a virtual thread when
+     * the runtime has them (Java 21 and later), otherwise a daemon platform
+     * thread from a pool of at most {@link #MAX_PLATFORM_THREADS}. The project
+     * is built for Java 17, so the virtual thread factory is looked up rather
+     * than called directly.
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class))
+                    .invokeExact();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PLATFORM_THREADS, MAX_PLATFORM_THREADS,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                        Thread thread = new Thread(task, "purchase-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            // Idle threads go, so the pool only grows to the limit under load
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+}
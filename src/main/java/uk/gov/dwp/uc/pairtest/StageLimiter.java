@@ -0,0 +1,82 @@
+package uk.gov.dwp.uc.pairtest;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limits the calls of one stage that are running at once without holding a
+ * thread for those that wait: a call over the limit is queued, and handed to
+ * the executor when a running call finishes.
+ */
+final class StageLimiter {
+
+    private final int maxConcurrentCalls;
+    private final Queue<BooleanSupplier> waiting = new ArrayDeque<>();
+    private int running;
+
+    StageLimiter(int maxConcurrentCalls) {
+        if (maxConcurrentCalls < 1) {
+            throw new IllegalArgumentException("At least one call must be allowed");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<T> call, Executor executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        // Hands the call to the executor, or fails it and reports that its place is still free
+        BooleanSupplier start = () -> {
+            try {
+                executor.execute(() -> {
+                    try {
+                        result.complete(call.get());
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    } finally {
+                        release();
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(e);
+                return false;
+            }
+        };
+        synchronized (this) {
+            if (running == maxConcurrentCalls) {
+                waiting.add(start);
+                return result;
+            }
+            running++;
+        }
+        if (!start.getAsBoolean()) {
+            release();
+        }
+        return result;
+    }
+
+    /**
+     * Passes a freed place straight to the next waiting call, and on down the
+     * queue while the executor turns them away, in a loop so that a long
+     * queue behind a shut-down executor cannot overflow the stack.
+     */
+    private void release() {
+        while (true) {
+            BooleanSupplier next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    running--;
+                    return;
+                }
+            }
+            if (next.getAsBoolean()) {
+                return;
+            }
+        }
+    }
+}
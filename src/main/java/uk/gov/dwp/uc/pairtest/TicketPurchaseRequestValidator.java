@@ -1,7 +1,5 @@
 package uk.gov.dwp.uc.pairtest;
 
-import static uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type.ADULT;
-import static uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type.INFANT;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS;
@@ -10,59 +8,120 @@ import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.Validati
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.TICKETPURCHASEREQUEST_CANNOT_BE_NULL;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY;
 
+import uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestView;
 import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
-import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetricsListener;
+import uk.gov.dwp.uc.pairtest.pricing.PricingRules;
+import uk.gov.dwp.uc.pairtest.pricing.PricingRulesSource;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.pricing.TicketPricingEngine;
 
 public class TicketPurchaseRequestValidator {
 
+    /**
+     * The validation error mask of a request that breaks no rules.
+     */
+    public static final int VALID = 0;
+
+    private final TicketPricingEngine ticketPricingEngine;
+    private final PurchaseMetricsListener purchaseMetricsListener;
+    private final PricingRulesSource pricingRulesSource;
+
+    public TicketPurchaseRequestValidator() {
+        this(PurchaseMetricsListener.NOOP);
+    }
+
+    /**
+     * A validator that reports the outcome of every check to the listener.
+     */
+    public TicketPurchaseRequestValidator(PurchaseMetricsListener purchaseMetricsListener) {
+        this(purchaseMetricsListener, PricingRules.STANDARD);
+    }
+
+    /**
+     * A validator that takes the ticket limit from the rules in force.
+     */
+    public TicketPurchaseRequestValidator(PurchaseMetricsListener purchaseMetricsListener,
+            PricingRulesSource pricingRulesSource) {
+        this.purchaseMetricsListener = purchaseMetricsListener;
+        this.pricingRulesSource = pricingRulesSource;
+        this.ticketPricingEngine = new TicketPricingEngine(pricingRulesSource);
+    }
+
+    /**
+     * The engine that tallies requests by the rules this validator checks,
+     * for services to price purchases with.
+     */
+    public TicketPricingEngine getTicketPricingEngine() {
+        return ticketPricingEngine;
+    }
+
     public void validate(TicketPurchaseRequest ticketPurchaseRequest) throws InvalidPurchaseException {
-        if (ticketPurchaseRequest == null) {
-            InvalidPurchaseException exception = new InvalidPurchaseException();
-            exception.getValidationErrors().add(TICKETPURCHASEREQUEST_CANNOT_BE_NULL);
-            throw exception;
+        throwIfInvalid(check(ticketPurchaseRequest));
+    }
+
+    /**
+     * Validates a request against a tally that has already been taken for it,
+     * so that callers who also need the totals only walk the request once.
+     */
+    public void validate(TicketPurchaseRequest ticketPurchaseRequest, PurchaseTally tally)
+            throws InvalidPurchaseException {
+        throwIfInvalid(check(ticketPurchaseRequest, tally));
+    }
+
+    /**
+     * Returns the broken rules as a mask of {@link ValidationError#bit()}s, or
+     * {@link #VALID}. Nothing is allocated for a valid request.
+     */
+    public int check(TicketPurchaseRequest ticketPurchaseRequest) {
+        return check(ticketPurchaseRequest, ticketPricingEngine.tally(ticketPurchaseRequest, PurchaseTally.scratch()));
+    }
+
+    public int check(TicketPurchaseRequest ticketPurchaseRequest, PurchaseTally tally) {
+        int validationErrors = ticketPurchaseRequest == null ? TICKETPURCHASEREQUEST_CANNOT_BE_NULL.bit()
+                : checkRules(ticketPurchaseRequest.accountId(), tally);
+        purchaseMetricsListener.onValidated(validationErrors);
+        return validationErrors;
+    }
+
+    /**
+     * Checks an encoded request against a tally taken from the same view,
+     * without decoding it into a TicketPurchaseRequest.
+     */
+    public int checkEncoded(TicketPurchaseRequestView ticketPurchaseRequestView, PurchaseTally tally) {
+        int validationErrors = checkRules(ticketPurchaseRequestView.accountId(), tally);
+        purchaseMetricsListener.onValidated(validationErrors);
+        return validationErrors;
+    }
+
+    private int checkRules(long accountId, PurchaseTally tally) {
+        int validationErrors = VALID;
+        if (accountId <= 0) {
+            validationErrors |= ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE.bit();
+        }
+        if (tally.getLines() == 0) {
+            validationErrors |= TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY.bit();
+        } else if (tally.isNonPositiveTickets()) {
+            // The other rules are not checked against a partial tally
+            validationErrors |= NOOFTICKETS_CANNOT_BE_ZERO_OR_NEGATIVE.bit();
         } else {
-            InvalidPurchaseException exception = new InvalidPurchaseException();
-            if (ticketPurchaseRequest.accountId() <= 0) {
-                exception.getValidationErrors().add(ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE);
-            }
-            if (ticketPurchaseRequest.ticketTypeRequests() == null) {
-                exception.getValidationErrors().add(TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY);
-            } else if (ticketPurchaseRequest.ticketTypeRequests().length == 0) {
-                exception.getValidationErrors().add(TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY);
-            } else {
-                int totalNumberOfTickets = 0;
-                boolean isAdult = false;
-                int totalAdults = 0;
-                int totalInfants = 0;
-                for (TicketTypeRequest ticketTypeRequest : ticketPurchaseRequest.ticketTypeRequests()) {
-                    if (ticketTypeRequest.type().equals(ADULT)) {
-                        isAdult = true;
-                        totalAdults += ticketTypeRequest.noOfTickets();
-                    }
-                    if (ticketTypeRequest.type().equals(INFANT)) {
-                        totalInfants += ticketTypeRequest.noOfTickets();
-                    }
-                    if (ticketTypeRequest.noOfTickets() <= 0) {
-                        exception.getValidationErrors().add(NOOFTICKETS_CANNOT_BE_ZERO_OR_NEGATIVE);
-                        totalNumberOfTickets = 0; // This is to ignore the other errors (below)
-                        break;
-                    } else {
-                        totalNumberOfTickets += ticketTypeRequest.noOfTickets();
-                    }
-                }
-                if (totalNumberOfTickets > 20) {
-                    exception.getValidationErrors().add(CANNOT_PURCHASE_MORE_THAN_20_TICKETS);
-                }
-                if (totalNumberOfTickets > 0 && !isAdult) {
-                    exception.getValidationErrors().add(CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET);
-                } else if (totalNumberOfTickets > 0 && totalInfants > totalAdults) {
-                    exception.getValidationErrors().add(CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS);
-                }
+            if (tally.getTotalTickets() > pricingRulesSource.currentRules().getMaxTicketsPerPurchase()) {
+                validationErrors |= CANNOT_PURCHASE_MORE_THAN_20_TICKETS.bit();
             }
-            if (exception.getValidationErrors().size() > 0) {
-                throw exception;
+            if (tally.getAdultTickets() == 0) {
+                validationErrors |= CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET.bit();
+            } else if (tally.getInfantTickets() > tally.getAdultTickets()) {
+                validationErrors |= CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS.bit();
             }
         }
+        return validationErrors;
+    }
+
+    private static void throwIfInvalid(int validationErrors) {
+        if (validationErrors != VALID) {
+            throw InvalidPurchaseException.fromMask(validationErrors);
+        }
     }
 }
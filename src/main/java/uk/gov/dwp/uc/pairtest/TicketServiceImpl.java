@@ -1,20 +1,55 @@
 package uk.gov.dwp.uc.pairtest;
 
-import java.util.Arrays;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNT_TICKET_QUOTA_EXCEEDED;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.DISCOUNT_CODE_IS_NOT_VALID;
 
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.compensation.SeatCompensation;
+import uk.gov.dwp.uc.pairtest.discount.PurchaseDiscounts;
 import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.events.PurchaseEventPublisher;
+import uk.gov.dwp.uc.pairtest.events.PurchaseOutcome;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord.Stage;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetricsListener;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseStage;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.quota.TicketQuota;
 
+@Builder
 @AllArgsConstructor
 public class TicketServiceImpl implements TicketService {
 
+    private static final Type[] TYPES = Type.values();
+
     private TicketPurchaseRequestValidator ticketPurchaseRequestValidator;
     private SeatReservationService seatReservationService;
     private TicketPaymentService ticketPaymentService;
+    @Builder.Default
+    private PurchaseDiscounts purchaseDiscounts = PurchaseDiscounts.NONE;
+    @Builder.Default
+    private PurchaseMetricsListener purchaseMetricsListener = PurchaseMetricsListener.NOOP;
+    @Builder.Default
+    private PurchaseJournal purchaseJournal = PurchaseJournal.NOOP;
+    @Builder.Default
+    private SeatCompensation seatCompensation = SeatCompensation.NONE;
+    @Builder.Default
+    private TicketQuota ticketQuota = TicketQuota.NONE;
+    @Builder.Default
+    private PurchaseEventPublisher purchaseEventPublisher = PurchaseEventPublisher.NOOP;
+
+    public TicketServiceImpl(TicketPurchaseRequestValidator ticketPurchaseRequestValidator,
+            SeatReservationService seatReservationService, TicketPaymentService ticketPaymentService) {
+        this(ticketPurchaseRequestValidator, seatReservationService, ticketPaymentService,
+                PurchaseDiscounts.NONE, PurchaseMetricsListener.NOOP, PurchaseJournal.NOOP,
+                SeatCompensation.NONE, TicketQuota.NONE, PurchaseEventPublisher.NOOP);
+    }
 
     /**
      * Should only have private methods other than the one below.
@@ -22,34 +57,116 @@ public class TicketServiceImpl implements TicketService {
     @Override
     public void purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest) throws InvalidPurchaseException {
 
-        ticketPurchaseRequestValidator.validate(ticketPurchaseRequest);
+        boolean metricsEnabled = purchaseMetricsListener != PurchaseMetricsListener.NOOP;
+        long stageStart = metricsEnabled ? System.nanoTime() : 0;
+
+        // Priced by the validator's rules, so the ticket limit and the prices always agree
+        PurchaseTally tally = ticketPurchaseRequestValidator.getTicketPricingEngine().tally(ticketPurchaseRequest,
+                PurchaseTally.scratch());
+
+        int validationErrors;
+        try {
+            validationErrors = ticketPurchaseRequestValidator.check(ticketPurchaseRequest, tally);
+        } finally {
+            stageStart = recordStage(metricsEnabled, PurchaseStage.VALIDATE, stageStart);
+        }
+        if (validationErrors != TicketPurchaseRequestValidator.VALID) {
+            publish(PurchaseOutcome.REJECTED, ticketPurchaseRequest, validationErrors, tally, 0);
+            throw InvalidPurchaseException.fromMask(validationErrors);
+        }
 
-        seatReservationService.reserveSeat(ticketPurchaseRequest.accountId(),
-                calculateTotalSeatsToAllocate(ticketPurchaseRequest));
+        int totalSeats = tally.getTotalSeats();
+        int totalCost;
+        try {
+            totalCost = purchaseDiscounts.apply(ticketPurchaseRequest, tally.getTotalCost());
+        } catch (InvalidPurchaseException e) {
+            publish(PurchaseOutcome.REJECTED, ticketPurchaseRequest, DISCOUNT_CODE_IS_NOT_VALID.bit(), tally, 0);
+            throw e;
+        } catch (RuntimeException e) {
+            publish(PurchaseOutcome.FAILED, ticketPurchaseRequest, 0, tally, 0);
+            throw e;
+        }
 
-        ticketPaymentService.makePayment(ticketPurchaseRequest.accountId(),
-                calculateTotalCost(ticketPurchaseRequest));
+        // The validator has capped the tickets, so the total fits in an int
+        int totalTickets = (int) tally.getTotalTickets();
+        if (!ticketQuota.tryTake(ticketPurchaseRequest.accountId(), totalTickets)) {
+            publish(PurchaseOutcome.REJECTED, ticketPurchaseRequest, ACCOUNT_TICKET_QUOTA_EXCEEDED.bit(), tally,
+                    totalCost);
+            throw InvalidPurchaseException.fromMask(ACCOUNT_TICKET_QUOTA_EXCEEDED.bit());
+        }
 
+        // Only the first record is waited for: once it is on disk a crash from here on leaves a trace
+        PurchaseJournalRecord journalRecord = null;
+        if (purchaseJournal != PurchaseJournal.NOOP) {
+            journalRecord = PurchaseJournalRecord.started(purchaseJournal.nextPurchaseId(),
+                    ticketPurchaseRequest.accountId(), tally, totalCost);
+            try {
+                purchaseJournal.appendAndWait(journalRecord);
+            } catch (RuntimeException e) {
+                ticketQuota.giveBack(ticketPurchaseRequest.accountId(), totalTickets);
+                publish(PurchaseOutcome.FAILED, ticketPurchaseRequest, 0, tally, totalCost);
+                throw e;
+            }
+        }
+
+        stageStart = metricsEnabled ? System.nanoTime() : 0;
+        try {
+            seatReservationService.reserveSeat(ticketPurchaseRequest.accountId(), totalSeats);
+        } catch (RuntimeException e) {
+            journal(journalRecord, Stage.SEATS_NOT_RESERVED);
+            ticketQuota.giveBack(ticketPurchaseRequest.accountId(), totalTickets);
+            publish(PurchaseOutcome.SEATS_NOT_RESERVED, ticketPurchaseRequest, 0, tally, totalCost);
+            throw e;
+        } finally {
+            stageStart = recordStage(metricsEnabled, PurchaseStage.RESERVE_SEATS, stageStart);
+        }
+        journal(journalRecord, Stage.SEATS_RESERVED);
+        long seatsHeldSince = seatCompensation != SeatCompensation.NONE ? System.nanoTime() : 0;
+
+        try {
+            ticketPaymentService.makePayment(ticketPurchaseRequest.accountId(), totalCost);
+        } catch (RuntimeException e) {
+            journal(journalRecord, Stage.PAYMENT_FAILED);
+            ticketQuota.giveBack(ticketPurchaseRequest.accountId(), totalTickets);
+            PurchaseJournalRecord failedPurchase = journalRecord;
+            seatCompensation.releaseSeats(ticketPurchaseRequest.accountId(), totalSeats, seatsHeldSince,
+                    failedPurchase == null ? null : () -> journal(failedPurchase, Stage.SEATS_RELEASED));
+            publish(PurchaseOutcome.PAYMENT_FAILED, ticketPurchaseRequest, 0, tally, totalCost);
+            throw e;
+        } finally {
+            recordStage(metricsEnabled, PurchaseStage.MAKE_PAYMENT, stageStart);
+        }
+        journal(journalRecord, Stage.COMPLETED);
+
+        // Nothing above takes another tally on this thread, so the scratch tally still holds this purchase
+        publish(PurchaseOutcome.PURCHASED, ticketPurchaseRequest, 0, tally, totalCost);
+        if (metricsEnabled) {
+            for (Type type : TYPES) {
+                purchaseMetricsListener.onTicketsSold(type, tally.getTickets(type));
+            }
+        }
     }
 
-    private int calculateTotalCost(TicketPurchaseRequest ticketPurchaseRequest) {
-        return Arrays.stream(ticketPurchaseRequest.ticketTypeRequests())
-                .map((r) -> {
-                    if (r.type() == Type.ADULT) {
-                        return r.noOfTickets() * 20;
-                    } else if (r.type() == Type.CHILD) {
-                        return r.noOfTickets() * 10;
-                    } else
-                        return 0;
-                }).mapToInt(Integer::intValue)
-                .sum();
+    private void publish(PurchaseOutcome outcome, TicketPurchaseRequest ticketPurchaseRequest,
+            int validationErrorMask, PurchaseTally tally, int totalCost) {
+        if (purchaseEventPublisher != PurchaseEventPublisher.NOOP) {
+            long accountId = ticketPurchaseRequest == null ? 0 : ticketPurchaseRequest.accountId();
+            purchaseEventPublisher.publish(outcome, accountId, validationErrorMask, tally, totalCost);
+        }
     }
 
-    private int calculateTotalSeatsToAllocate(TicketPurchaseRequest ticketPurchaseRequest) {
+    private void journal(PurchaseJournalRecord journalRecord, Stage stage) {
+        if (journalRecord != null) {
+            purchaseJournal.append(journalRecord.withStage(stage));
+        }
+    }
 
-        return Arrays.stream(ticketPurchaseRequest.ticketTypeRequests())
-                .filter((r) -> r.type() == Type.ADULT || r.type() == Type.CHILD)
-                .map((r) -> r.noOfTickets()).mapToInt(Integer::intValue)
-                .sum();
+    private long recordStage(boolean metricsEnabled, PurchaseStage stage, long stageStart) {
+        if (!metricsEnabled) {
+            return 0;
+        }
+        long stageEnd = System.nanoTime();
+        purchaseMetricsListener.onStageCompleted(stage, stageEnd - stageStart);
+        return stageEnd;
     }
 }
@@ -0,0 +1,111 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import java.time.Duration;
+
+/**
+ * Per account token buckets held in a fixed size, lock-striped table of
+ * primitives. Each bucket is a single long, using the generic cell rate
+ * algorithm: the time at which the bucket would next be full. An account
+ * whose bucket is full again is idle and its slot can be reused without
+ * changing its limit, so the table never grows however many accounts are
+ * seen. If every slot an account could use is busy, the one closest to full
+ * is evicted, which at worst lets that account burst early.
+ */
+public class AccountRateLimiter {
+
+    static final int MAX_PROBES = 8;
+    private static final int STRIPES = 64;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int slotsPerStripe;
+
+    /**
+     * @param permitsPerSecond the sustained rate allowed for each account
+     * @param burst            how many purchases an idle account may make at once
+     * @param capacity         the most accounts tracked at the same time
+     */
+    public AccountRateLimiter(double permitsPerSecond, int burst, int capacity) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        if (capacity < STRIPES * MAX_PROBES) {
+            throw new IllegalArgumentException("Capacity must be at least " + STRIPES * MAX_PROBES);
+        }
+        this.emissionIntervalNanos = (long) (Duration.ofSeconds(1).toNanos() / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.slotsPerStripe = Integer.highestOneBit(capacity / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+    }
+
+    public int capacity() {
+        return slotsPerStripe * STRIPES;
+    }
+
+    /**
+     * Takes a permit for the account, returning false if it has none left.
+     * Account IDs of zero or less are never limited, as they fail validation.
+     */
+    public boolean tryAcquire(long accountId, long nowNanos) {
+        if (accountId <= 0) {
+            return true;
+        }
+        long hash = mix(accountId);
+        return stripes[(int) (hash >>> 58) & (STRIPES - 1)].tryAcquire(accountId,
+                (int) hash & (slotsPerStripe - 1), nowNanos);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private final class Stripe {
+
+        private static final long EMPTY = 0;
+
+        private final long[] accountIds;
+        private final long[] fullAtNanos;
+        private final int mask;
+
+        Stripe(int slots) {
+            this.accountIds = new long[slots];
+            this.fullAtNanos = new long[slots];
+            this.mask = slots - 1;
+        }
+
+        synchronized boolean tryAcquire(long accountId, int homeSlot, long nowNanos) {
+            int idleSlot = -1;
+            int nearestFullSlot = homeSlot;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (homeSlot + probe) & mask;
+                if (accountIds[slot] == accountId) {
+                    return acquire(slot, nowNanos);
+                }
+                if (idleSlot < 0 && (accountIds[slot] == EMPTY || fullAtNanos[slot] - nowNanos <= 0)) {
+                    idleSlot = slot;
+                } else if (fullAtNanos[slot] - fullAtNanos[nearestFullSlot] < 0) {
+                    nearestFullSlot = slot;
+                }
+            }
+            int slot = idleSlot >= 0 ? idleSlot : nearestFullSlot;
+            accountIds[slot] = accountId;
+            fullAtNanos[slot] = nowNanos;
+            return acquire(slot, nowNanos);
+        }
+
+        private boolean acquire(int slot, long nowNanos) {
+            long fullAt = fullAtNanos[slot] - nowNanos < 0 ? nowNanos : fullAtNanos[slot];
+            if (fullAt - nowNanos > burstToleranceNanos) {
+                return false;
+            }
+            fullAtNanos[slot] = fullAt + emissionIntervalNanos;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException.Reason;
+
+/**
+ * Turns purchases away before they are validated when the account is over its
+ * rate limit, or when the service already has as many purchases in progress
+ * as it is allowed. Rejections are immediate; nothing waits for a permit.
+ */
+public class AdmissionControlledTicketService implements TicketService {
+
+    private final TicketService ticketService;
+    private final AccountRateLimiter accountRateLimiter;
+    private final Semaphore inFlightPermits;
+    private final LongSupplier nanoClock;
+
+    public AdmissionControlledTicketService(TicketService ticketService, AccountRateLimiter accountRateLimiter,
+            int maxPurchasesInFlight) {
+        this(ticketService, accountRateLimiter, maxPurchasesInFlight, System::nanoTime);
+    }
+
+    AdmissionControlledTicketService(TicketService ticketService, AccountRateLimiter accountRateLimiter,
+            int maxPurchasesInFlight, LongSupplier nanoClock) {
+        this.ticketService = ticketService;
+        this.accountRateLimiter = accountRateLimiter;
+        this.inFlightPermits = new Semaphore(maxPurchasesInFlight);
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public void purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest)
+            throws InvalidPurchaseException, PurchaseRejectedException {
+        if (ticketPurchaseRequest != null
+                && !accountRateLimiter.tryAcquire(ticketPurchaseRequest.accountId(), nanoClock.getAsLong())) {
+            throw new PurchaseRejectedException(Reason.RATE_LIMITED);
+        }
+        if (!inFlightPermits.tryAcquire()) {
+            throw new PurchaseRejectedException(Reason.OVERLOADED);
+        }
+        try {
+            ticketService.purchaseTickets(ticketPurchaseRequest);
+        } finally {
+            inFlightPermits.release();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Compact binary encoding of a TicketPurchaseRequest:
+ *
+ * <pre>
+ * accountId      8 bytes, big-endian
+ * flags          1 byte: bit n set if tickets of the Type with ordinal n
+ *                follow, bit 7 set if a discount code follows
+ * tickets        a zig-zag varint per Type present, in ordinal order
+ * discount code  a varint byte length, then the code in UTF-8
+ * </pre>
+ *
+ * TicketTypeRequests of the same type are summed, which keeps the outcome of
+ * validation: if any of them asks for zero or fewer tickets, that count is
+ * encoded for its type instead of the sum.
+ */
+public final class TicketPurchaseRequestCodec {
+
+    static final int ACCOUNT_ID_LENGTH = Long.BYTES;
+    static final int DISCOUNT_CODE_FLAG = 0x80;
+    static final int TYPE_FLAGS = (1 << Type.values().length) - 1;
+    static final int MAX_VARINT_LENGTH = 10;
+
+    private static final Type[] TYPES = Type.values();
+
+    private TicketPurchaseRequestCodec() {
+    }
+
+    /**
+     * An upper bound on the bytes {@link #encode} writes for the request.
+     */
+    public static int maxEncodedLength(TicketPurchaseRequest ticketPurchaseRequest) {
+        int length = ACCOUNT_ID_LENGTH + 1 + TYPES.length * MAX_VARINT_LENGTH;
+        if (ticketPurchaseRequest.discountCode() != null) {
+            // No UTF-16 char takes more than three bytes in UTF-8
+            length += MAX_VARINT_LENGTH + 3 * ticketPurchaseRequest.discountCode().length();
+        }
+        return length;
+    }
+
+    /**
+     * Writes the request at the buffer's position and moves the position past
+     * it. Throws BufferOverflowException if it does not fit, in which case
+     * part of it may have been written.
+     */
+    public static void encode(TicketPurchaseRequest ticketPurchaseRequest, ByteBuffer buffer) {
+        long[] ticketsByType = new long[TYPES.length];
+        boolean[] nonPositive = new boolean[TYPES.length];
+        int flags = 0;
+        if (ticketPurchaseRequest.ticketTypeRequests() != null) {
+            for (TicketTypeRequest ticketTypeRequest : ticketPurchaseRequest.ticketTypeRequests()) {
+                int typeOrdinal = ticketTypeRequest.type().ordinal();
+                flags |= 1 << typeOrdinal;
+                if (nonPositive[typeOrdinal]) {
+                    continue;
+                }
+                if (ticketTypeRequest.noOfTickets() <= 0) {
+                    nonPositive[typeOrdinal] = true;
+                    ticketsByType[typeOrdinal] = ticketTypeRequest.noOfTickets();
+                } else {
+                    ticketsByType[typeOrdinal] += ticketTypeRequest.noOfTickets();
+                }
+            }
+        }
+        byte[] discountCode = null;
+        if (ticketPurchaseRequest.discountCode() != null) {
+            flags |= DISCOUNT_CODE_FLAG;
+            discountCode = ticketPurchaseRequest.discountCode().getBytes(StandardCharsets.UTF_8);
+        }
+
+        putLong(buffer, ticketPurchaseRequest.accountId());
+        buffer.put((byte) flags);
+        for (int typeOrdinal = 0; typeOrdinal < TYPES.length; typeOrdinal++) {
+            if ((flags & (1 << typeOrdinal)) != 0) {
+                putVarint(buffer, zigZag(ticketsByType[typeOrdinal]));
+            }
+        }
+        if (discountCode != null) {
+            putVarint(buffer, discountCode.length);
+            buffer.put(discountCode);
+        }
+    }
+
+    /**
+     * Reads a request at the buffer's position into a new TicketPurchaseRequest
+     * and moves the position past it. Prefer {@link TicketPurchaseRequestView}
+     * on hot paths.
+     */
+    public static TicketPurchaseRequest decode(ByteBuffer buffer) {
+        TicketPurchaseRequestView view = new TicketPurchaseRequestView().wrap(buffer, buffer.position());
+        buffer.position(buffer.position() + view.encodedLength());
+
+        int typeCount = 0;
+        for (int typeOrdinal = 0; typeOrdinal < TYPES.length; typeOrdinal++) {
+            if (view.hasTickets(typeOrdinal)) {
+                typeCount++;
+            }
+        }
+        TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[typeCount];
+        int next = 0;
+        for (int typeOrdinal = 0; typeOrdinal < TYPES.length; typeOrdinal++) {
+            if (view.hasTickets(typeOrdinal)) {
+                // The view has already bounded the count to the int range
+                ticketTypeRequests[next++] = new TicketTypeRequest(TYPES[typeOrdinal],
+                        (int) view.tickets(typeOrdinal));
+            }
+        }
+        return new TicketPurchaseRequest(view.accountId(), ticketTypeRequests, view.discountCode());
+    }
+
+    static long getLong(ByteBuffer buffer, int index) {
+        long value = buffer.getLong(index);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putLong(ByteBuffer buffer, long value) {
+        buffer.putLong(buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value));
+    }
+
+    static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
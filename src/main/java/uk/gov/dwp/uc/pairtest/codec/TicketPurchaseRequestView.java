@@ -0,0 +1,140 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import static uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestCodec.ACCOUNT_ID_LENGTH;
+import static uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestCodec.DISCOUNT_CODE_FLAG;
+import static uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestCodec.MAX_VARINT_LENGTH;
+import static uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestCodec.TYPE_FLAGS;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * A reusable, read-only view of a request encoded by
+ * {@link TicketPurchaseRequestCodec}, in a heap or direct buffer. Wrapping
+ * reads the fixed fields straight out of the buffer without copying it or
+ * allocating, so one view per thread can serve any number of messages. Only
+ * {@link #discountCode()} allocates. The view is only valid while the buffer
+ * contents are unchanged.
+ */
+public class TicketPurchaseRequestView {
+
+    private final long[] ticketsByType = new long[Type.values().length];
+
+    private ByteBuffer buffer;
+    private long accountId;
+    private int flags;
+    private int discountCodeOffset;
+    private int discountCodeLength;
+    private int encodedLength;
+
+    /**
+     * Points the view at the request encoded at the given offset. The
+     * buffer's position and limit are left as they are.
+     *
+     * @throws IllegalArgumentException if the encoding is malformed or runs
+     *                                  past the buffer's limit
+     */
+    public TicketPurchaseRequestView wrap(ByteBuffer buffer, int offset) {
+        try {
+            this.buffer = buffer;
+            accountId = TicketPurchaseRequestCodec.getLong(buffer, offset);
+            int index = offset + ACCOUNT_ID_LENGTH;
+            flags = buffer.get(index++) & 0xFF;
+            if ((flags & ~(TYPE_FLAGS | DISCOUNT_CODE_FLAG)) != 0) {
+                throw new IllegalArgumentException("Unknown flags " + Integer.toBinaryString(flags));
+            }
+            for (int typeOrdinal = 0; typeOrdinal < ticketsByType.length; typeOrdinal++) {
+                if (hasTickets(typeOrdinal)) {
+                    long varint = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        if (shift == 7 * MAX_VARINT_LENGTH) {
+                            throw new IllegalArgumentException("Varint longer than " + MAX_VARINT_LENGTH + " bytes");
+                        }
+                        b = buffer.get(index++);
+                        varint |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    // Counts too big for an int are over the ticket limit either way, and
+                    // bounding them keeps the tally's totals from wrapping round
+                    long tickets = TicketPurchaseRequestCodec.unZigZag(varint);
+                    ticketsByType[typeOrdinal] = Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, tickets));
+                } else {
+                    ticketsByType[typeOrdinal] = 0;
+                }
+            }
+            discountCodeLength = 0;
+            if (hasDiscountCode()) {
+                long length = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    if (shift > 28) {
+                        throw new IllegalArgumentException("Discount code too long");
+                    }
+                    b = buffer.get(index++);
+                    length |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                if (length > buffer.limit() - index) {
+                    throw new IllegalArgumentException("Discount code runs past the end of the buffer");
+                }
+                discountCodeLength = (int) length;
+            }
+            discountCodeOffset = index;
+            encodedLength = index + discountCodeLength - offset;
+            return this;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Encoded request runs past the end of the buffer", e);
+        }
+    }
+
+    public long accountId() {
+        return accountId;
+    }
+
+    /**
+     * Whether the request had any TicketTypeRequests of the type.
+     */
+    public boolean hasTickets(Type type) {
+        return hasTickets(type.ordinal());
+    }
+
+    public boolean hasTickets(int typeOrdinal) {
+        return (flags & (1 << typeOrdinal)) != 0;
+    }
+
+    /**
+     * The tickets of the type, bounded to the int range.
+     */
+    public long tickets(Type type) {
+        return ticketsByType[type.ordinal()];
+    }
+
+    public long tickets(int typeOrdinal) {
+        return ticketsByType[typeOrdinal];
+    }
+
+    public boolean hasDiscountCode() {
+        return (flags & DISCOUNT_CODE_FLAG) != 0;
+    }
+
+    public String discountCode() {
+        if (!hasDiscountCode()) {
+            return null;
+        }
+        byte[] bytes = new byte[discountCodeLength];
+        buffer.get(discountCodeOffset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Number of bytes the wrapped request takes up in the buffer.
+     */
+    public int encodedLength() {
+        return encodedLength;
+    }
+}
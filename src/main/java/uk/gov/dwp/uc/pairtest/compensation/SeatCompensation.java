@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.compensation;
+
+/**
+ * Undoes the seat reservation of a purchase whose payment failed. Services
+ * given {@link #NONE} leave the seats held.
+ */
+public interface SeatCompensation {
+
+    SeatCompensation NONE = (accountId, totalSeats, heldSinceNanos, onReleased) -> {
+    };
+
+    /**
+     * Arranges for the seats to be released, without waiting for it to
+     * happen. {@code heldSinceNanos} is the {@link System#nanoTime()} at which
+     * they were reserved; {@code onReleased}, if not null, is run once they
+     * have been.
+     */
+    void releaseSeats(long accountId, int totalSeats, long heldSinceNanos, Runnable onReleased);
+
+}
@@ -0,0 +1,181 @@
+package uk.gov.dwp.uc.pairtest.compensation;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetricsListener;
+import uk.gov.dwp.uc.pairtest.seating.SeatReleaseService;
+
+/**
+ * A {@link SeatCompensation} that releases seats on its own thread. The thread
+ * takes every release that is due, up to {@code maxBatchSize} at a time, so a
+ * burst of failed payments is worked through in a few passes. A release that
+ * throws is tried again after an exponential backoff with jitter, up to
+ * {@code maxAttempts} times in all, after which the seats are reported to the
+ * listener as abandoned. A listener or {@code onReleased} callback that
+ * throws is counted and otherwise ignored, so it cannot stop the worker.
+ */
+public class SeatReleaseQueue implements SeatCompensation, Closeable {
+
+    private static final long POLL_MILLIS = 10;
+
+    private final SeatReleaseService seatReleaseService;
+    private final PurchaseMetricsListener purchaseMetricsListener;
+    private final int maxBatchSize;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final int maxAttempts;
+    private final DelayQueue<PendingRelease> queue = new DelayQueue<>();
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder callbackFailures = new LongAdder();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public SeatReleaseQueue(SeatReleaseService seatReleaseService, PurchaseMetricsListener purchaseMetricsListener,
+            int maxBatchSize, long initialBackoffNanos, long maxBackoffNanos, int maxAttempts) {
+        this.seatReleaseService = seatReleaseService;
+        this.purchaseMetricsListener = purchaseMetricsListener;
+        this.maxBatchSize = maxBatchSize;
+        this.initialBackoffNanos = initialBackoffNanos;
+        this.maxBackoffNanos = maxBackoffNanos;
+        this.maxAttempts = maxAttempts;
+        this.worker = new Thread(this::releaseUntilClosed, "seat-release-worker");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void releaseSeats(long accountId, int totalSeats, long heldSinceNanos, Runnable onReleased) {
+        if (totalSeats <= 0) {
+            return;
+        }
+        pending.increment();
+        queue.add(new PendingRelease(accountId, totalSeats, heldSinceNanos, onReleased, 1, System.nanoTime()));
+    }
+
+    /**
+     * Releases that have been queued and are neither done nor abandoned.
+     */
+    public long getPending() {
+        return pending.sum();
+    }
+
+    /**
+     * Listener and {@code onReleased} callbacks that threw.
+     */
+    public long getCallbackFailures() {
+        return callbackFailures.sum();
+    }
+
+    /**
+     * Stops the worker. Releases still waiting for a retry are left undone
+     * and stay counted in {@link #getPending()}.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void releaseUntilClosed() {
+        List<PendingRelease> batch = new ArrayList<>(maxBatchSize);
+        while (!closed) {
+            try {
+                PendingRelease first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            for (PendingRelease pendingRelease : batch) {
+                release(pendingRelease);
+            }
+            batch.clear();
+        }
+    }
+
+    private void release(PendingRelease pendingRelease) {
+        try {
+            seatReleaseService.releaseSeat(pendingRelease.accountId, pendingRelease.totalSeats);
+        } catch (RuntimeException e) {
+            if (pendingRelease.attempt >= maxAttempts) {
+                pending.decrement();
+                runCallback(() -> purchaseMetricsListener.onSeatReleaseAbandoned(pendingRelease.totalSeats));
+            } else {
+                queue.add(pendingRelease.retry(System.nanoTime() + backoff(pendingRelease.attempt)));
+            }
+            return;
+        }
+        pending.decrement();
+        long heldNanos = System.nanoTime() - pendingRelease.heldSinceNanos;
+        runCallback(() -> purchaseMetricsListener.onSeatsReleased(pendingRelease.totalSeats, heldNanos));
+        if (pendingRelease.onReleased != null) {
+            runCallback(pendingRelease.onReleased);
+        }
+    }
+
+    private void runCallback(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            callbackFailures.increment();
+        }
+    }
+
+    /**
+     * Half the exponential backoff for the attempt, plus a random amount up
+     * to the other half, so releases that failed together do not all retry
+     * together.
+     */
+    private long backoff(int attempt) {
+        long backoff = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 30));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static final class PendingRelease implements Delayed {
+
+        private final long accountId;
+        private final int totalSeats;
+        private final long heldSinceNanos;
+        private final Runnable onReleased;
+        private final int attempt;
+        private final long dueNanos;
+
+        PendingRelease(long accountId, int totalSeats, long heldSinceNanos, Runnable onReleased, int attempt,
+                long dueNanos) {
+            this.accountId = accountId;
+            this.totalSeats = totalSeats;
+            this.heldSinceNanos = heldSinceNanos;
+            this.onReleased = onReleased;
+            this.attempt = attempt;
+            this.dueNanos = dueNanos;
+        }
+
+        PendingRelease retry(long dueNanos) {
+            return new PendingRelease(accountId, totalSeats, heldSinceNanos, onReleased, attempt + 1, dueNanos);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((PendingRelease) other).dueNanos);
+        }
+    }
+}
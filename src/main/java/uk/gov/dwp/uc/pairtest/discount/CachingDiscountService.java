@@ -0,0 +1,92 @@
+package uk.gov.dwp.uc.pairtest.discount;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import thirdparty.discount.Discount;
+import thirdparty.discount.DiscountService;
+import thirdparty.discount.exception.InvalidDiscountCodeException;
+
+/**
+ * A bounded cache in front of a remote DiscountService. Entries expire a fixed
+ * time after they are loaded and the least recently used are evicted once
+ * the cache is full. Concurrent misses for the same account and code wait on a
+ * single remote call, and invalid codes are cached as well as valid ones;
+ * each lookup of a cached invalid code throws its own exception, without a
+ * stack trace. Any other failure of the remote call is passed on and not
+ * cached.
+ */
+public class CachingDiscountService implements DiscountService {
+
+    private final LoadingCache<DiscountKey, CachedDiscount> discounts;
+
+    public CachingDiscountService(DiscountService discountService, long maximumSize, Duration timeToLive) {
+        this(discountService, maximumSize, timeToLive, Ticker.systemTicker());
+    }
+
+    CachingDiscountService(DiscountService discountService, long maximumSize, Duration timeToLive,
+            Ticker ticker) {
+        this.discounts = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive.toNanos(), TimeUnit.NANOSECONDS)
+                .ticker(ticker)
+                .build(new CacheLoader<DiscountKey, CachedDiscount>() {
+                    @Override
+                    public CachedDiscount load(DiscountKey key) {
+                        try {
+                            return new CachedDiscount(
+                                    discountService.getDiscountPercentage(key.accountId(), key.discountCode()),
+                                    false, null);
+                        } catch (InvalidDiscountCodeException e) {
+                            return new CachedDiscount(null, true, e.getMessage());
+                        }
+                    }
+                });
+    }
+
+    @Override
+    public Discount getDiscountPercentage(long accountId, String discountCode) throws InvalidDiscountCodeException {
+        CachedDiscount cachedDiscount;
+        try {
+            cachedDiscount = discounts.get(new DiscountKey(accountId, discountCode));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        if (cachedDiscount.invalidDiscountCode()) {
+            throw new CachedInvalidDiscountCodeException(cachedDiscount.invalidDiscountCodeMessage());
+        }
+        return cachedDiscount.discount();
+    }
+
+    private record DiscountKey(long accountId, String discountCode) {
+    }
+
+    private record CachedDiscount(Discount discount, boolean invalidDiscountCode, String invalidDiscountCodeMessage) {
+    }
+
+    /**
+     * Thrown for an invalid code found in the cache, where a stack trace would
+     * only point here.
+     */
+    private static final class CachedInvalidDiscountCodeException extends InvalidDiscountCodeException {
+
+        CachedInvalidDiscountCodeException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
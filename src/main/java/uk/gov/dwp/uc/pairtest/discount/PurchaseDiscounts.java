@@ -0,0 +1,53 @@
+package uk.gov.dwp.uc.pairtest.discount;
+
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.DISCOUNT_CODE_IS_NOT_VALID;
+
+import lombok.AllArgsConstructor;
+import thirdparty.discount.Discount;
+import thirdparty.discount.DiscountService;
+import thirdparty.discount.exception.InvalidDiscountCodeException;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Applies the discount code on a purchase, if it has one, to its total cost.
+ */
+@AllArgsConstructor
+public class PurchaseDiscounts {
+
+    /**
+     * For services without a DiscountService: every discount code is invalid.
+     */
+    public static final PurchaseDiscounts NONE = new PurchaseDiscounts((accountId, discountCode) -> {
+        throw new InvalidDiscountCodeException("Discounts are not available");
+    });
+
+    private final DiscountService discountService;
+
+    public int apply(TicketPurchaseRequest ticketPurchaseRequest, int totalCost) throws InvalidPurchaseException {
+        if (ticketPurchaseRequest.discountCode() == null) {
+            return totalCost;
+        }
+        Discount discount;
+        try {
+            discount = discountService.getDiscountPercentage(ticketPurchaseRequest.accountId(),
+                    ticketPurchaseRequest.discountCode());
+        } catch (InvalidDiscountCodeException e) {
+            throw InvalidPurchaseException.fromMask(DISCOUNT_CODE_IS_NOT_VALID.bit());
+        }
+        // A NaN would survive the clamp below and make the tickets free
+        if (!Double.isFinite(discount.percentage())) {
+            throw InvalidPurchaseException.fromMask(DISCOUNT_CODE_IS_NOT_VALID.bit());
+        }
+        return discountedCost(totalCost, discount);
+    }
+
+    /**
+     * The cost after the discount, rounded to the nearest pound. Finite
+     * percentages outside 0 to 100 are clamped.
+     */
+    static int discountedCost(int totalCost, Discount discount) {
+        double percentage = Math.min(100, Math.max(0, discount.percentage()));
+        return (int) Math.round(totalCost * (100 - percentage) / 100);
+    }
+}
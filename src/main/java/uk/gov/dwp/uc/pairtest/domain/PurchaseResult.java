@@ -0,0 +1,34 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+public record PurchaseResult(TicketPurchaseRequest ticketPurchaseRequest, Status status,
+        Set<ValidationError> validationErrors, RuntimeException failure) {
+
+    public enum Status {
+        ACCEPTED, REJECTED, FAILED
+    }
+
+    public static PurchaseResult accepted(TicketPurchaseRequest ticketPurchaseRequest) {
+        return new PurchaseResult(ticketPurchaseRequest, Status.ACCEPTED, Set.of(), null);
+    }
+
+    public static PurchaseResult rejected(TicketPurchaseRequest ticketPurchaseRequest,
+            int validationErrorMask) {
+        return new PurchaseResult(ticketPurchaseRequest, Status.REJECTED,
+                ValidationError.setOf(validationErrorMask), null);
+    }
+
+    public static PurchaseResult rejected(TicketPurchaseRequest ticketPurchaseRequest,
+            Collection<ValidationError> validationErrors) {
+        return new PurchaseResult(ticketPurchaseRequest, Status.REJECTED, EnumSet.copyOf(validationErrors), null);
+    }
+
+    public static PurchaseResult failed(TicketPurchaseRequest ticketPurchaseRequest, RuntimeException failure) {
+        return new PurchaseResult(ticketPurchaseRequest, Status.FAILED, Set.of(), failure);
+    }
+}
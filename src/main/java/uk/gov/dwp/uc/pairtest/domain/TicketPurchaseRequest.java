@@ -1,4 +1,8 @@
 package uk.gov.dwp.uc.pairtest.domain;
 
-public record TicketPurchaseRequest(long accountId, TicketTypeRequest[] ticketTypeRequests) {
+public record TicketPurchaseRequest(long accountId, TicketTypeRequest[] ticketTypeRequests, String discountCode) {
+
+    public TicketPurchaseRequest(long accountId, TicketTypeRequest[] ticketTypeRequests) {
+        this(accountId, ticketTypeRequests, null);
+    }
 }
@@ -0,0 +1,39 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a copy of every event, for tests.
+ */
+public class InMemoryPurchaseEventSink implements PurchaseEventSink {
+
+    private final List<PurchaseEvent> events = new ArrayList<>();
+
+    @Override
+    public synchronized void accept(PurchaseEvent event) {
+        events.add(event.copy());
+        notifyAll();
+    }
+
+    public synchronized List<PurchaseEvent> getEvents() {
+        return List.copyOf(events);
+    }
+
+    /**
+     * Waits until at least the given number of events have arrived, returning
+     * false if they have not by the timeout.
+     */
+    public synchronized boolean awaitEvents(int count, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (events.size() < count) {
+            long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0) {
+                return false;
+            }
+            wait(remainingMillis);
+        }
+        return true;
+    }
+}
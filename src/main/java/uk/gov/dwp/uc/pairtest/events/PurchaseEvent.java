@@ -0,0 +1,51 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.util.EnumSet;
+
+import lombok.Getter;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+/**
+ * The outcome of one call to purchaseTickets. The events in a
+ * {@link PurchaseEventRing} are allocated once and written over, so a sink
+ * must {@link #copy()} any event it keeps after returning.
+ */
+@Getter
+public class PurchaseEvent {
+
+    private long sequence;
+    private long timestampMillis;
+    private long accountId;
+    private PurchaseOutcome outcome;
+    private int validationErrorMask;
+    private int adultTickets;
+    private int childTickets;
+    private int infantTickets;
+    private int totalSeats;
+    private int totalCost;
+
+    void set(long sequence, long timestampMillis, long accountId, PurchaseOutcome outcome, int validationErrorMask,
+            int adultTickets, int childTickets, int infantTickets, int totalSeats, int totalCost) {
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+        this.accountId = accountId;
+        this.outcome = outcome;
+        this.validationErrorMask = validationErrorMask;
+        this.adultTickets = adultTickets;
+        this.childTickets = childTickets;
+        this.infantTickets = infantTickets;
+        this.totalSeats = totalSeats;
+        this.totalCost = totalCost;
+    }
+
+    public EnumSet<ValidationError> getValidationErrors() {
+        return ValidationError.setOf(validationErrorMask);
+    }
+
+    public PurchaseEvent copy() {
+        PurchaseEvent copy = new PurchaseEvent();
+        copy.set(sequence, timestampMillis, accountId, outcome, validationErrorMask, adultTickets, childTickets,
+                infantTickets, totalSeats, totalCost);
+        return copy;
+    }
+}
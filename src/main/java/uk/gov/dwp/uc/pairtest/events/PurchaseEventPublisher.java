@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+
+/**
+ * Receives the outcome of every purchase, on the purchase thread. Services
+ * given {@link #NOOP} publish nothing.
+ */
+public interface PurchaseEventPublisher {
+
+    PurchaseEventPublisher NOOP = (outcome, accountId, validationErrorMask, tally, totalCost) -> {
+    };
+
+    /**
+     * Must return at once, without blocking or allocating. The tally is only
+     * valid for the duration of the call.
+     */
+    void publish(PurchaseOutcome outcome, long accountId, int validationErrorMask, PurchaseTally tally,
+            int totalCost);
+}
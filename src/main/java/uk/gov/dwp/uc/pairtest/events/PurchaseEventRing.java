@@ -0,0 +1,187 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+
+/**
+ * A {@link PurchaseEventPublisher} in the style of the LMAX Disruptor: a
+ * ring of events allocated up front, which purchase threads claim slots in
+ * with a single compare-and-set and fill in place. A slot is handed to the
+ * drain thread by writing its sequence number to it, and the drain thread
+ * passes events to the sinks in batches of up to {@code maxBatchSize},
+ * freeing their slots after each batch. When the ring is full the event is
+ * dropped and counted rather than making the purchase wait. Closing sets a
+ * flag in the same word that slots are claimed from, so no event can be
+ * claimed once the drain thread may have finished.
+ */
+public class PurchaseEventRing implements PurchaseEventPublisher, AutoCloseable {
+
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final PurchaseEvent[] events;
+    private final AtomicLongArray publishedSequences;
+    private final int mask;
+    private final int maxBatchSize;
+    private final List<PurchaseEventSink> sinks;
+    /**
+     * The next sequence to claim, with {@link #CLOSED} set once closed.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sinkFailures = new LongAdder();
+    private final Thread drainer;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public PurchaseEventRing(int capacity, int maxBatchSize, List<PurchaseEventSink> sinks) {
+        if (capacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        int slots = Integer.highestOneBit(capacity - 1) << 1;
+        slots = capacity == 1 ? 1 : slots;
+        this.events = new PurchaseEvent[slots];
+        this.publishedSequences = new AtomicLongArray(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            events[slot] = new PurchaseEvent();
+            publishedSequences.set(slot, -1);
+        }
+        this.mask = slots - 1;
+        this.maxBatchSize = maxBatchSize;
+        this.sinks = List.copyOf(sinks);
+        this.drainer = new Thread(this::drainUntilClosed, "purchase-event-drain");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    @Override
+    public void publish(PurchaseOutcome outcome, long accountId, int validationErrorMask, PurchaseTally tally,
+            int totalCost) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if ((sequence & CLOSED) != 0 || sequence - drained.get() >= events.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        events[slot].set(sequence, System.currentTimeMillis(), accountId, outcome, validationErrorMask,
+                saturated(tally.getTickets(Type.ADULT)), saturated(tally.getTickets(Type.CHILD)),
+                saturated(tally.getTickets(Type.INFANT)), saturated(tally.getUncheckedTotalSeats()), totalCost);
+        publishedSequences.set(slot, sequence);
+    }
+
+    public int getCapacity() {
+        return events.length;
+    }
+
+    /**
+     * Events accepted into the ring.
+     */
+    public long getPublished() {
+        return claimed.get() & ~CLOSED;
+    }
+
+    /**
+     * Events passed to the sinks, which includes those a sink failed on.
+     */
+    public long getDrained() {
+        return drained.get();
+    }
+
+    /**
+     * Events turned away because the ring was full or closed.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Calls to a sink that threw. A sink that fails on an event still gets
+     * the next one.
+     */
+    public long getSinkFailures() {
+        return sinkFailures.sum();
+    }
+
+    /**
+     * Stops taking events, drains those already published and closes the
+     * sinks.
+     */
+    @Override
+    public void close() {
+        claimed.getAndAccumulate(CLOSED, (sequence, closed) -> sequence | closed);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainUntilClosed() {
+        while (true) {
+            // Nothing is claimed once closed, so every sequence claimed before is drained before stopping
+            long claimedBefore = claimed.get();
+            if (drainBatch() == 0) {
+                if ((claimedBefore & CLOSED) != 0 && drained.get() == (claimedBefore & ~CLOSED)) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+        for (PurchaseEventSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException | RuntimeException e) {
+                sinkFailures.increment();
+            }
+        }
+    }
+
+    private int drainBatch() {
+        long first = drained.get();
+        int count = 0;
+        while (count < maxBatchSize) {
+            long sequence = first + count;
+            int slot = (int) sequence & mask;
+            if (publishedSequences.get(slot) != sequence) {
+                break;
+            }
+            for (PurchaseEventSink sink : sinks) {
+                try {
+                    sink.accept(events[slot]);
+                } catch (IOException | RuntimeException e) {
+                    sinkFailures.increment();
+                }
+            }
+            count++;
+        }
+        if (count > 0) {
+            for (PurchaseEventSink sink : sinks) {
+                try {
+                    sink.endOfBatch();
+                } catch (IOException | RuntimeException e) {
+                    sinkFailures.increment();
+                }
+            }
+            drained.set(first + count);
+        }
+        return count;
+    }
+
+    private static int saturated(long count) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, count));
+    }
+}
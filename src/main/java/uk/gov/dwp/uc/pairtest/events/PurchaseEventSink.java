@@ -0,0 +1,24 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Where a {@link PurchaseEventRing} drains its events to. Every call is made
+ * on the ring's drain thread.
+ */
+public interface PurchaseEventSink extends Closeable {
+
+    void accept(PurchaseEvent event) throws IOException;
+
+    /**
+     * Called after the last event of each batch, for sinks that write in
+     * batches.
+     */
+    default void endOfBatch() throws IOException {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,17 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+/**
+ * How a call to purchaseTickets ended.
+ */
+public enum PurchaseOutcome {
+    /** Seats were reserved and paid for. */
+    PURCHASED,
+    /** The request broke a rule; see the validation error mask. */
+    REJECTED,
+    /** The seat reservation failed, so nothing was charged. */
+    SEATS_NOT_RESERVED,
+    /** The payment failed after seats were reserved. */
+    PAYMENT_FAILED,
+    /** Anything else went wrong before seats were reserved. */
+    FAILED
+}
@@ -0,0 +1,142 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+/**
+ * Writes events as JSON lines to a directory of numbered files, starting a
+ * new file once the current one reaches {@code maxFileBytes} and deleting the
+ * oldest once there are more than {@code maxFiles}. Each batch is written out
+ * at its end, but not forced to disk: the files are for analytics, and a
+ * machine crash may lose the last few batches. A sink opened on a directory
+ * that already has files carries on numbering after them.
+ */
+public class RollingFilePurchaseEventSink implements PurchaseEventSink {
+
+    static final String FILE_PREFIX = "purchase-events-";
+    static final String FILE_SUFFIX = ".jsonl";
+
+    private static final ValidationError[] VALIDATION_ERRORS = ValidationError.values();
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private final StringBuilder line = new StringBuilder(256);
+    private FileChannel file;
+    private long fileIndex;
+    private long fileBytes;
+
+    public RollingFilePurchaseEventSink(Path directory, long maxFileBytes, int maxFiles) throws IOException {
+        if (maxFileBytes < 1 || maxFiles < 1) {
+            throw new IllegalArgumentException("Files must be allowed at least a byte and there must be one");
+        }
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        Files.createDirectories(directory);
+        List<Path> existing = files(directory);
+        openFile(existing.isEmpty() ? 0 : indexOf(existing.get(existing.size() - 1)) + 1);
+    }
+
+    @Override
+    public void accept(PurchaseEvent event) throws IOException {
+        format(event);
+        if (fileBytes > 0 && fileBytes + line.length() > maxFileBytes) {
+            roll();
+        }
+        if (buffer.remaining() < line.length()) {
+            writeBuffer();
+        }
+        // Every character written is ASCII
+        for (int i = 0; i < line.length(); i++) {
+            buffer.put((byte) line.charAt(i));
+        }
+        fileBytes += line.length();
+    }
+
+    @Override
+    public void endOfBatch() throws IOException {
+        writeBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeBuffer();
+        file.close();
+    }
+
+    /**
+     * The event files in the directory, oldest first.
+     */
+    public static List<Path> files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private void format(PurchaseEvent event) {
+        line.setLength(0);
+        line.append("{\"sequence\":").append(event.getSequence())
+                .append(",\"timestamp\":").append(event.getTimestampMillis())
+                .append(",\"accountId\":").append(event.getAccountId())
+                .append(",\"outcome\":\"").append(event.getOutcome().name())
+                .append("\",\"validationErrors\":[");
+        boolean first = true;
+        for (ValidationError validationError : VALIDATION_ERRORS) {
+            if (validationError.isSetIn(event.getValidationErrorMask())) {
+                line.append(first ? "\"" : ",\"").append(validationError.name()).append('"');
+                first = false;
+            }
+        }
+        line.append("],\"adultTickets\":").append(event.getAdultTickets())
+                .append(",\"childTickets\":").append(event.getChildTickets())
+                .append(",\"infantTickets\":").append(event.getInfantTickets())
+                .append(",\"totalSeats\":").append(event.getTotalSeats())
+                .append(",\"totalCost\":").append(event.getTotalCost())
+                .append("}\n");
+    }
+
+    private void roll() throws IOException {
+        writeBuffer();
+        file.close();
+        openFile(fileIndex + 1);
+        List<Path> files = files(directory);
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    private void openFile(long index) throws IOException {
+        fileIndex = index;
+        file = FileChannel.open(directory.resolve(String.format("%s%020d%s", FILE_PREFIX, index, FILE_SUFFIX)),
+                CREATE_NEW, WRITE);
+        fileBytes = 0;
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long indexOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+}
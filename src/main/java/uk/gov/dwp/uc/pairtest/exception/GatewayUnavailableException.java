@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+import lombok.Getter;
+
+/**
+ * A call to a third-party gateway that was not made, or not waited for, to
+ * keep a slow or failing gateway from holding up the service.
+ */
+@Getter
+public class GatewayUnavailableException extends RuntimeException {
+
+    private final String gateway;
+    private final Reason reason;
+
+    public GatewayUnavailableException(String gateway, Reason reason) {
+        super(gateway + ": " + reason.name(), null, false, false);
+        this.gateway = gateway;
+        this.reason = reason;
+    }
+
+    public enum Reason {
+        /** The gateway has been failing and is being given time to recover. */
+        CIRCUIT_OPEN,
+        /** As many calls as the gateway is allowed are already in progress. */
+        BULKHEAD_FULL,
+        /** The gateway did not answer in time. */
+        TIMED_OUT
+    }
+
+}
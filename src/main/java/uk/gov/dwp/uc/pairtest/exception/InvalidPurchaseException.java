@@ -1,6 +1,7 @@
 package uk.gov.dwp.uc.pairtest.exception;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 
 import lombok.Getter;
@@ -11,6 +12,22 @@ import lombok.Setter;
 public class InvalidPurchaseException extends RuntimeException {
     List<ValidationError> validationErrors = new ArrayList<ValidationError>();
 
+    public InvalidPurchaseException() {
+    }
+
+    private InvalidPurchaseException(List<ValidationError> validationErrors) {
+        super(null, null, false, false);
+        this.validationErrors = validationErrors;
+    }
+
+    /**
+     * An exception without a stack trace for the errors in the given mask.
+     * Rejections are routine and the trace would always point at the validator.
+     */
+    public static InvalidPurchaseException fromMask(int validationErrorMask) {
+        return new InvalidPurchaseException(new ArrayList<>(ValidationError.setOf(validationErrorMask)));
+    }
+
     public enum ValidationError {
         TICKETPURCHASEREQUEST_CANNOT_BE_NULL,
         TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY,
@@ -18,7 +35,30 @@ public class InvalidPurchaseException extends RuntimeException {
         NOOFTICKETS_CANNOT_BE_ZERO_OR_NEGATIVE,
         CANNOT_PURCHASE_MORE_THAN_20_TICKETS,
         CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET,
-        CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS
+        CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS,
+        DISCOUNT_CODE_IS_NOT_VALID,
+        ACCOUNT_TICKET_QUOTA_EXCEEDED;
+
+        /**
+         * This error's bit in a validation error mask.
+         */
+        public int bit() {
+            return 1 << ordinal();
+        }
+
+        public boolean isSetIn(int validationErrorMask) {
+            return (validationErrorMask & bit()) != 0;
+        }
+
+        public static EnumSet<ValidationError> setOf(int validationErrorMask) {
+            EnumSet<ValidationError> validationErrors = EnumSet.noneOf(ValidationError.class);
+            for (ValidationError validationError : values()) {
+                if (validationError.isSetIn(validationErrorMask)) {
+                    validationErrors.add(validationError);
+                }
+            }
+            return validationErrors;
+        }
     }
 
 }
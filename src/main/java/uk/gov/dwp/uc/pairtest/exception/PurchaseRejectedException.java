@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+import lombok.Getter;
+
+/**
+ * A purchase turned away before it was looked at, to protect the service
+ * rather than because anything is wrong with the request.
+ */
+@Getter
+public class PurchaseRejectedException extends RuntimeException {
+
+    private final Reason reason;
+
+    public PurchaseRejectedException(Reason reason) {
+        super(reason.name(), null, false, false);
+        this.reason = reason;
+    }
+
+    public enum Reason {
+        /** The account is purchasing faster than it is allowed to. */
+        RATE_LIMITED,
+        /** Too many purchases are already in progress. */
+        OVERLOADED
+    }
+
+}
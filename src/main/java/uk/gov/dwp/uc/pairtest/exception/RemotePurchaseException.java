@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+import lombok.Getter;
+
+/**
+ * A purchase that failed on another node, for a reason that has no exception
+ * of its own on this side. The original exception's class name and message
+ * are kept; its stack trace is not.
+ */
+@Getter
+public class RemotePurchaseException extends RuntimeException {
+
+    private final String remoteExceptionClassName;
+
+    public RemotePurchaseException(String remoteExceptionClassName, String message) {
+        super(remoteExceptionClassName + ": " + message, null, false, false);
+        this.remoteExceptionClassName = remoteExceptionClassName;
+    }
+
+}
@@ -0,0 +1,108 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import java.time.Duration;
+
+/**
+ * A fixed size set of fingerprints, each remembered for a time window. The
+ * table is split into stripes, each with its own lock and its own arrays of
+ * fingerprints and expiry times, so memory is fixed when the window is
+ * created and threads only contend when they hit the same stripe.
+ * <p>
+ * A fingerprint lives in one of the {@value #MAX_PROBES} slots after its home
+ * slot. When they are all live, the one closest to expiry is evicted, so
+ * under sustained overload the effective window shrinks instead of the
+ * table growing.
+ */
+public class FingerprintWindow {
+
+    static final int MAX_PROBES = 16;
+    private static final int STRIPES = 64;
+
+    private final long windowNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int slotsPerStripe;
+
+    public FingerprintWindow(int capacity, Duration window) {
+        if (capacity < STRIPES * MAX_PROBES) {
+            throw new IllegalArgumentException("Capacity must be at least " + STRIPES * MAX_PROBES);
+        }
+        this.windowNanos = window.toNanos();
+        this.slotsPerStripe = Integer.highestOneBit(capacity / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+    }
+
+    public int capacity() {
+        return slotsPerStripe * STRIPES;
+    }
+
+    /**
+     * Records the fingerprint unless it is already live in the window.
+     * Returns false for a duplicate.
+     */
+    public boolean tryClaim(long fingerprint, long nowNanos) {
+        return stripeOf(fingerprint).tryClaim(fingerprint, homeSlot(fingerprint), nowNanos, nowNanos + windowNanos);
+    }
+
+    /**
+     * Forgets the fingerprint, so that the same purchase can be tried again.
+     */
+    public void release(long fingerprint) {
+        stripeOf(fingerprint).release(fingerprint, homeSlot(fingerprint));
+    }
+
+    private Stripe stripeOf(long fingerprint) {
+        return stripes[(int) (fingerprint >>> 58) & (STRIPES - 1)];
+    }
+
+    private int homeSlot(long fingerprint) {
+        return (int) fingerprint & (slotsPerStripe - 1);
+    }
+
+    private static final class Stripe {
+
+        private static final long EMPTY = 0;
+
+        private final long[] fingerprints;
+        private final long[] expiries;
+        private final int mask;
+
+        Stripe(int slots) {
+            this.fingerprints = new long[slots];
+            this.expiries = new long[slots];
+            this.mask = slots - 1;
+        }
+
+        synchronized boolean tryClaim(long fingerprint, int homeSlot, long nowNanos, long expiresAtNanos) {
+            int freeSlot = -1;
+            int oldestSlot = homeSlot;
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (homeSlot + probe) & mask;
+                boolean expired = fingerprints[slot] == EMPTY || expiries[slot] - nowNanos <= 0;
+                if (fingerprints[slot] == fingerprint && !expired) {
+                    return false;
+                }
+                if (expired && freeSlot < 0) {
+                    freeSlot = slot;
+                } else if (expiries[slot] - expiries[oldestSlot] < 0) {
+                    oldestSlot = slot;
+                }
+            }
+            int slot = freeSlot >= 0 ? freeSlot : oldestSlot;
+            fingerprints[slot] = fingerprint;
+            expiries[slot] = expiresAtNanos;
+            return true;
+        }
+
+        synchronized void release(long fingerprint, int homeSlot) {
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int slot = (homeSlot + probe) & mask;
+                if (fingerprints[slot] == fingerprint) {
+                    fingerprints[slot] = EMPTY;
+                    return;
+                }
+            }
+        }
+    }
+}
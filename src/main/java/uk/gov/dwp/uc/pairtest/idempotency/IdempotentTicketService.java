@@ -0,0 +1,114 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+/**
+ * Drops repeats of a purchase seen within the window, so that client retries
+ * after a timeout do not reserve seats or take payment twice. A repeat of a
+ * purchase that has succeeded returns as if it had succeeded itself. A repeat
+ * that arrives while the first attempt is still running waits for it, and
+ * returns or throws as it does. A purchase that fails is forgotten so that it
+ * can be retried.
+ */
+public class IdempotentTicketService implements TicketService {
+
+    private final TicketService ticketService;
+    private final FingerprintWindow fingerprintWindow;
+    private final LongSupplier nanoClock;
+    private final LongAdder duplicates = new LongAdder();
+    private final ConcurrentMap<Long, CompletableFuture<Void>> attemptsInFlight = new ConcurrentHashMap<>();
+
+    public IdempotentTicketService(TicketService ticketService, FingerprintWindow fingerprintWindow) {
+        this(ticketService, fingerprintWindow, System::nanoTime);
+    }
+
+    IdempotentTicketService(TicketService ticketService, FingerprintWindow fingerprintWindow,
+            LongSupplier nanoClock) {
+        this.ticketService = ticketService;
+        this.fingerprintWindow = fingerprintWindow;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * De-duplicates on the purchase itself: the same account buying the same
+     * tickets again within the window is taken to be a retry.
+     */
+    @Override
+    public void purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest) throws InvalidPurchaseException {
+        if (ticketPurchaseRequest == null) {
+            ticketService.purchaseTickets(null);
+            return;
+        }
+        purchaseOnce(PurchaseFingerprint.of(ticketPurchaseRequest), ticketPurchaseRequest);
+    }
+
+    /**
+     * De-duplicates on a key chosen by the client, which lets an account make
+     * the same purchase twice on purpose.
+     */
+    public void purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest, String idempotencyKey)
+            throws InvalidPurchaseException {
+        if (ticketPurchaseRequest == null || idempotencyKey == null) {
+            purchaseTickets(ticketPurchaseRequest);
+            return;
+        }
+        purchaseOnce(PurchaseFingerprint.ofKey(ticketPurchaseRequest.accountId(), idempotencyKey),
+                ticketPurchaseRequest);
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    private void purchaseOnce(long fingerprint, TicketPurchaseRequest ticketPurchaseRequest) {
+        CompletableFuture<Void> attempt = new CompletableFuture<>();
+        CompletableFuture<Void> attemptInFlight = attemptsInFlight.putIfAbsent(fingerprint, attempt);
+        if (attemptInFlight != null) {
+            duplicates.increment();
+            awaitOutcome(attemptInFlight);
+            return;
+        }
+        try {
+            if (!fingerprintWindow.tryClaim(fingerprint, nanoClock.getAsLong())) {
+                // An earlier attempt has already succeeded
+                duplicates.increment();
+                attempt.complete(null);
+                return;
+            }
+            try {
+                ticketService.purchaseTickets(ticketPurchaseRequest);
+            } catch (RuntimeException | Error e) {
+                // Released while still in flight, so a repeat either waits for this failure or tries again
+                fingerprintWindow.release(fingerprint);
+                attempt.completeExceptionally(e);
+                throw e;
+            }
+            attempt.complete(null);
+        } finally {
+            attemptsInFlight.remove(fingerprint, attempt);
+        }
+    }
+
+    private static void awaitOutcome(CompletableFuture<Void> attempt) {
+        try {
+            attempt.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import java.nio.charset.StandardCharsets;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * 64 bit fingerprints of purchases. A request is fingerprinted by its account,
+ * discount code and the number of tickets of each type, so the same purchase
+ * split over TicketTypeRequests in a different way or order has the same
+ * fingerprint. Fingerprints are never 0.
+ */
+public final class PurchaseFingerprint {
+
+    private static final long REQUEST_SEED = 0x9E3779B97F4A7C15L;
+    private static final long KEY_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private PurchaseFingerprint() {
+    }
+
+    public static long of(TicketPurchaseRequest ticketPurchaseRequest) {
+        long[] ticketsByType = new long[Type.values().length];
+        if (ticketPurchaseRequest.ticketTypeRequests() != null) {
+            for (TicketTypeRequest ticketTypeRequest : ticketPurchaseRequest.ticketTypeRequests()) {
+                ticketsByType[ticketTypeRequest.type().ordinal()] += ticketTypeRequest.noOfTickets();
+            }
+        }
+        long hash = mix(REQUEST_SEED ^ ticketPurchaseRequest.accountId());
+        for (long tickets : ticketsByType) {
+            hash = mix(hash ^ tickets);
+        }
+        if (ticketPurchaseRequest.discountCode() != null) {
+            hash = mix(hash ^ hashOf(ticketPurchaseRequest.discountCode()));
+        }
+        return nonZero(hash);
+    }
+
+    /**
+     * The fingerprint of a client supplied idempotency key. Keys are hashed
+     * apart from requests, so a key never matches a request fingerprint
+     * other than by chance.
+     */
+    public static long ofKey(long accountId, String idempotencyKey) {
+        return nonZero(mix(mix(KEY_SEED ^ accountId) ^ hashOf(idempotencyKey)));
+    }
+
+    private static long hashOf(String value) {
+        long hash = 0;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = mix(hash ^ b);
+        }
+        return hash;
+    }
+
+    /**
+     * The MurmurHash3 64 bit finaliser.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long nonZero(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+}
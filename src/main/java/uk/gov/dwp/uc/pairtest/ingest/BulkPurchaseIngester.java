@@ -0,0 +1,302 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult.Status;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+/**
+ * Feeds a file of purchase lines (see {@link PurchaseLineParser} for the
+ * format) through a {@link TicketService}, writing one result line per
+ * purchase line:
+ *
+ * <pre>
+ * inputOffset,ACCEPTED
+ * inputOffset,REJECTED,ERROR|ERROR...
+ * inputOffset,FAILED,ExceptionName
+ * </pre>
+ *
+ * The input is memory-mapped a window at a time and cut into chunks of lines,
+ * which are parsed on the executor while earlier chunks are being purchased,
+ * in file order, on the calling thread. Parsed requests are validated once,
+ * by the service, and the lines it rejects are recorded from its
+ * {@link InvalidPurchaseException}. At most
+ * {@code maxChunksInFlight} chunks are held at once, so memory use does not
+ * grow with the size of the input.
+ * <p>
+ * A checkpoint is written after each chunk and ingest resumes from it when
+ * called again. Purchases from a chunk that was interrupted part way through
+ * are made again on restart, so the service should be idempotent if that
+ * matters.
+ */
+public class BulkPurchaseIngester {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+    private static final int RESULTS_BUFFER_SIZE = 64 << 10;
+    private static final String MALFORMED_LINE = "MALFORMED_LINE";
+
+    private final TicketService ticketService;
+    private final ExecutorService executor;
+    private final int linesPerChunk;
+    private final int maxChunksInFlight;
+    private final int windowSize;
+
+    public BulkPurchaseIngester(TicketService ticketService, ExecutorService executor, int linesPerChunk,
+            int maxChunksInFlight) {
+        this(ticketService, executor, linesPerChunk, maxChunksInFlight, DEFAULT_WINDOW_SIZE);
+    }
+
+    BulkPurchaseIngester(TicketService ticketService, ExecutorService executor, int linesPerChunk,
+            int maxChunksInFlight, int windowSize) {
+        this.ticketService = ticketService;
+        this.executor = executor;
+        this.linesPerChunk = linesPerChunk;
+        this.maxChunksInFlight = maxChunksInFlight;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Ingests the input from the checkpoint onwards, appending to the results
+     * file. The results file is cut back to the length recorded in the
+     * checkpoint first, dropping anything written after it.
+     */
+    public IngestSummary ingest(Path input, Path results, Path checkpoint) throws IOException, InterruptedException {
+        IngestCheckpoint start = IngestCheckpoint.read(checkpoint);
+        try (FileChannel inputChannel = FileChannel.open(input, READ);
+                FileChannel resultsChannel = FileChannel.open(results, CREATE, WRITE)) {
+            if (resultsChannel.size() < start.resultsLength() || inputChannel.size() < start.inputOffset()) {
+                throw new IOException("Checkpoint " + checkpoint + " is ahead of " + input + " or " + results);
+            }
+            resultsChannel.truncate(start.resultsLength());
+            resultsChannel.position(start.resultsLength());
+            return new Run(inputChannel, resultsChannel, checkpoint, start).run();
+        }
+    }
+
+    private final class Run {
+
+        private final FileChannel input;
+        private final FileChannel results;
+        private final Path checkpointPath;
+        private final ByteBuffer resultsBuffer = ByteBuffer.allocate(RESULTS_BUFFER_SIZE);
+        private final StringBuilder resultLine = new StringBuilder();
+        private final ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        private final long inputSize;
+        private IngestCheckpoint checkpoint;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long offset;
+        private long lines;
+        private long accepted;
+        private long rejected;
+        private long failed;
+
+        Run(FileChannel input, FileChannel results, Path checkpointPath, IngestCheckpoint checkpoint)
+                throws IOException {
+            this.input = input;
+            this.results = results;
+            this.checkpointPath = checkpointPath;
+            this.checkpoint = checkpoint;
+            this.inputSize = input.size();
+            this.offset = checkpoint.inputOffset();
+        }
+
+        IngestSummary run() throws IOException, InterruptedException {
+            try {
+                while (true) {
+                    Chunk chunk;
+                    while (pending.size() < maxChunksInFlight && (chunk = nextChunk()) != null) {
+                        pending.add(executor.submit(chunk::parse));
+                    }
+                    Future<Chunk> next = pending.poll();
+                    if (next == null) {
+                        return new IngestSummary(lines, accepted, rejected, failed, checkpoint);
+                    }
+                    purchase(await(next));
+                }
+            } finally {
+                pending.forEach(future -> future.cancel(true));
+            }
+        }
+
+        /**
+         * Cuts the next chunk of lines from the current window, moving the
+         * window on when it has been used up or when the next line does not
+         * fit in what is left of it.
+         */
+        private Chunk nextChunk() throws IOException {
+            while (offset < inputSize) {
+                if (window == null || offset >= windowStart + window.limit()) {
+                    map(offset);
+                }
+                Chunk chunk = new Chunk(window, windowStart, linesPerChunk);
+                int position = (int) (offset - windowStart);
+                boolean lastWindow = windowStart + window.limit() == inputSize;
+                while (chunk.count < linesPerChunk && position < window.limit()) {
+                    int end = indexOfNewline(window, position);
+                    if (end == window.limit() && !lastWindow) {
+                        break;
+                    }
+                    int next = Math.min(end + 1, window.limit());
+                    if (end > position && window.get(end - 1) == '\r') {
+                        end--;
+                    }
+                    if (end > position) {
+                        chunk.add(position, end);
+                    }
+                    position = next;
+                }
+                offset = windowStart + position;
+                chunk.endOffset = offset;
+                if (chunk.count > 0) {
+                    return chunk;
+                }
+                if (position == 0) {
+                    throw new IOException("Line at offset " + offset + " is longer than " + windowSize + " bytes");
+                }
+                if (offset < inputSize) {
+                    map(offset);
+                }
+            }
+            return null;
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = input.map(MapMode.READ_ONLY, position, Math.min(windowSize, inputSize - position));
+        }
+
+        private void purchase(Chunk chunk) throws IOException {
+            for (int i = 0; i < chunk.count; i++) {
+                long lineOffset = chunk.windowStart + chunk.starts[i];
+                lines++;
+                if (chunk.requests[i] == null) {
+                    rejected++;
+                    writeResult(lineOffset, Status.REJECTED).append(MALFORMED_LINE);
+                } else {
+                    purchase(lineOffset, chunk.requests[i]);
+                }
+                endResult();
+            }
+            results.write(resultsBuffer.flip());
+            resultsBuffer.clear();
+            results.force(false);
+            checkpoint = new IngestCheckpoint(chunk.endOffset, results.position());
+            checkpoint.write(checkpointPath);
+        }
+
+        private void purchase(long lineOffset, TicketPurchaseRequest ticketPurchaseRequest) {
+            try {
+                ticketService.purchaseTickets(ticketPurchaseRequest);
+                accepted++;
+                writeResult(lineOffset, Status.ACCEPTED);
+            } catch (InvalidPurchaseException e) {
+                rejected++;
+                List<ValidationError> validationErrors = e.getValidationErrors();
+                appendErrors(writeResult(lineOffset, Status.REJECTED),
+                        validationErrors == null ? List.of() : validationErrors);
+            } catch (RuntimeException e) {
+                failed++;
+                writeResult(lineOffset, Status.FAILED).append(e.getClass().getSimpleName());
+            }
+        }
+
+        private StringBuilder writeResult(long lineOffset, Status status) {
+            resultLine.setLength(0);
+            resultLine.append(lineOffset).append(',').append(status.name());
+            return status == Status.ACCEPTED ? resultLine : resultLine.append(',');
+        }
+
+        private void appendErrors(StringBuilder line, Iterable<ValidationError> validationErrors) {
+            String separator = "";
+            for (ValidationError validationError : validationErrors) {
+                line.append(separator).append(validationError.name());
+                separator = "|";
+            }
+        }
+
+        private void endResult() throws IOException {
+            resultLine.append('\n');
+            if (resultsBuffer.remaining() < resultLine.length()) {
+                results.write(resultsBuffer.flip());
+                resultsBuffer.clear();
+            }
+            for (int i = 0; i < resultLine.length(); i++) {
+                resultsBuffer.put((byte) resultLine.charAt(i));
+            }
+        }
+    }
+
+    private final class Chunk {
+
+        private final ByteBuffer window;
+        private final long windowStart;
+        private final int[] starts;
+        private final int[] ends;
+        private final TicketPurchaseRequest[] requests;
+        private int count;
+        private long endOffset;
+
+        Chunk(ByteBuffer window, long windowStart, int capacity) {
+            this.window = window;
+            this.windowStart = windowStart;
+            this.starts = new int[capacity];
+            this.ends = new int[capacity];
+            this.requests = new TicketPurchaseRequest[capacity];
+        }
+
+        void add(int start, int end) {
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+
+        Chunk parse() {
+            for (int i = 0; i < count; i++) {
+                requests[i] = PurchaseLineParser.parse(window, starts[i], ends[i]);
+            }
+            return this;
+        }
+    }
+
+    private static int indexOfNewline(ByteBuffer buffer, int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return buffer.limit();
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * How far a bulk ingest has got: the offset of the first input line that has
+ * not been processed, and the length of the results file up to and including
+ * the result of the line before it.
+ */
+public record IngestCheckpoint(long inputOffset, long resultsLength) {
+
+    public static final IngestCheckpoint START = new IngestCheckpoint(0, 0);
+
+    /**
+     * Reads a checkpoint written by {@link #write}, or returns {@link #START}
+     * if there is none.
+     */
+    public static IngestCheckpoint read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return START;
+        }
+        String[] fields = Files.readString(path, StandardCharsets.US_ASCII).trim().split(",");
+        if (fields.length != 2) {
+            throw new IOException("Malformed ingest checkpoint " + path);
+        }
+        try {
+            return new IngestCheckpoint(Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed ingest checkpoint " + path, e);
+        }
+    }
+
+    /**
+     * Replaces the checkpoint at the path in a single rename, so a crash leaves
+     * either the old checkpoint or the new one. The new one is on disk before
+     * it is renamed into place.
+     */
+    public void write(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.wrap((inputOffset + "," + resultsLength).getBytes(StandardCharsets.US_ASCII));
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
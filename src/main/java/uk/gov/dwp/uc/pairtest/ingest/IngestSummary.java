@@ -0,0 +1,8 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+/**
+ * What a single call to {@link BulkPurchaseIngester#ingest} did. Lines that
+ * were processed before the checkpoint it started from are not counted.
+ */
+public record IngestSummary(long lines, long accepted, long rejected, long failed, IngestCheckpoint checkpoint) {
+}
@@ -0,0 +1,149 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Parses one purchase line of a bulk upload, straight from the bytes of the
+ * file:
+ *
+ * <pre>
+ * accountId,TYPE=noOfTickets[,TYPE=noOfTickets...][,DISCOUNT=code]
+ * </pre>
+ *
+ * for example {@code 1001,ADULT=2,CHILD=1,DISCOUNT=SCHOOLS}. Lines are ASCII
+ * apart from the discount code, which is UTF-8.
+ */
+final class PurchaseLineParser {
+
+    private static final byte SEPARATOR = ',';
+    private static final byte ASSIGNMENT = '=';
+    private static final byte[][] TYPE_NAMES = typeNames();
+    private static final byte[] DISCOUNT = "DISCOUNT".getBytes(StandardCharsets.US_ASCII);
+    private static final Type[] TYPES = Type.values();
+
+    private PurchaseLineParser() {
+    }
+
+    /**
+     * Parses the line held in {@code [start, end)} of the buffer, without a
+     * line terminator, or returns null if it is not in the format above.
+     * Ticket counts are not validated beyond fitting in an int.
+     */
+    static TicketPurchaseRequest parse(ByteBuffer buffer, int start, int end) {
+        int fieldEnd = indexOf(buffer, SEPARATOR, start, end);
+        if (fieldEnd == start) {
+            return null;
+        }
+        long accountId;
+        try {
+            accountId = parseLong(buffer, start, fieldEnd);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        int fields = 0;
+        for (int i = fieldEnd; i < end; i++) {
+            if (buffer.get(i) == SEPARATOR) {
+                fields++;
+            }
+        }
+        TicketTypeRequest[] ticketTypeRequests = new TicketTypeRequest[fields];
+        int lines = 0;
+        String discountCode = null;
+        for (int fieldStart = fieldEnd + 1; fieldEnd < end; fieldStart = fieldEnd + 1) {
+            fieldEnd = indexOf(buffer, SEPARATOR, fieldStart, end);
+            int assignment = indexOf(buffer, ASSIGNMENT, fieldStart, fieldEnd);
+            if (assignment == fieldEnd) {
+                return null;
+            }
+            if (matches(buffer, fieldStart, assignment, DISCOUNT) && discountCode == null) {
+                byte[] code = new byte[fieldEnd - assignment - 1];
+                buffer.get(assignment + 1, code);
+                discountCode = new String(code, StandardCharsets.UTF_8);
+                continue;
+            }
+            Type type = typeOf(buffer, fieldStart, assignment);
+            if (type == null) {
+                return null;
+            }
+            long noOfTickets;
+            try {
+                noOfTickets = parseLong(buffer, assignment + 1, fieldEnd);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (noOfTickets != (int) noOfTickets) {
+                return null;
+            }
+            ticketTypeRequests[lines++] = new TicketTypeRequest(type, (int) noOfTickets);
+        }
+        if (lines < ticketTypeRequests.length) {
+            TicketTypeRequest[] trimmed = new TicketTypeRequest[lines];
+            System.arraycopy(ticketTypeRequests, 0, trimmed, 0, lines);
+            ticketTypeRequests = trimmed;
+        }
+        return new TicketPurchaseRequest(accountId, ticketTypeRequests, discountCode);
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static long parseLong(ByteBuffer buffer, int start, int end) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 19) {
+            throw new NumberFormatException();
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException();
+            }
+            value = value * 10 + digit;
+            if (value < 0) {
+                throw new NumberFormatException();
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    private static Type typeOf(ByteBuffer buffer, int start, int end) {
+        for (int ordinal = 0; ordinal < TYPE_NAMES.length; ordinal++) {
+            if (matches(buffer, start, end, TYPE_NAMES[ordinal])) {
+                return TYPES[ordinal];
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int start, int end, byte[] name) {
+        if (end - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(start + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[][] typeNames() {
+        byte[][] names = new byte[Type.values().length][];
+        for (Type type : Type.values()) {
+            names[type.ordinal()] = type.name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+}
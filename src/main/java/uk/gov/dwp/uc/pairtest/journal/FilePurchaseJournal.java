@@ -0,0 +1,197 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link PurchaseJournal} kept in a directory of fixed-size segment files.
+ * <p>
+ * Appends are queued for a single writer thread, which takes everything
+ * queued, up to {@code maxBatchSize} records, writes it in one go and forces
+ * it to disk with a single fsync before completing the appends. Under load
+ * many purchases share each fsync; a lone purchase still gets its own.
+ * <p>
+ * Opening a journal cuts any torn record off the end of the newest segment
+ * and carries on from there.
+ */
+public class FilePurchaseJournal implements PurchaseJournal, Closeable {
+
+    private static final long POLL_MILLIS = 10;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingAppend> queue;
+    private final ByteBuffer buffer;
+    private final AtomicLong lastPurchaseId = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile IOException failure;
+    private FileChannel segment;
+    private long segmentIndex;
+    private long segmentLength;
+
+    public FilePurchaseJournal(Path directory, long segmentBytes, int maxBatchSize) throws IOException {
+        if (segmentBytes < PurchaseJournalRecord.ENCODED_LENGTH || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Segments must hold a record and batches at least one");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(maxBatchSize * 4);
+        this.buffer = ByteBuffer.allocateDirect(maxBatchSize * PurchaseJournalRecord.ENCODED_LENGTH);
+        recover();
+        this.writer = new Thread(this::writeUntilClosed, "purchase-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public long nextPurchaseId() {
+        return lastPurchaseId.incrementAndGet();
+    }
+
+    /**
+     * Blocks while the queue is full, so appenders cannot get further ahead of
+     * the disk than a few batches.
+     */
+    @Override
+    public CompletableFuture<Void> append(PurchaseJournalRecord record) {
+        PendingAppend pendingAppend = new PendingAppend(record, new CompletableFuture<>());
+        if (closed) {
+            return failedAppend();
+        }
+        try {
+            queue.put(pendingAppend);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new IllegalStateException("Interrupted appending to the journal"));
+        }
+        if (closed && queue.remove(pendingAppend)) {
+            return failedAppend();
+        }
+        return pendingAppend.written();
+    }
+
+    /**
+     * Writes out everything appended so far and closes the current segment.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+    }
+
+    private void recover() throws IOException {
+        List<Path> segments = PurchaseJournalReader.segments(directory);
+        for (Path existing : segments) {
+            try (FileChannel channel = FileChannel.open(existing, READ)) {
+                PurchaseJournalReader.replay(channel,
+                        record -> lastPurchaseId.accumulateAndGet(record.purchaseId(), Math::max));
+            }
+        }
+        if (segments.isEmpty()) {
+            openSegment(0);
+            return;
+        }
+        Path newest = segments.get(segments.size() - 1);
+        segmentIndex = PurchaseJournalReader.indexOf(newest);
+        segment = FileChannel.open(newest, READ, WRITE);
+        segmentLength = PurchaseJournalReader.replay(segment, record -> {
+        });
+        segment.truncate(segmentLength);
+        segment.position(segmentLength);
+    }
+
+    private void writeUntilClosed() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                PendingAppend first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                write(batch);
+                batch.forEach(pendingAppend -> pendingAppend.written().complete(null));
+            } catch (IOException e) {
+                failure = e;
+                batch.forEach(pendingAppend -> pendingAppend.written()
+                        .completeExceptionally(new UncheckedIOException("Purchase journal write failed", e)));
+            }
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingAppend> batch) throws IOException {
+        for (PendingAppend pendingAppend : batch) {
+            if (segmentLength + buffer.position() + PurchaseJournalRecord.ENCODED_LENGTH > segmentBytes) {
+                flush();
+                segment.force(false);
+                segment.close();
+                openSegment(segmentIndex + 1);
+            }
+            pendingAppend.record().encode(buffer);
+        }
+        flush();
+        segment.force(false);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentLength += segment.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void openSegment(long index) throws IOException {
+        segmentIndex = index;
+        segment = FileChannel.open(PurchaseJournalReader.segment(directory, index), CREATE, WRITE);
+        segmentLength = 0;
+        try (FileChannel directoryChannel = FileChannel.open(directory, READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            // Not every platform can sync a directory; the segment's own fsyncs still apply
+        }
+    }
+
+    private static CompletableFuture<Void> failedAppend() {
+        return CompletableFuture.failedFuture(new IllegalStateException("The purchase journal is closed"));
+    }
+
+    private record PendingAppend(PurchaseJournalRecord record, CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A write-ahead record of how far each purchase got, so that purchases left
+ * half done by a crash can be found with {@link PurchaseJournalReader}.
+ * Services given {@link #NOOP} skip journalling altogether.
+ */
+public interface PurchaseJournal {
+
+    PurchaseJournal NOOP = new PurchaseJournal() {
+
+        @Override
+        public long nextPurchaseId() {
+            return 0;
+        }
+
+        @Override
+        public CompletableFuture<Void> append(PurchaseJournalRecord record) {
+            return CompletableFuture.completedFuture(null);
+        }
+    };
+
+    /**
+     * An id for a new purchase, unique within the journal.
+     */
+    long nextPurchaseId();
+
+    /**
+     * Queues the record and returns a future that completes once it is on
+     * disk. Records appended by one thread are written in the order they were
+     * appended.
+     */
+    CompletableFuture<Void> append(PurchaseJournalRecord record);
+
+    /**
+     * Appends the record and waits until it is on disk, rethrowing the
+     * failure if it could not be written.
+     */
+    default void appendAndWait(PurchaseJournalRecord record) {
+        try {
+            append(record).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads back the segments written by {@link FilePurchaseJournal}. A segment is
+ * read up to its first torn or partly written record, which is where a crash
+ * would have left it.
+ */
+public final class PurchaseJournalReader {
+
+    static final String SEGMENT_PREFIX = "purchases-";
+    static final String SEGMENT_SUFFIX = ".journal";
+    private static final int RECORDS_PER_READ = 1024;
+
+    private PurchaseJournalReader() {
+    }
+
+    /**
+     * Passes every record in the journal to the consumer, in the order they
+     * were written.
+     */
+    public static void replay(Path directory, Consumer<PurchaseJournalRecord> consumer) throws IOException {
+        for (Path segment : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                replay(channel, consumer);
+            }
+        }
+    }
+
+    /**
+     * The latest record of every purchase that did not reach a settled stage,
+     * in purchase id order. These are the purchases that may have seats held
+     * or payment taken without the other.
+     */
+    public static List<PurchaseJournalRecord> unsettledPurchases(Path directory) throws IOException {
+        Map<Long, PurchaseJournalRecord> latest = new HashMap<>();
+        replay(directory, record -> latest.put(record.purchaseId(), record));
+        List<PurchaseJournalRecord> unsettled = new ArrayList<>();
+        for (PurchaseJournalRecord record : latest.values()) {
+            if (!record.stage().isSettled()) {
+                unsettled.add(record);
+            }
+        }
+        unsettled.sort(Comparator.comparingLong(PurchaseJournalRecord::purchaseId));
+        return unsettled;
+    }
+
+    /**
+     * Reads the segment from the start and returns the length of its intact
+     * prefix.
+     */
+    static long replay(FileChannel channel, Consumer<PurchaseJournalRecord> consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORDS_PER_READ * PurchaseJournalRecord.ENCODED_LENGTH);
+        long length = 0;
+        channel.position(0);
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            while (buffer.remaining() >= PurchaseJournalRecord.ENCODED_LENGTH) {
+                PurchaseJournalRecord record = PurchaseJournalRecord.decode(buffer);
+                if (record == null) {
+                    return length;
+                }
+                consumer.accept(record);
+                length += PurchaseJournalRecord.ENCODED_LENGTH;
+            }
+            buffer.compact();
+        }
+        return length;
+    }
+
+    /**
+     * The journal's segment files, oldest first.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    static Path segment(Path directory, long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,115 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+
+/**
+ * One step of a purchase as written to the journal. A purchase is written
+ * once when it starts and again at each stage it reaches; the latest record
+ * for a purchase id says how far it got.
+ */
+public record PurchaseJournalRecord(long purchaseId, long accountId, int adultTickets, int childTickets,
+        int infantTickets, int totalSeats, int totalCost, Stage stage) {
+
+    /**
+     * Bytes taken by an encoded record: a CRC32C of the fields, then the
+     * fields themselves.
+     */
+    static final int ENCODED_LENGTH = Integer.BYTES + 2 * Long.BYTES + 5 * Integer.BYTES + 1;
+
+    private static final Stage[] STAGES = Stage.values();
+
+    public enum Stage {
+        /** Written, and waited for, before seats are reserved. */
+        STARTED(false),
+        /** Seats are held and payment has not been taken yet. */
+        SEATS_RESERVED(false),
+        /** Seats are held and payment has been taken. */
+        COMPLETED(true),
+        /** Seat reservation failed, so nothing was held. */
+        SEATS_NOT_RESERVED(true),
+        /** Seats are held but payment failed. */
+        PAYMENT_FAILED(false),
+        /** Payment failed and the seats have since been released. */
+        SEATS_RELEASED(true);
+
+        private final boolean settled;
+
+        Stage(boolean settled) {
+            this.settled = settled;
+        }
+
+        /**
+         * Whether a purchase that got no further than this stage needs
+         * nothing more done to it.
+         */
+        public boolean isSettled() {
+            return settled;
+        }
+    }
+
+    /**
+     * The first record of a purchase, taken from its tally.
+     */
+    public static PurchaseJournalRecord started(long purchaseId, long accountId, PurchaseTally tally, int totalCost) {
+        return new PurchaseJournalRecord(purchaseId, accountId, Math.toIntExact(tally.getTickets(Type.ADULT)),
+                Math.toIntExact(tally.getTickets(Type.CHILD)), Math.toIntExact(tally.getTickets(Type.INFANT)),
+                tally.getTotalSeats(), totalCost, Stage.STARTED);
+    }
+
+    /**
+     * The same record with a different total cost, such as after a discount.
+     */
+    public PurchaseJournalRecord withTotalCost(int totalCost) {
+        return new PurchaseJournalRecord(purchaseId, accountId, adultTickets, childTickets, infantTickets,
+                totalSeats, totalCost, stage);
+    }
+
+    /**
+     * The same purchase at a later stage.
+     */
+    public PurchaseJournalRecord withStage(Stage stage) {
+        return new PurchaseJournalRecord(purchaseId, accountId, adultTickets, childTickets, infantTickets,
+                totalSeats, totalCost, stage);
+    }
+
+    void encode(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putLong(purchaseId)
+                .putLong(accountId)
+                .putInt(adultTickets)
+                .putInt(childTickets)
+                .putInt(infantTickets)
+                .putInt(totalSeats)
+                .putInt(totalCost)
+                .put((byte) stage.ordinal());
+        buffer.putInt(start, checksum(buffer, start + Integer.BYTES));
+    }
+
+    /**
+     * Reads the record at the buffer's position, or returns null if it was
+     * torn or never completely written.
+     */
+    static PurchaseJournalRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        int fields = start + Integer.BYTES;
+        int stage = buffer.get(start + ENCODED_LENGTH - 1);
+        if (buffer.getInt(start) != checksum(buffer, fields) || stage < 0 || stage >= STAGES.length) {
+            return null;
+        }
+        buffer.position(start + ENCODED_LENGTH);
+        return new PurchaseJournalRecord(buffer.getLong(fields), buffer.getLong(fields + 8),
+                buffer.getInt(fields + 16), buffer.getInt(fields + 20), buffer.getInt(fields + 24),
+                buffer.getInt(fields + 28), buffer.getInt(fields + 32), STAGES[stage]);
+    }
+
+    private static int checksum(ByteBuffer buffer, int fields) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(fields + ENCODED_LENGTH - Integer.BYTES).position(fields));
+        return (int) crc.getValue();
+    }
+}
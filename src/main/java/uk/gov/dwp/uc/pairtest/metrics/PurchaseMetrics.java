@@ -0,0 +1,102 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+/**
+ * Keeps purchase measurements in memory: a latency histogram per stage and
+ * counters per validation error and ticket type, all safe to update from any
+ * number of threads without locking.
+ */
+public class PurchaseMetrics implements PurchaseMetricsListener {
+
+    private static final ValidationError[] VALIDATION_ERRORS = ValidationError.values();
+
+    private final LatencyHistogram[] stageLatencies = new LatencyHistogram[PurchaseStage.values().length];
+    private final LongAdder[] validationErrorCounts = new LongAdder[VALIDATION_ERRORS.length];
+    private final LongAdder[] ticketsSold = new LongAdder[Type.values().length];
+    private final LongAdder validRequests = new LongAdder();
+    private final LatencyHistogram unpaidSeatHolds = new LatencyHistogram();
+    private final LongAdder seatsReleased = new LongAdder();
+    private final LongAdder seatsAbandoned = new LongAdder();
+
+    public PurchaseMetrics() {
+        for (int i = 0; i < stageLatencies.length; i++) {
+            stageLatencies[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < validationErrorCounts.length; i++) {
+            validationErrorCounts[i] = new LongAdder();
+        }
+        for (int i = 0; i < ticketsSold.length; i++) {
+            ticketsSold[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onStageCompleted(PurchaseStage stage, long elapsedNanos) {
+        stageLatencies[stage.ordinal()].record(elapsedNanos);
+    }
+
+    @Override
+    public void onValidated(int validationErrorMask) {
+        if (validationErrorMask == 0) {
+            validRequests.increment();
+            return;
+        }
+        for (ValidationError validationError : VALIDATION_ERRORS) {
+            if (validationError.isSetIn(validationErrorMask)) {
+                validationErrorCounts[validationError.ordinal()].increment();
+            }
+        }
+    }
+
+    @Override
+    public void onTicketsSold(Type type, long tickets) {
+        ticketsSold[type.ordinal()].add(tickets);
+    }
+
+    @Override
+    public void onSeatsReleased(int seats, long heldNanos) {
+        unpaidSeatHolds.record(heldNanos);
+        seatsReleased.add(seats);
+    }
+
+    @Override
+    public void onSeatReleaseAbandoned(int seats) {
+        seatsAbandoned.add(seats);
+    }
+
+    public LatencyHistogram getStageLatency(PurchaseStage stage) {
+        return stageLatencies[stage.ordinal()];
+    }
+
+    public long getValidRequests() {
+        return validRequests.sum();
+    }
+
+    public long getValidationErrorCount(ValidationError validationError) {
+        return validationErrorCounts[validationError.ordinal()].sum();
+    }
+
+    public long getTicketsSold(Type type) {
+        return ticketsSold[type.ordinal()].sum();
+    }
+
+    /**
+     * How long seats stayed held for purchases whose payment failed, from
+     * being reserved to being released.
+     */
+    public LatencyHistogram getUnpaidSeatHolds() {
+        return unpaidSeatHolds;
+    }
+
+    public long getSeatsReleased() {
+        return seatsReleased.sum();
+    }
+
+    public long getSeatsAbandoned() {
+        return seatsAbandoned.sum();
+    }
+}
@@ -0,0 +1,49 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+/**
+ * Receives measurements from the purchase path. Services given {@link #NOOP}
+ * skip taking the measurements altogether, so metrics cost nothing when
+ * they are switched off.
+ */
+public interface PurchaseMetricsListener {
+
+    PurchaseMetricsListener NOOP = new PurchaseMetricsListener() {
+    };
+
+    /**
+     * Called with how long a stage took, whether or not it succeeded.
+     */
+    default void onStageCompleted(PurchaseStage stage, long elapsedNanos) {
+    }
+
+    /**
+     * Called for every request checked, with its mask of
+     * {@link ValidationError#bit()}s.
+     */
+    default void onValidated(int validationErrorMask) {
+    }
+
+    /**
+     * Called for each ticket type once a purchase has been paid for.
+     */
+    default void onTicketsSold(Type type, long tickets) {
+    }
+
+    /**
+     * Called when seats held for a purchase whose payment failed have been
+     * given back, with how long they were held.
+     */
+    default void onSeatsReleased(int seats, long heldNanos) {
+    }
+
+    /**
+     * Called when seats held for a purchase whose payment failed could not be
+     * given back, after every retry.
+     */
+    default void onSeatReleaseAbandoned(int seats) {
+    }
+
+}
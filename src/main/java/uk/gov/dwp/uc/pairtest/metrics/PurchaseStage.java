@@ -0,0 +1,5 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+public enum PurchaseStage {
+    VALIDATE, RESERVE_SEATS, MAKE_PAYMENT
+}
@@ -0,0 +1,40 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The hour of the day in a time zone, worked out once per hour rather than on
+ * every call. Between hour boundaries a call is a clock read and two
+ * comparisons.
+ */
+final class HourOfDayClock {
+
+    private final ZoneId zone;
+    private final LongSupplier millisClock;
+    private volatile Hour hour = new Hour(0, 0, 0);
+
+    HourOfDayClock(ZoneId zone, LongSupplier millisClock) {
+        this.zone = zone;
+        this.millisClock = millisClock;
+    }
+
+    int hourOfDay() {
+        long now = millisClock.getAsLong();
+        Hour current = hour;
+        if (now >= current.fromMillis && now < current.untilMillis) {
+            return current.hourOfDay;
+        }
+        ZonedDateTime start = Instant.ofEpochMilli(now).atZone(zone).truncatedTo(ChronoUnit.HOURS);
+        current = new Hour(start.getHour(), start.toInstant().toEpochMilli(),
+                start.plusHours(1).toInstant().toEpochMilli());
+        hour = current;
+        return current.hourOfDay;
+    }
+
+    private record Hour(int hourOfDay, long fromMillis, long untilMillis) {
+    }
+}
@@ -0,0 +1,176 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.LongSupplier;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Prices and purchase limits compiled from configuration into a table of
+ * {@link TicketPriceTable}s, one per hour of the day. Nothing about the rules
+ * changes once they are built; new configuration means new PricingRules.
+ * <p>
+ * The configuration is a properties file:
+ *
+ * <pre>
+ * price.ADULT=20
+ * price.CHILD=10
+ * price.INFANT=0
+ * maxTicketsPerPurchase=20
+ * # Optional. Hours are start-end, end exclusive, in the given zone
+ * peak.hours=12-14,17-21
+ * peak.price.ADULT=25
+ * peak.price.CHILD=12
+ * zone=Europe/London
+ * </pre>
+ *
+ * A peak price that is not given is the same as the off-peak price. The zone
+ * defaults to the system's.
+ */
+public final class PricingRules implements PricingRulesSource {
+
+    public static final PricingRules STANDARD = new PricingRules(TicketPriceTable.STANDARD, 20);
+
+    static final int HOURS_PER_DAY = 24;
+
+    private final TicketPriceTable[] priceTablesByHour;
+    private final TicketPriceTable offPeakPriceTable;
+    private final boolean peakPricing;
+    private final int maxTicketsPerPurchase;
+    private final HourOfDayClock hourOfDayClock;
+
+    /**
+     * The same prices at every hour.
+     */
+    public PricingRules(TicketPriceTable ticketPriceTable, int maxTicketsPerPurchase) {
+        this(filled(ticketPriceTable), maxTicketsPerPurchase, ZoneId.systemDefault(), System::currentTimeMillis);
+    }
+
+    PricingRules(TicketPriceTable[] priceTablesByHour, int maxTicketsPerPurchase, ZoneId zone,
+            LongSupplier millisClock) {
+        if (maxTicketsPerPurchase < 1) {
+            throw new IllegalArgumentException("maxTicketsPerPurchase must be at least 1");
+        }
+        this.priceTablesByHour = priceTablesByHour.clone();
+        this.offPeakPriceTable = priceTablesByHour[0];
+        boolean peakPricing = false;
+        for (TicketPriceTable priceTable : priceTablesByHour) {
+            peakPricing |= priceTable != offPeakPriceTable;
+        }
+        this.peakPricing = peakPricing;
+        this.maxTicketsPerPurchase = maxTicketsPerPurchase;
+        this.hourOfDayClock = new HourOfDayClock(zone, millisClock);
+    }
+
+    public static PricingRules load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return parse(properties);
+    }
+
+    /**
+     * Compiles the rules from configuration in the format above. Throws
+     * IllegalArgumentException naming the first setting that is missing or
+     * wrong.
+     */
+    public static PricingRules parse(Properties properties) {
+        return parse(properties, System::currentTimeMillis);
+    }
+
+    static PricingRules parse(Properties properties, LongSupplier millisClock) {
+        Map<Type, Integer> prices = new EnumMap<>(Type.class);
+        Map<Type, Integer> peakPrices = new EnumMap<>(Type.class);
+        for (Type type : Type.values()) {
+            int price = intSetting(properties, "price." + type.name(), null);
+            prices.put(type, price);
+            peakPrices.put(type, intSetting(properties, "peak.price." + type.name(), price));
+        }
+        TicketPriceTable offPeak = new TicketPriceTable(prices);
+        TicketPriceTable peak = new TicketPriceTable(peakPrices);
+        TicketPriceTable[] priceTablesByHour = filled(offPeak);
+        String peakHours = properties.getProperty("peak.hours", "").trim();
+        for (String range : peakHours.isEmpty() ? new String[0] : peakHours.split(",")) {
+            String[] bounds = range.trim().split("-");
+            int start = bounds.length == 2 ? hour(bounds[0]) : -1;
+            int end = bounds.length == 2 ? hour(bounds[1]) : -1;
+            if (start < 0 || start == HOURS_PER_DAY || end < 0 || start == end) {
+                throw new IllegalArgumentException("peak.hours must be start-end hour ranges, not " + range);
+            }
+            // A range such as 22-2 runs past midnight
+            int hours = end > start ? end - start : end + HOURS_PER_DAY - start;
+            for (int i = 0; i < hours; i++) {
+                priceTablesByHour[(start + i) % HOURS_PER_DAY] = peak;
+            }
+        }
+        ZoneId zone;
+        try {
+            zone = ZoneId.of(properties.getProperty("zone", ZoneId.systemDefault().getId()).trim());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("zone is not a time zone", e);
+        }
+        return new PricingRules(priceTablesByHour, intSetting(properties, "maxTicketsPerPurchase", null), zone,
+                millisClock);
+    }
+
+    @Override
+    public PricingRules currentRules() {
+        return this;
+    }
+
+    /**
+     * The prices in force now. Without peak pricing this does not read the
+     * clock.
+     */
+    public TicketPriceTable priceTableNow() {
+        return peakPricing ? priceTablesByHour[hourOfDayClock.hourOfDay()] : offPeakPriceTable;
+    }
+
+    public TicketPriceTable priceTableAt(int hourOfDay) {
+        return priceTablesByHour[hourOfDay];
+    }
+
+    public int getMaxTicketsPerPurchase() {
+        return maxTicketsPerPurchase;
+    }
+
+    private static TicketPriceTable[] filled(TicketPriceTable ticketPriceTable) {
+        TicketPriceTable[] priceTablesByHour = new TicketPriceTable[HOURS_PER_DAY];
+        Arrays.fill(priceTablesByHour, ticketPriceTable);
+        return priceTablesByHour;
+    }
+
+    private static int intSetting(Properties properties, String name, Integer defaultValue) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            if (defaultValue == null) {
+                throw new IllegalArgumentException(name + " is required");
+            }
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a whole number, not " + value, e);
+        }
+    }
+
+    private static int hour(String value) {
+        try {
+            int hour = Integer.parseInt(value.trim());
+            return hour >= 0 && hour <= HOURS_PER_DAY ? hour : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
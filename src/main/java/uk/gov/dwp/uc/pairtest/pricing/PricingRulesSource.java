@@ -0,0 +1,11 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+/**
+ * Where the pricing engine and the validator get the rules in force. It is
+ * asked once per purchase, so it must be cheap and must not block.
+ */
+public interface PricingRulesSource {
+
+    PricingRules currentRules();
+
+}
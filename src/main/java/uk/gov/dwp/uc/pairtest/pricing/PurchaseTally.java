@@ -0,0 +1,97 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import lombok.Getter;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Mutable totals for one purchase, filled in by {@link TicketPricingEngine}.
+ * Counters are kept as longs so that oversized requests cannot wrap round and
+ * slip under the ticket limit.
+ */
+public final class PurchaseTally {
+
+    private static final ThreadLocal<PurchaseTally> SCRATCH = ThreadLocal.withInitial(PurchaseTally::new);
+
+    private final long[] ticketsByType = new long[Type.values().length];
+
+    /**
+     * Number of TicketTypeRequests seen, including the one that stopped the
+     * tally when {@link #isNonPositiveTickets()} is set.
+     */
+    @Getter
+    private int lines;
+    @Getter
+    private long totalTickets;
+    private long totalSeats;
+    private long totalCost;
+    @Getter
+    private boolean nonPositiveTickets;
+
+    /**
+     * A tally owned by the calling thread, for hot paths that must not
+     * allocate. It is overwritten by the next tally taken on the same thread.
+     */
+    public static PurchaseTally scratch() {
+        return SCRATCH.get();
+    }
+
+    public long getTickets(Type type) {
+        return ticketsByType[type.ordinal()];
+    }
+
+    public long getAdultTickets() {
+        return ticketsByType[Type.ADULT.ordinal()];
+    }
+
+    public long getInfantTickets() {
+        return ticketsByType[Type.INFANT.ordinal()];
+    }
+
+    /**
+     * Only meaningful once the purchase has passed validation.
+     */
+    public int getTotalSeats() {
+        return Math.toIntExact(totalSeats);
+    }
+
+    /**
+     * The seats as counted, which may not fit in an int before validation.
+     */
+    public long getUncheckedTotalSeats() {
+        return totalSeats;
+    }
+
+    /**
+     * Only meaningful once the purchase has passed validation.
+     */
+    public int getTotalCost() {
+        return Math.toIntExact(totalCost);
+    }
+
+    void reset() {
+        for (int i = 0; i < ticketsByType.length; i++) {
+            ticketsByType[i] = 0;
+        }
+        lines = 0;
+        totalTickets = 0;
+        totalSeats = 0;
+        totalCost = 0;
+        nonPositiveTickets = false;
+    }
+
+    void markNonPositiveTickets() {
+        nonPositiveTickets = true;
+    }
+
+    void add(int typeOrdinal, long noOfTickets, int seatsPerTicket, int pricePerTicket) {
+        lines++;
+        ticketsByType[typeOrdinal] += noOfTickets;
+        totalTickets += noOfTickets;
+        totalSeats += noOfTickets * seatsPerTicket;
+        totalCost += noOfTickets * pricePerTicket;
+    }
+
+    void addLine() {
+        lines++;
+    }
+}
@@ -0,0 +1,77 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing rules read from a file that can be changed while purchases are
+ * going on. A reload compiles the whole file into new {@link PricingRules}
+ * before swapping them in with a single volatile write, so a purchase sees
+ * either the old rules or the new ones and never waits for a reload. A file
+ * that does not compile leaves the old rules in force.
+ */
+public class ReloadablePricingRules implements PricingRulesSource {
+
+    private final Path path;
+    private volatile PricingRules currentRules;
+    private volatile Exception lastReloadFailure;
+    private FileTime lastModified;
+    private long lastSize;
+
+    /**
+     * Loads the rules, throwing if the file cannot be read or compiled.
+     */
+    public ReloadablePricingRules(Path path) throws IOException {
+        this.path = path;
+        reloadIfChanged();
+    }
+
+    @Override
+    public PricingRules currentRules() {
+        return currentRules;
+    }
+
+    /**
+     * Reloads the rules if the file's modification time or size has changed
+     * since they were last loaded, and returns whether it did.
+     */
+    public synchronized boolean reloadIfChanged() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attributes.lastModifiedTime().equals(lastModified) && attributes.size() == lastSize) {
+            return false;
+        }
+        currentRules = PricingRules.load(path);
+        lastModified = attributes.lastModifiedTime();
+        lastSize = attributes.size();
+        return true;
+    }
+
+    /**
+     * Checks the file for changes at a fixed interval. A failed reload is kept
+     * for {@link #getLastReloadFailure()} and the next check tries again.
+     */
+    public ScheduledFuture<?> reloadEvery(ScheduledExecutorService scheduler, Duration interval) {
+        return scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reloadIfChanged();
+                lastReloadFailure = null;
+            } catch (IOException | RuntimeException e) {
+                lastReloadFailure = e;
+            }
+        }, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Why the most recent scheduled reload failed, or null if it did not.
+     */
+    public Exception getLastReloadFailure() {
+        return lastReloadFailure;
+    }
+}
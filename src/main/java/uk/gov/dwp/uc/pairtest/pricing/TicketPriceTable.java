@@ -0,0 +1,34 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import java.util.Map;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Immutable price per ticket, indexed by {@link Type#ordinal()}.
+ */
+public final class TicketPriceTable {
+
+    public static final TicketPriceTable STANDARD = new TicketPriceTable(
+            Map.of(Type.ADULT, 20, Type.CHILD, 10, Type.INFANT, 0));
+
+    private final int[] pricesByType = new int[Type.values().length];
+
+    public TicketPriceTable(Map<Type, Integer> prices) {
+        for (Type type : Type.values()) {
+            Integer price = prices.get(type);
+            if (price == null || price < 0) {
+                throw new IllegalArgumentException("A non-negative price is required for " + type);
+            }
+            pricesByType[type.ordinal()] = price;
+        }
+    }
+
+    public int priceOf(Type type) {
+        return pricesByType[type.ordinal()];
+    }
+
+    int priceOf(int typeOrdinal) {
+        return pricesByType[typeOrdinal];
+    }
+}
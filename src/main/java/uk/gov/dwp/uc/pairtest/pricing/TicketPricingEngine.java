@@ -0,0 +1,84 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import lombok.AllArgsConstructor;
+import uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestView;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+/**
+ * Works out cost, seats and per type ticket counts for a purchase in a single
+ * pass over its TicketTypeRequests, without allocating. Prices come from the
+ * rules in force when the tally starts.
+ */
+@AllArgsConstructor
+public class TicketPricingEngine {
+
+    private static final int[] SEATS_PER_TICKET = seatsPerTicket();
+
+    private final PricingRulesSource pricingRulesSource;
+
+    public TicketPricingEngine() {
+        this(PricingRules.STANDARD);
+    }
+
+    public TicketPricingEngine(TicketPriceTable ticketPriceTable) {
+        this(new PricingRules(ticketPriceTable, PricingRules.STANDARD.getMaxTicketsPerPurchase()));
+    }
+
+    /**
+     * Tallies the request into the given tally. A null request or null
+     * TicketTypeRequests leave the tally empty. The tally stops at the first
+     * TicketTypeRequest with a zero or negative number of tickets and flags it.
+     */
+    public PurchaseTally tally(TicketPurchaseRequest ticketPurchaseRequest, PurchaseTally tally) {
+        tally.reset();
+        if (ticketPurchaseRequest == null || ticketPurchaseRequest.ticketTypeRequests() == null) {
+            return tally;
+        }
+        TicketPriceTable ticketPriceTable = pricingRulesSource.currentRules().priceTableNow();
+        for (TicketTypeRequest ticketTypeRequest : ticketPurchaseRequest.ticketTypeRequests()) {
+            int noOfTickets = ticketTypeRequest.noOfTickets();
+            if (noOfTickets <= 0) {
+                tally.addLine();
+                tally.markNonPositiveTickets();
+                break;
+            }
+            int typeOrdinal = ticketTypeRequest.type().ordinal();
+            tally.add(typeOrdinal, noOfTickets, SEATS_PER_TICKET[typeOrdinal],
+                    ticketPriceTable.priceOf(typeOrdinal));
+        }
+        return tally;
+    }
+
+    /**
+     * Tallies an encoded request in the same way, one entry per ticket type
+     * present in the encoding.
+     */
+    public PurchaseTally tallyEncoded(TicketPurchaseRequestView ticketPurchaseRequestView, PurchaseTally tally) {
+        tally.reset();
+        TicketPriceTable ticketPriceTable = pricingRulesSource.currentRules().priceTableNow();
+        for (int typeOrdinal = 0; typeOrdinal < SEATS_PER_TICKET.length; typeOrdinal++) {
+            if (!ticketPurchaseRequestView.hasTickets(typeOrdinal)) {
+                continue;
+            }
+            long noOfTickets = ticketPurchaseRequestView.tickets(typeOrdinal);
+            if (noOfTickets <= 0) {
+                tally.addLine();
+                tally.markNonPositiveTickets();
+                break;
+            }
+            tally.add(typeOrdinal, noOfTickets, SEATS_PER_TICKET[typeOrdinal], ticketPriceTable.priceOf(typeOrdinal));
+        }
+        return tally;
+    }
+
+    private static int[] seatsPerTicket() {
+        int[] seats = new int[Type.values().length];
+        for (Type type : Type.values()) {
+            // Infants sit on an adult's lap
+            seats[type.ordinal()] = type == Type.INFANT ? 0 : 1;
+        }
+        return seats;
+    }
+}
@@ -0,0 +1,31 @@
+package uk.gov.dwp.uc.pairtest.quota;
+
+/**
+ * A limit on how many tickets each account may buy across all of its
+ * purchases. Tickets are taken when a purchase is validated and given back if
+ * it then fails.
+ */
+public interface TicketQuota {
+
+    /**
+     * For services without a quota: every account may buy any number.
+     */
+    TicketQuota NONE = new TicketQuota() {
+        @Override
+        public boolean tryTake(long accountId, int tickets) {
+            return true;
+        }
+
+        @Override
+        public void giveBack(long accountId, int tickets) {
+        }
+    };
+
+    /**
+     * Takes the tickets from the account's quota, or returns false and takes
+     * nothing if that would put the account over it.
+     */
+    boolean tryTake(long accountId, int tickets);
+
+    void giveBack(long accountId, int tickets);
+}
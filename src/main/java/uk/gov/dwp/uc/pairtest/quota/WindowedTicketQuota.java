@@ -0,0 +1,399 @@
+package uk.gov.dwp.uc.pairtest.quota;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32C;
+
+/**
+ * The tickets each account has taken in the current window, held in a fixed
+ * number of lock-striped open-addressing tables of primitives. A slot is two
+ * longs: the account ID, and the window number and ticket count packed
+ * together, so tens of millions of accounts cost 16 bytes a slot and nothing
+ * is boxed. A count from an earlier window has expired: it reads as nothing
+ * taken, its slot goes to the next new account that probes past it, and it
+ * is dropped when its stripe is next resized. Use a quota per screening to
+ * cap each account's tickets for that screening.
+ * <p>
+ * {@link #snapshot} writes the unexpired counts to a file, and
+ * {@link #restore} reads them back, so counts survive a restart.
+ */
+public class WindowedTicketQuota implements TicketQuota {
+
+    private static final int STRIPES = 64;
+    private static final int MIN_SLOTS_PER_STRIPE = 16;
+    private static final int SNAPSHOT_MAGIC = 0x5154_4B51;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int HEADER_LENGTH = 2 * Integer.BYTES + Long.BYTES;
+    private static final int ENTRY_LENGTH = 2 * Long.BYTES;
+    private static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES;
+    private static final int BUFFER_ENTRIES = 4096;
+
+    private final int maxTicketsPerAccount;
+    private final long windowMillis;
+    private final LongSupplier millisClock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * @param window           how long tickets count against the quota, in
+     *                         fixed windows from the epoch
+     * @param expectedAccounts how many accounts to size the tables for; they
+     *                         grow past it as needed
+     */
+    public WindowedTicketQuota(int maxTicketsPerAccount, Duration window, int expectedAccounts) {
+        this(maxTicketsPerAccount, window, expectedAccounts, System::currentTimeMillis);
+    }
+
+    WindowedTicketQuota(int maxTicketsPerAccount, Duration window, int expectedAccounts, LongSupplier millisClock) {
+        if (maxTicketsPerAccount <= 0) {
+            throw new IllegalArgumentException("The quota must be positive");
+        }
+        if (window.toMillis() <= 0) {
+            throw new IllegalArgumentException("The window must be at least a millisecond");
+        }
+        this.maxTicketsPerAccount = maxTicketsPerAccount;
+        this.windowMillis = window.toMillis();
+        this.millisClock = millisClock;
+        int slotsPerStripe = slotsFor(Math.max(0, expectedAccounts) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+    }
+
+    public int getMaxTicketsPerAccount() {
+        return maxTicketsPerAccount;
+    }
+
+    /**
+     * Account IDs of zero or less are never limited, as they fail validation.
+     */
+    @Override
+    public boolean tryTake(long accountId, int tickets) {
+        if (accountId <= 0 || tickets <= 0) {
+            return true;
+        }
+        if (tickets > maxTicketsPerAccount) {
+            return false;
+        }
+        long hash = mix(accountId);
+        return stripeFor(hash).tryTake(accountId, (int) hash, tickets, maxTicketsPerAccount, currentWindow());
+    }
+
+    /**
+     * Gives back tickets taken in the current window. Tickets from a window
+     * that has passed have expired already.
+     */
+    @Override
+    public void giveBack(long accountId, int tickets) {
+        if (accountId <= 0 || tickets <= 0) {
+            return;
+        }
+        long hash = mix(accountId);
+        stripeFor(hash).giveBack(accountId, (int) hash, tickets, currentWindow());
+    }
+
+    public int ticketsTaken(long accountId) {
+        if (accountId <= 0) {
+            return 0;
+        }
+        long hash = mix(accountId);
+        return stripeFor(hash).ticketsTaken(accountId, (int) hash, currentWindow());
+    }
+
+    /**
+     * The accounts with tickets taken in the current window.
+     */
+    public long accounts() {
+        int window = currentWindow();
+        long accounts = 0;
+        for (Stripe stripe : stripes) {
+            accounts += stripe.accounts(window);
+        }
+        return accounts;
+    }
+
+    /**
+     * Writes the counts for the current window to the path, replacing it in
+     * a single rename so a crash leaves either the old snapshot or the new
+     * one. Each stripe is copied under its lock, so purchases carry on while
+     * the file is written and those made meanwhile may or may not be in it.
+     */
+    public void snapshot(Path path) throws IOException {
+        int window = currentWindow();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_ENTRIES * ENTRY_LENGTH);
+        long entries = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(windowMillis);
+            for (Stripe stripe : stripes) {
+                long[][] copy = stripe.copy();
+                long[] accountIds = copy[0];
+                long[] counts = copy[1];
+                for (int slot = 0; slot < accountIds.length; slot++) {
+                    if (accountIds[slot] == Stripe.EMPTY || windowOf(counts[slot]) != window) {
+                        continue;
+                    }
+                    if (buffer.remaining() < ENTRY_LENGTH) {
+                        write(channel, buffer, crc);
+                    }
+                    buffer.putLong(accountIds[slot]).putLong(counts[slot]);
+                    entries++;
+                }
+            }
+            if (buffer.remaining() < Long.BYTES) {
+                write(channel, buffer, crc);
+            }
+            buffer.putLong(entries);
+            write(channel, buffer, crc);
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the counts in a snapshot, replacing those held for the same
+     * accounts. Counts from a window that has since passed are skipped. The
+     * whole file is checked before anything is loaded.
+     */
+    public void restore(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long entries = (size - HEADER_LENGTH - TRAILER_LENGTH) / ENTRY_LENGTH;
+            if (size < HEADER_LENGTH + TRAILER_LENGTH
+                    || size != HEADER_LENGTH + entries * ENTRY_LENGTH + TRAILER_LENGTH) {
+                throw new IOException("Malformed ticket quota snapshot " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_ENTRIES * ENTRY_LENGTH);
+            CRC32C crc = new CRC32C();
+            long checkedLength = size - Integer.BYTES;
+            long position = 0;
+            while (position < checkedLength) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), checkedLength - position));
+                position += readFully(channel, buffer, position);
+                crc.update(buffer.flip());
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+            readFully(channel, trailer, size - TRAILER_LENGTH);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            readFully(channel, header, 0);
+            if ((int) crc.getValue() != trailer.getInt(Long.BYTES) || trailer.getLong(0) != entries
+                    || header.getInt(0) != SNAPSHOT_MAGIC || header.getInt(Integer.BYTES) != SNAPSHOT_VERSION) {
+                throw new IOException("Corrupt ticket quota snapshot " + path);
+            }
+            if (header.getLong(2 * Integer.BYTES) != windowMillis) {
+                throw new IOException("Ticket quota snapshot " + path + " has a different window");
+            }
+
+            int window = currentWindow();
+            position = HEADER_LENGTH;
+            long end = HEADER_LENGTH + entries * ENTRY_LENGTH;
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                position += readFully(channel, buffer, position);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    long accountId = buffer.getLong();
+                    long count = buffer.getLong();
+                    if (accountId > 0 && windowOf(count) == window) {
+                        long hash = mix(accountId);
+                        stripeFor(hash).put(accountId, (int) hash, count, window);
+                    }
+                }
+            }
+        }
+    }
+
+    private int currentWindow() {
+        return (int) (millisClock.getAsLong() / windowMillis);
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> 58) & (STRIPES - 1)];
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + read);
+            if (n < 0) {
+                throw new IOException("Ticket quota snapshot ended early");
+            }
+            read += n;
+        }
+        return read;
+    }
+
+    /**
+     * A power of two at least twice the accounts, so the table starts no
+     * more than half full.
+     */
+    private static int slotsFor(int accounts) {
+        return Math.max(MIN_SLOTS_PER_STRIPE, Integer.highestOneBit(Math.max(1, accounts) * 2 - 1) << 1);
+    }
+
+    private static long pack(int window, int tickets) {
+        return ((long) window << 32) | (tickets & 0xFFFF_FFFFL);
+    }
+
+    private static int windowOf(long count) {
+        return (int) (count >>> 32);
+    }
+
+    private static int ticketsIn(long count, int window) {
+        return windowOf(count) == window ? (int) count : 0;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * A linear probing table. Slots are never emptied, only taken over by
+     * another account once their count has expired, so a probe can stop at
+     * the first empty slot.
+     */
+    private static final class Stripe {
+
+        static final long EMPTY = 0;
+
+        private long[] accountIds;
+        private long[] counts;
+        private int usedSlots;
+
+        Stripe(int slots) {
+            this.accountIds = new long[slots];
+            this.counts = new long[slots];
+        }
+
+        synchronized boolean tryTake(long accountId, int hash, int tickets, int maxTickets, int window) {
+            int slot = slotOf(accountId, hash, window);
+            int taken = slot >= 0 ? ticketsIn(counts[slot], window) : 0;
+            if ((long) taken + tickets > maxTickets) {
+                return false;
+            }
+            store(slot, accountId, pack(window, taken + tickets), window);
+            return true;
+        }
+
+        synchronized void giveBack(long accountId, int hash, int tickets, int window) {
+            int slot = slotOf(accountId, hash, window);
+            if (slot >= 0 && windowOf(counts[slot]) == window) {
+                counts[slot] = pack(window, Math.max(0, (int) counts[slot] - tickets));
+            }
+        }
+
+        synchronized int ticketsTaken(long accountId, int hash, int window) {
+            int slot = slotOf(accountId, hash, window);
+            return slot >= 0 ? ticketsIn(counts[slot], window) : 0;
+        }
+
+        synchronized void put(long accountId, int hash, long count, int window) {
+            store(slotOf(accountId, hash, window), accountId, count, window);
+        }
+
+        synchronized int accounts(int window) {
+            int accounts = 0;
+            for (int slot = 0; slot < accountIds.length; slot++) {
+                if (accountIds[slot] != EMPTY && ticketsIn(counts[slot], window) > 0) {
+                    accounts++;
+                }
+            }
+            return accounts;
+        }
+
+        synchronized long[][] copy() {
+            return new long[][] { accountIds.clone(), counts.clone() };
+        }
+
+        /**
+         * The account's slot, or if it has none, -1 minus the slot to give
+         * it: the first expired slot on its probe, or else the empty slot
+         * that ends it.
+         */
+        private int slotOf(long accountId, int hash, int window) {
+            int mask = accountIds.length - 1;
+            int expiredSlot = -1;
+            for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+                if (accountIds[slot] == accountId) {
+                    return slot;
+                }
+                if (accountIds[slot] == EMPTY) {
+                    return -1 - (expiredSlot >= 0 ? expiredSlot : slot);
+                }
+                if (expiredSlot < 0 && windowOf(counts[slot]) != window) {
+                    expiredSlot = slot;
+                }
+            }
+        }
+
+        private void store(int slot, long accountId, long count, int window) {
+            if (slot < 0) {
+                slot = -1 - slot;
+                if (accountIds[slot] == EMPTY) {
+                    usedSlots++;
+                }
+                accountIds[slot] = accountId;
+            }
+            counts[slot] = count;
+            if (usedSlots > accountIds.length - (accountIds.length >>> 2)) {
+                resize(window);
+            }
+        }
+
+        /**
+         * Rehashes the unexpired counts into a table at most half full,
+         * which shrinks it if most of its counts have expired.
+         */
+        private void resize(int window) {
+            long[] oldAccountIds = accountIds;
+            long[] oldCounts = counts;
+            int live = 0;
+            for (int slot = 0; slot < oldAccountIds.length; slot++) {
+                if (oldAccountIds[slot] != EMPTY && windowOf(oldCounts[slot]) == window) {
+                    live++;
+                }
+            }
+            int slots = slotsFor(live);
+            accountIds = new long[slots];
+            counts = new long[slots];
+            usedSlots = live;
+            int mask = slots - 1;
+            for (int oldSlot = 0; oldSlot < oldAccountIds.length; oldSlot++) {
+                if (oldAccountIds[oldSlot] == EMPTY || windowOf(oldCounts[oldSlot]) != window) {
+                    continue;
+                }
+                int slot = (int) mix(oldAccountIds[oldSlot]) & mask;
+                while (accountIds[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                accountIds[slot] = oldAccountIds[oldSlot];
+                counts[slot] = oldCounts[oldSlot];
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calls to a gateway once too many of the latest ones have failed or
+ * been slow, so callers fail fast instead of queueing behind it. After
+ * {@link CircuitBreakerConfig#getOpenDuration()} a few trial calls are let
+ * through: if they all succeed quickly the circuit closes, otherwise it opens
+ * again. Nothing here takes a lock: each state the circuit enters is a new
+ * phase holding its own counters, swapped in with a compare-and-set, so only
+ * the thread that makes a transition sets up the state it moves to. Each call
+ * is let through in a phase and its outcome only counts towards that phase,
+ * so a slow call from before a transition cannot settle the trials after it.
+ */
+public class CircuitBreaker {
+
+    private final CircuitBreakerConfig config;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<Phase> phase;
+
+    public CircuitBreaker(CircuitBreakerConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    CircuitBreaker(CircuitBreakerConfig config, LongSupplier nanoClock) {
+        this.config = config;
+        this.slowCallNanos = config.getSlowCallDuration().toNanos();
+        this.openNanos = config.getOpenDuration().toNanos();
+        this.nanoClock = nanoClock;
+        this.phase = new AtomicReference<>(Phase.closed(config.getWindowSize()));
+    }
+
+    public State getState() {
+        return phase.get().state;
+    }
+
+    /**
+     * Returns the phase a call is let through in, or null if it may not be
+     * made now. A call that is let through must report its outcome to
+     * {@link #onResult} with that phase.
+     */
+    public Phase tryAcquirePermission() {
+        Phase current = phase.get();
+        if (current.state == State.OPEN) {
+            if (nanoClock.getAsLong() - current.openedAtNanos < openNanos) {
+                return null;
+            }
+            phase.compareAndSet(current, Phase.halfOpen(config.getHalfOpenCalls()));
+            current = phase.get();
+        }
+        if (current.state == State.HALF_OPEN) {
+            return current.halfOpenPermits.getAndUpdate(permits -> Math.max(0, permits - 1)) > 0 ? current : null;
+        }
+        return current.state == State.CLOSED ? current : null;
+    }
+
+    public void onResult(Phase admittedIn, long durationNanos, boolean failed) {
+        if (admittedIn != phase.get()) {
+            // Calls let through in an earlier phase are not counted in this one
+            return;
+        }
+        boolean slow = durationNanos >= slowCallNanos;
+        if (admittedIn.state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open(admittedIn);
+            } else if (admittedIn.halfOpenSuccesses.incrementAndGet() >= config.getHalfOpenCalls()) {
+                phase.compareAndSet(admittedIn, Phase.closed(config.getWindowSize()));
+            }
+        } else {
+            OutcomeWindow window = admittedIn.window;
+            window.record(failed, slow);
+            int calls = window.calls();
+            if (calls >= config.getMinimumCalls()
+                    && (window.failures() * 100L >= (long) config.getFailureRatePercent() * calls
+                            || window.slowCalls() * 100L >= (long) config.getSlowCallRatePercent() * calls)) {
+                open(admittedIn);
+            }
+        }
+    }
+
+    private void open(Phase from) {
+        phase.compareAndSet(from, Phase.open(nanoClock.getAsLong()));
+    }
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * One spell of the circuit in a state. Callers only hold it between
+     * {@link #tryAcquirePermission()} and {@link #onResult}.
+     */
+    public static final class Phase {
+
+        private final State state;
+        private final long openedAtNanos;
+        private final AtomicInteger halfOpenPermits;
+        private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+        private final OutcomeWindow window;
+
+        private Phase(State state, long openedAtNanos, int halfOpenPermits, OutcomeWindow window) {
+            this.state = state;
+            this.openedAtNanos = openedAtNanos;
+            this.halfOpenPermits = new AtomicInteger(halfOpenPermits);
+            this.window = window;
+        }
+
+        static Phase closed(int windowSize) {
+            // A fresh window, so the failures from before the circuit opened are forgotten
+            return new Phase(State.CLOSED, 0, 0, new OutcomeWindow(windowSize));
+        }
+
+        static Phase open(long openedAtNanos) {
+            return new Phase(State.OPEN, openedAtNanos, 0, null);
+        }
+
+        static Phase halfOpen(int halfOpenCalls) {
+            return new Phase(State.HALF_OPEN, 0, halfOpenCalls, null);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * When a {@link CircuitBreaker} opens and how it tries the gateway again.
+ */
+@Getter
+@Builder
+public class CircuitBreakerConfig {
+
+    /** How many of the latest calls the failure and slow call rates are taken over. */
+    @Builder.Default
+    private final int windowSize = 100;
+
+    /** Calls needed in the window before the rates are acted on. */
+    @Builder.Default
+    private final int minimumCalls = 20;
+
+    /** The percentage of failed calls at which the circuit opens. */
+    @Builder.Default
+    private final int failureRatePercent = 50;
+
+    /** Calls taking at least this long count as slow. */
+    @Builder.Default
+    private final Duration slowCallDuration = Duration.ofSeconds(1);
+
+    /** The percentage of slow calls at which the circuit opens. */
+    @Builder.Default
+    private final int slowCallRatePercent = 80;
+
+    /** How long the circuit stays open before calls are let through to try the gateway. */
+    @Builder.Default
+    private final Duration openDuration = Duration.ofSeconds(10);
+
+    /** Trial calls let through while half open, all of which must succeed to close it. */
+    @Builder.Default
+    private final int halfOpenCalls = 5;
+}
@@ -0,0 +1,147 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException.Reason;
+
+/**
+ * Makes calls to one gateway on threads of its own, behind a circuit breaker,
+ * a bulkhead of at most {@code maxConcurrentCalls} and a per-call timeout. A
+ * call that times out keeps its place in the bulkhead until the gateway
+ * really returns, so a gateway that hangs fills the bulkhead and further
+ * calls are turned away at once rather than piling up threads.
+ */
+public class GatewayGuard implements AutoCloseable {
+
+    private final String gateway;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final long callTimeoutNanos;
+    private final Predicate<Throwable> countsAsFailure;
+    private final ThreadPoolExecutor executor;
+    private final Executor timeouts;
+
+    /**
+     * @param countsAsFailure which exceptions from the gateway count against
+     *                        it; answers such as sold out seats should not
+     */
+    public GatewayGuard(String gateway, CircuitBreaker circuitBreaker, int maxConcurrentCalls, Duration callTimeout,
+            Predicate<Throwable> countsAsFailure) {
+        this.gateway = gateway;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.callTimeoutNanos = callTimeout.toNanos();
+        this.countsAsFailure = countsAsFailure;
+        this.timeouts = CompletableFuture.delayedExecutor(callTimeoutNanos, TimeUnit.NANOSECONDS);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrentCalls, maxConcurrentCalls, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "gateway-" + gateway + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public String getGateway() {
+        return gateway;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Makes the call and waits for it, throwing what the gateway threw or a
+     * {@link GatewayUnavailableException}.
+     */
+    public void call(Runnable gatewayCall) {
+        join(submit(gatewayCall));
+    }
+
+    /**
+     * Starts the call, failing the future with a
+     * {@link GatewayUnavailableException} at once if the circuit is open or
+     * the bulkhead full, or once the call timeout has passed.
+     */
+    public CompletableFuture<Void> submit(Runnable gatewayCall) {
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(new GatewayUnavailableException(gateway, Reason.BULKHEAD_FULL));
+        }
+        CircuitBreaker.Phase admittedIn = circuitBreaker.tryAcquirePermission();
+        if (admittedIn == null) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(new GatewayUnavailableException(gateway, Reason.CIRCUIT_OPEN));
+        }
+        long startNanos = System.nanoTime();
+        CompletableFuture<Void> called = new CompletableFuture<>();
+        // Whichever of the answer and the timeout comes first is recorded,
+        // before the caller can see it
+        AtomicBoolean settled = new AtomicBoolean();
+        try {
+            executor.execute(() -> {
+                try {
+                    gatewayCall.run();
+                    if (settled.compareAndSet(false, true)) {
+                        circuitBreaker.onResult(admittedIn, System.nanoTime() - startNanos, false);
+                        called.complete(null);
+                    }
+                } catch (RuntimeException e) {
+                    if (settled.compareAndSet(false, true)) {
+                        circuitBreaker.onResult(admittedIn, System.nanoTime() - startNanos, countsAsFailure.test(e));
+                        called.completeExceptionally(e);
+                    }
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The call never started: its place in the bulkhead is given back, and reporting it as failed
+            // settles any half-open trial it took
+            bulkhead.release();
+            circuitBreaker.onResult(admittedIn, System.nanoTime() - startNanos, true);
+            return CompletableFuture.failedFuture(e);
+        }
+        timeouts.execute(() -> {
+            if (settled.compareAndSet(false, true)) {
+                circuitBreaker.onResult(admittedIn, System.nanoTime() - startNanos, true);
+                called.completeExceptionally(new GatewayUnavailableException(gateway, Reason.TIMED_OUT));
+            }
+        });
+        return called;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits for a call, rethrowing its exception as it was thrown.
+     */
+    static void join(CompletableFuture<Void> called) {
+        try {
+            called.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
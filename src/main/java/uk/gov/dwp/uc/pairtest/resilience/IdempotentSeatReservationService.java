@@ -0,0 +1,13 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+/**
+ * A seat reservation service that treats a repeated reservation for the same
+ * account as the same reservation, so a call that may already have taken
+ * effect can safely be made again. Only these are hedged and retried by
+ * {@link ResilientSeatReservationService}.
+ */
+public interface IdempotentSeatReservationService extends SeatReservationService {
+
+}
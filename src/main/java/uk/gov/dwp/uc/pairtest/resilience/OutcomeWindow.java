@@ -0,0 +1,61 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The outcomes of the last {@code size} calls, in a lock-free ring buffer.
+ * Each call claims the next slot with a single increment and swaps its
+ * outcome in, adjusting the running counts by the difference from the
+ * outcome it replaced. The counts can be briefly off by the calls being
+ * recorded at that moment, which is close enough to decide when to trip.
+ */
+final class OutcomeWindow {
+
+    private static final int RECORDED = 1;
+    private static final int FAILED = 2;
+    private static final int SLOW = 4;
+
+    private final AtomicIntegerArray slots;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+
+    OutcomeWindow(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        this.slots = new AtomicIntegerArray(size);
+    }
+
+    void record(boolean failed, boolean slow) {
+        int outcome = RECORDED | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+        int slot = (int) (cursor.getAndIncrement() % slots.length());
+        int replaced = slots.getAndSet(slot, outcome);
+        int failureChange = countOf(outcome, FAILED) - countOf(replaced, FAILED);
+        if (failureChange != 0) {
+            failures.addAndGet(failureChange);
+        }
+        int slowChange = countOf(outcome, SLOW) - countOf(replaced, SLOW);
+        if (slowChange != 0) {
+            slowCalls.addAndGet(slowChange);
+        }
+    }
+
+    int calls() {
+        return (int) Math.min(cursor.get(), slots.length());
+    }
+
+    int failures() {
+        return Math.max(0, failures.get());
+    }
+
+    int slowCalls() {
+        return Math.max(0, slowCalls.get());
+    }
+
+    private static int countOf(int outcome, int flag) {
+        return (outcome & flag) == 0 ? 0 : 1;
+    }
+}
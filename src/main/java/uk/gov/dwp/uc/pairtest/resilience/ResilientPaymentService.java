@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+/**
+ * Makes payments through a {@link GatewayGuard}. Payments are not retried or
+ * hedged, as taking one twice would charge the account twice. A payment that
+ * times out may still go through once the gateway answers; the purchase is
+ * treated as failed, and its PAYMENT_FAILED journal record is what to
+ * reconcile against.
+ */
+public class ResilientPaymentService implements TicketPaymentService {
+
+    private final TicketPaymentService ticketPaymentService;
+    private final GatewayGuard gatewayGuard;
+
+    public ResilientPaymentService(TicketPaymentService ticketPaymentService, GatewayGuard gatewayGuard) {
+        this.ticketPaymentService = ticketPaymentService;
+        this.gatewayGuard = gatewayGuard;
+    }
+
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        gatewayGuard.call(() -> ticketPaymentService.makePayment(accountId, totalAmountToPay));
+    }
+}
@@ -0,0 +1,126 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException.Reason;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+
+/**
+ * Reserves seats through a {@link GatewayGuard}, hedging and retrying the
+ * call when the gateway is an {@link IdempotentSeatReservationService}. Any
+ * other gateway is called once per reservation, as a repeat of a call that
+ * timed out or failed after reaching it could reserve the seats twice.
+ * <p>
+ * If a reservation has not been answered after {@code hedgeDelay} a second
+ * one is started alongside it, and whichever succeeds first is used, which
+ * cuts off the tail of a gateway that is only sometimes slow. A hedge delay
+ * as long as the call timeout never hedges. Attempts that fail or time out
+ * are retried after a jittered exponential backoff, up to
+ * {@code maxAttempts} in all. Sold out seats, an open circuit and a full
+ * bulkhead are not retried.
+ */
+public class ResilientSeatReservationService implements SeatReservationService {
+
+    private final SeatReservationService seatReservationService;
+    private final GatewayGuard gatewayGuard;
+    private final long hedgeDelayNanos;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final boolean repeatable;
+
+    public ResilientSeatReservationService(SeatReservationService seatReservationService,
+            GatewayGuard gatewayGuard, Duration hedgeDelay, int maxAttempts, Duration initialBackoff) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("There must be at least one attempt");
+        }
+        this.seatReservationService = seatReservationService;
+        this.gatewayGuard = gatewayGuard;
+        this.hedgeDelayNanos = hedgeDelay.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.repeatable = seatReservationService instanceof IdempotentSeatReservationService;
+    }
+
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        Runnable reservation = () -> seatReservationService.reserveSeat(accountId, totalSeatsToAllocate);
+        if (!repeatable) {
+            gatewayGuard.call(reservation);
+            return;
+        }
+        for (int attempt = 1;; attempt++) {
+            try {
+                GatewayGuard.join(hedged(reservation));
+                return;
+            } catch (SeatsUnavailableException e) {
+                throw e;
+            } catch (GatewayUnavailableException e) {
+                if (e.getReason() != Reason.TIMED_OUT || attempt == maxAttempts) {
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                if (attempt == maxAttempts) {
+                    throw e;
+                }
+            }
+            backOff(attempt);
+        }
+    }
+
+    private CompletableFuture<Void> hedged(Runnable reservation) {
+        CompletableFuture<Void> first = gatewayGuard.submit(reservation);
+        try {
+            first.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+            return first;
+        } catch (TimeoutException e) {
+            CompletableFuture<Void> hedge = gatewayGuard.submit(reservation);
+            // A hedge the guard turns away leaves the first attempt to answer
+            return hedge.isCompletedExceptionally() ? first : firstSuccess(first, hedge);
+        } catch (ExecutionException e) {
+            return first;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return first;
+        }
+    }
+
+    /**
+     * Succeeds when either attempt does, or fails with the later failure
+     * once both have failed.
+     */
+    static CompletableFuture<Void> firstSuccess(CompletableFuture<Void> first, CompletableFuture<Void> second) {
+        CompletableFuture<Void> succeeded = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        first.whenComplete((ignored, failure) -> completeOnSuccess(succeeded, failures, failure));
+        second.whenComplete((ignored, failure) -> completeOnSuccess(succeeded, failures, failure));
+        return succeeded;
+    }
+
+    private static void completeOnSuccess(CompletableFuture<Void> succeeded, AtomicInteger failures,
+            Throwable failure) {
+        if (failure == null) {
+            succeeded.complete(null);
+        } else if (failures.incrementAndGet() == 2) {
+            succeeded.completeExceptionally(failure);
+        }
+    }
+
+    private void backOff(int attempt) {
+        long backoffNanos = initialBackoffNanos << Math.min(attempt - 1, 20);
+        long sleepNanos = backoffNanos / 2 + ThreadLocalRandom.current().nextLong(backoffNanos / 2 + 1);
+        try {
+            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GatewayUnavailableException(gatewayGuard.getGateway(), Reason.TIMED_OUT);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seat maps for any number of screenings. As each screening has its own map,
+ * reservations for different screenings never touch the same memory.
+ */
+public class InMemorySeatInventory {
+
+    private final ConcurrentHashMap<Long, ScreeningSeatReservations> screenings = new ConcurrentHashMap<>();
+
+    public ScreeningSeatMap addScreening(long screeningId, int rows, int seatsPerRow) {
+        ScreeningSeatMap seatMap = new ScreeningSeatMap(screeningId, rows, seatsPerRow);
+        if (screenings.putIfAbsent(screeningId, new ScreeningSeatReservations(seatMap)) != null) {
+            throw new IllegalArgumentException("Screening " + screeningId + " already exists");
+        }
+        return seatMap;
+    }
+
+    public ScreeningSeatMap getScreening(long screeningId) {
+        return forScreening(screeningId).getSeatMap();
+    }
+
+    /**
+     * Reserves and releases seats for the given screening, as a
+     * SeatReservationService and a SeatReleaseService.
+     */
+    public ScreeningSeatReservations forScreening(long screeningId) {
+        ScreeningSeatReservations reservations = screenings.get(screeningId);
+        if (reservations == null) {
+            throw new IllegalArgumentException("Screening " + screeningId + " does not exist");
+        }
+        return reservations;
+    }
+}
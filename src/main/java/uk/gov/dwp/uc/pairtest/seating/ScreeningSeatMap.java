@@ -0,0 +1,158 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import lombok.Getter;
+
+/**
+ * Seat map for one screening, one 64 bit word per row with a bit set for each
+ * taken seat. Seats are taken with a compare-and-set on a single row, so
+ * reservations never lock and only retry when they race for the same row.
+ * Each search starts at a random row to spread concurrent reservations over
+ * the map.
+ */
+public class ScreeningSeatMap {
+
+    public static final int MAX_SEATS_PER_ROW = Long.SIZE;
+
+    @Getter
+    private final long screeningId;
+    @Getter
+    private final int seatsPerRow;
+    private final long fullRow;
+    private final AtomicLongArray rows;
+
+    public ScreeningSeatMap(long screeningId, int rows, int seatsPerRow) {
+        if (rows <= 0 || seatsPerRow <= 0 || seatsPerRow > MAX_SEATS_PER_ROW) {
+            throw new IllegalArgumentException("A screening needs at least one row of 1 to "
+                    + MAX_SEATS_PER_ROW + " seats");
+        }
+        this.screeningId = screeningId;
+        this.seatsPerRow = seatsPerRow;
+        this.fullRow = lowBits(seatsPerRow);
+        this.rows = new AtomicLongArray(rows);
+    }
+
+    public int getRows() {
+        return rows.length();
+    }
+
+    public int availableSeats() {
+        int available = 0;
+        for (int row = 0; row < rows.length(); row++) {
+            available += seatsPerRow - Long.bitCount(rows.get(row));
+        }
+        return available;
+    }
+
+    /**
+     * Takes the given number of seats, side by side in one row where
+     * possible. When no row has enough seats together they are taken from
+     * wherever they are free. Returns null, having taken nothing, when there
+     * are not enough free seats.
+     */
+    public SeatAllocation reserve(int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("At least one seat must be reserved");
+        }
+        int startRow = ThreadLocalRandom.current().nextInt(rows.length());
+        if (seats <= seatsPerRow) {
+            SeatAllocation allocation = reserveContiguous(seats, startRow);
+            if (allocation != null) {
+                return allocation;
+            }
+        }
+        return reserveScattered(seats, startRow);
+    }
+
+    public void release(SeatAllocation allocation) {
+        for (int i = 0; i < allocation.rows().length; i++) {
+            releaseRow(allocation.rows()[i], allocation.seatMasks()[i]);
+        }
+    }
+
+    private SeatAllocation reserveContiguous(int seats, int startRow) {
+        for (int i = 0; i < rows.length(); i++) {
+            int row = (startRow + i) % rows.length();
+            long taken = rows.get(row);
+            long seatMask;
+            while ((seatMask = firstFreeRun(taken, seats)) != 0) {
+                if (rows.compareAndSet(row, taken, taken | seatMask)) {
+                    return new SeatAllocation(new int[] { row }, new long[] { seatMask });
+                }
+                taken = rows.get(row);
+            }
+        }
+        return null;
+    }
+
+    private SeatAllocation reserveScattered(int seats, int startRow) {
+        int[] allocatedRows = new int[rows.length()];
+        long[] allocatedMasks = new long[rows.length()];
+        int allocatedRowCount = 0;
+        int remaining = seats;
+        for (int i = 0; i < rows.length() && remaining > 0; i++) {
+            int row = (startRow + i) % rows.length();
+            long taken;
+            long seatMask;
+            do {
+                taken = rows.get(row);
+                seatMask = lowestFreeSeats(taken, remaining);
+            } while (seatMask != 0 && !rows.compareAndSet(row, taken, taken | seatMask));
+            if (seatMask != 0) {
+                allocatedRows[allocatedRowCount] = row;
+                allocatedMasks[allocatedRowCount++] = seatMask;
+                remaining -= Long.bitCount(seatMask);
+            }
+        }
+        if (remaining > 0) {
+            for (int i = 0; i < allocatedRowCount; i++) {
+                releaseRow(allocatedRows[i], allocatedMasks[i]);
+            }
+            return null;
+        }
+        return new SeatAllocation(Arrays.copyOf(allocatedRows, allocatedRowCount),
+                Arrays.copyOf(allocatedMasks, allocatedRowCount));
+    }
+
+    private void releaseRow(int row, long seatMask) {
+        long taken;
+        do {
+            taken = rows.get(row);
+        } while (!rows.compareAndSet(row, taken, taken & ~seatMask));
+    }
+
+    /**
+     * The mask of the first run of {@code seats} free seats in the row, or 0.
+     * After ANDing the free bits with themselves shifted 1 to seats - 1
+     * places, a bit is left set only where that many free seats start.
+     */
+    private long firstFreeRun(long taken, int seats) {
+        long free = ~taken & fullRow;
+        long runStarts = free;
+        for (int shift = 1; shift < seats && runStarts != 0; shift++) {
+            runStarts &= free >>> shift;
+        }
+        if (runStarts == 0) {
+            return 0;
+        }
+        return lowBits(seats) << Long.numberOfTrailingZeros(runStarts);
+    }
+
+    private long lowestFreeSeats(long taken, int seats) {
+        long free = ~taken & fullRow;
+        long seatMask = 0;
+        while (free != 0 && seats-- > 0) {
+            long seat = Long.lowestOneBit(free);
+            seatMask |= seat;
+            free &= ~seat;
+        }
+        return seatMask;
+    }
+
+    private static long lowBits(int count) {
+        return count == Long.SIZE ? -1L : (1L << count) - 1;
+    }
+}
@@ -0,0 +1,77 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+
+/**
+ * Reserves and releases seats at one screening on behalf of accounts. The
+ * allocations each account holds are kept so that a release gives back the
+ * very seats its reservation took; they never outnumber the seats in the
+ * screening.
+ */
+public class ScreeningSeatReservations implements SeatReservationService, SeatReleaseService {
+
+    private final ScreeningSeatMap seatMap;
+    private final ConcurrentHashMap<Long, ArrayDeque<SeatAllocation>> heldByAccount = new ConcurrentHashMap<>();
+
+    public ScreeningSeatReservations(ScreeningSeatMap seatMap) {
+        this.seatMap = seatMap;
+    }
+
+    public ScreeningSeatMap getSeatMap() {
+        return seatMap;
+    }
+
+    /**
+     * Throws SeatsUnavailableException when the screening cannot seat the
+     * whole reservation.
+     */
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        if (totalSeatsToAllocate <= 0) {
+            return;
+        }
+        SeatAllocation allocation = seatMap.reserve(totalSeatsToAllocate);
+        if (allocation == null) {
+            throw new SeatsUnavailableException("Cannot seat " + totalSeatsToAllocate
+                    + " for account " + accountId + " at screening " + seatMap.getScreeningId());
+        }
+        heldByAccount.compute(accountId, (id, held) -> {
+            ArrayDeque<SeatAllocation> allocations = held == null ? new ArrayDeque<>() : held;
+            allocations.push(allocation);
+            return allocations;
+        });
+    }
+
+    /**
+     * Releases the account's most recent reservation of this many seats.
+     * Throws IllegalStateException if it holds none.
+     */
+    @Override
+    public void releaseSeat(long accountId, int totalSeatsToRelease) {
+        if (totalSeatsToRelease <= 0) {
+            return;
+        }
+        SeatAllocation[] released = new SeatAllocation[1];
+        heldByAccount.computeIfPresent(accountId, (id, held) -> {
+            for (Iterator<SeatAllocation> allocations = held.iterator(); allocations.hasNext();) {
+                SeatAllocation allocation = allocations.next();
+                if (allocation.seatCount() == totalSeatsToRelease) {
+                    allocations.remove();
+                    released[0] = allocation;
+                    break;
+                }
+            }
+            return held.isEmpty() ? null : held;
+        });
+        if (released[0] == null) {
+            throw new IllegalStateException("Account " + accountId + " holds no reservation of "
+                    + totalSeatsToRelease + " seats at screening " + seatMap.getScreeningId());
+        }
+        seatMap.release(released[0]);
+    }
+}
@@ -0,0 +1,21 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+/**
+ * The seats held by one reservation: for each row in {@code rows}, the bits
+ * set in the matching entry of {@code seatMasks} are the seats taken, with
+ * bit 0 as the first seat in the row.
+ */
+public record SeatAllocation(int[] rows, long[] seatMasks) {
+
+    public int seatCount() {
+        int seats = 0;
+        for (long seatMask : seatMasks) {
+            seats += Long.bitCount(seatMask);
+        }
+        return seats;
+    }
+
+    public boolean isContiguous() {
+        return rows.length == 1;
+    }
+}
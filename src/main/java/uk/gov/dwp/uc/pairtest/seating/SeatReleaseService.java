@@ -0,0 +1,16 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+/**
+ * Gives back seats taken by {@link SeatReservationService#reserveSeat}, for
+ * when a purchase cannot be completed after its seats were reserved.
+ */
+public interface SeatReleaseService {
+
+    /**
+     * Releases a reservation of exactly this many seats made for the account.
+     */
+    void releaseSeat(long accountId, int totalSeatsToRelease);
+
+}
@@ -0,0 +1,73 @@
+package uk.gov.dwp.uc.pairtest.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Maps account ids onto a set of nodes so that each node owns a roughly equal
+ * share of accounts, and adding or removing a node only moves the accounts on
+ * its share. Every node is placed at many points on a 64-bit ring, and an
+ * account belongs to the first point at or after its hash.
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * A ring of the given node ids, each placed at {@code virtualNodesPerNode}
+     * points. The same ids always give the same ring.
+     */
+    public ConsistentHashRing(List<String> nodeIds, int virtualNodesPerNode) {
+        if (nodeIds.isEmpty() || virtualNodesPerNode < 1) {
+            throw new IllegalArgumentException("A ring needs at least one node and one point per node");
+        }
+        long[] unsortedPoints = new long[nodeIds.size() * virtualNodesPerNode];
+        for (int node = 0; node < nodeIds.size(); node++) {
+            for (int virtualNode = 0; virtualNode < virtualNodesPerNode; virtualNode++) {
+                unsortedPoints[node * virtualNodesPerNode + virtualNode] = Hashing.murmur3_128()
+                        .hashString(nodeIds.get(node) + '#' + virtualNode, StandardCharsets.UTF_8).asLong();
+            }
+        }
+        int[] order = IntStream.range(0, unsortedPoints.length).boxed()
+                .sorted(Comparator.comparingLong(i -> unsortedPoints[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        this.points = new long[order.length];
+        this.owners = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = unsortedPoints[order[i]];
+            owners[i] = order[i] / virtualNodesPerNode;
+        }
+    }
+
+    /**
+     * The index, in the list the ring was built from, of the node that owns
+     * the account.
+     */
+    public int nodeFor(long accountId) {
+        int point = Arrays.binarySearch(points, mix(accountId));
+        if (point < 0) {
+            point = -point - 1;
+        }
+        return owners[point == points.length ? 0 : point];
+    }
+
+    /**
+     * The MurmurHash3 finalizer, so that consecutive account ids land far
+     * apart on the ring.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
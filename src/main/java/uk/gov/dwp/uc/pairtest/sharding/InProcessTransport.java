@@ -0,0 +1,28 @@
+package uk.gov.dwp.uc.pairtest.sharding;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestCodec;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+
+/**
+ * A stand-in for a network transport to another node. Purchases and replies
+ * are encoded to bytes and back exactly as they would be on the wire, but are
+ * handed to a {@link PurchaseNode} in the same JVM.
+ */
+public class InProcessTransport implements PurchaseTransport {
+
+    private final PurchaseNode node;
+
+    public InProcessTransport(PurchaseNode node) {
+        this.node = node;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(TicketPurchaseRequest ticketPurchaseRequest) {
+        ByteBuffer request = ByteBuffer.allocate(TicketPurchaseRequestCodec.maxEncodedLength(ticketPurchaseRequest));
+        TicketPurchaseRequestCodec.encode(ticketPurchaseRequest, request);
+        return node.handle(request.flip()).thenAccept(PurchaseOutcomeCodec::throwIfFailed);
+    }
+}
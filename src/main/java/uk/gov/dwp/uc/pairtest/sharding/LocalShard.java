@@ -0,0 +1,65 @@
+package uk.gov.dwp.uc.pairtest.sharding;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException.Reason;
+
+/**
+ * A shard served by one thread of its own, with its own TicketService and so
+ * its own downstream clients. Its purchases never contend with another
+ * shard's, and one account's purchases are made one at a time in order.
+ * Purchases beyond {@code maxPurchasesInFlight} are rejected rather than
+ * queued.
+ */
+public class LocalShard implements PurchaseTransport {
+
+    private final TicketService ticketService;
+    private final ExecutorService executor;
+    private final Semaphore inFlightPermits;
+
+    public LocalShard(String name, TicketService ticketService, int maxPurchasesInFlight) {
+        this.ticketService = ticketService;
+        this.inFlightPermits = new Semaphore(maxPurchasesInFlight);
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "purchase-shard-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> send(TicketPurchaseRequest ticketPurchaseRequest) {
+        if (!inFlightPermits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new PurchaseRejectedException(Reason.OVERLOADED));
+        }
+        CompletableFuture<Void> purchased = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    ticketService.purchaseTickets(ticketPurchaseRequest);
+                    purchased.complete(null);
+                } catch (RuntimeException e) {
+                    purchased.completeExceptionally(e);
+                } finally {
+                    inFlightPermits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightPermits.release();
+            purchased.completeExceptionally(new PurchaseRejectedException(Reason.OVERLOADED));
+        }
+        return purchased;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
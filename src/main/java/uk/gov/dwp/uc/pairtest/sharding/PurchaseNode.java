@@ -0,0 +1,36 @@
+package uk.gov.dwp.uc.pairtest.sharding;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import uk.gov.dwp.uc.pairtest.AsyncTicketService;
+import uk.gov.dwp.uc.pairtest.codec.TicketPurchaseRequestCodec;
+
+/**
+ * The receiving end of a node-to-node transport. It takes a purchase encoded
+ * with {@link TicketPurchaseRequestCodec}, makes it, and replies with how it
+ * ended. A network transport would put this behind a socket;
+ * {@link InProcessTransport} calls it directly.
+ */
+public class PurchaseNode {
+
+    private final AsyncTicketService ticketService;
+
+    public PurchaseNode(AsyncTicketService ticketService) {
+        this.ticketService = ticketService;
+    }
+
+    /**
+     * Completes with the encoded reply. Never completes exceptionally: a
+     * request that cannot be decoded gets a failed reply.
+     */
+    public CompletableFuture<ByteBuffer> handle(ByteBuffer request) {
+        CompletableFuture<Void> purchased;
+        try {
+            purchased = ticketService.purchaseTicketsAsync(TicketPurchaseRequestCodec.decode(request));
+        } catch (RuntimeException e) {
+            purchased = CompletableFuture.failedFuture(e);
+        }
+        return purchased.handle((ignored, failure) -> PurchaseOutcomeCodec.encode(failure));
+    }
+}
@@ -0,0 +1,100 @@
+package uk.gov.dwp.uc.pairtest.sharding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+import uk.gov.dwp.uc.pairtest.exception.RemotePurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+
+/**
+ * The reply a node sends for a purchase: a tag byte for how it ended, then
+ * whatever is needed to raise the same exception on the sending side.
+ */
+final class PurchaseOutcomeCodec {
+
+    private static final byte PURCHASED = 0;
+    private static final byte INVALID = 1;
+    private static final byte REJECTED = 2;
+    private static final byte SEATS_UNAVAILABLE = 3;
+    private static final byte FAILED = 4;
+    private static final PurchaseRejectedException.Reason[] REASONS = PurchaseRejectedException.Reason.values();
+
+    private PurchaseOutcomeCodec() {
+    }
+
+    /**
+     * Encodes how a purchase ended, given the exception it failed with or null
+     * if it was made.
+     */
+    static ByteBuffer encode(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+        if (cause == null) {
+            return ByteBuffer.allocate(1).put(PURCHASED).flip();
+        }
+        if (cause instanceof InvalidPurchaseException invalidPurchaseException) {
+            int mask = 0;
+            if (invalidPurchaseException.getValidationErrors() != null) {
+                for (ValidationError validationError : invalidPurchaseException.getValidationErrors()) {
+                    mask |= validationError.bit();
+                }
+            }
+            return ByteBuffer.allocate(1 + Integer.BYTES).put(INVALID).putInt(mask).flip();
+        }
+        if (cause instanceof PurchaseRejectedException purchaseRejectedException) {
+            return ByteBuffer.allocate(2).put(REJECTED).put((byte) purchaseRejectedException.getReason().ordinal())
+                    .flip();
+        }
+        if (cause instanceof SeatsUnavailableException) {
+            return withStrings(SEATS_UNAVAILABLE, cause.getMessage());
+        }
+        return withStrings(FAILED, cause.getClass().getName(), cause.getMessage());
+    }
+
+    /**
+     * Returns normally if the reply says the purchase was made, and throws the
+     * exception it failed with otherwise.
+     */
+    static void throwIfFailed(ByteBuffer reply) {
+        byte tag = reply.get();
+        switch (tag) {
+            case PURCHASED:
+                return;
+            case INVALID:
+                throw InvalidPurchaseException.fromMask(reply.getInt());
+            case REJECTED:
+                throw new PurchaseRejectedException(REASONS[reply.get()]);
+            case SEATS_UNAVAILABLE:
+                throw new SeatsUnavailableException(getString(reply));
+            case FAILED:
+                throw new RemotePurchaseException(getString(reply), getString(reply));
+            default:
+                throw new IllegalArgumentException("Unknown purchase outcome " + tag);
+        }
+    }
+
+    private static ByteBuffer withStrings(byte tag, String... values) {
+        byte[][] encoded = new byte[values.length][];
+        int length = 1;
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = String.valueOf(values[i]).getBytes(StandardCharsets.UTF_8);
+            length += Integer.BYTES + encoded[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length).put(tag);
+        for (byte[] value : encoded) {
+            buffer.putInt(value.length).put(value);
+        }
+        return buffer.flip();
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
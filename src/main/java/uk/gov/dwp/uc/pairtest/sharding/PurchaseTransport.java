@@ -0,0 +1,25 @@
+package uk.gov.dwp.uc.pairtest.sharding;
+
+import java.util.concurrent.CompletableFuture;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+
+/**
+ * Carries purchases to wherever a shard of accounts is served: a thread in
+ * this JVM ({@link LocalShard}) or another node. Purchases sent through one
+ * transport by one thread are made in the order they were sent.
+ */
+public interface PurchaseTransport {
+
+    /**
+     * Sends the purchase and returns a future that completes when it has been
+     * made, or exceptionally with the reason it was not.
+     */
+    CompletableFuture<Void> send(TicketPurchaseRequest ticketPurchaseRequest);
+
+    /**
+     * Stops accepting purchases and lets go of any threads or connections.
+     */
+    default void close() {
+    }
+}
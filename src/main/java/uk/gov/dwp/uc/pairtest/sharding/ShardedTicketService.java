@@ -0,0 +1,93 @@
+package uk.gov.dwp.uc.pairtest.sharding;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+
+import uk.gov.dwp.uc.pairtest.AsyncTicketService;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+/**
+ * Routes each purchase by account id to one of a fixed set of shards, using a
+ * {@link ConsistentHashRing}. All of an account's purchases go to the same
+ * shard, so they keep their order; shards share nothing, so they scale with
+ * the cores or nodes serving them.
+ */
+public class ShardedTicketService implements TicketService, AsyncTicketService {
+
+    private final PurchaseTransport[] transports;
+    private final ConsistentHashRing ring;
+
+    /**
+     * Routes to the given transports, keyed by a node id that must stay the
+     * same from one run to the next for accounts to keep their shard.
+     */
+    public ShardedTicketService(Map<String, PurchaseTransport> transportsByNodeId, int virtualNodesPerNode) {
+        this.transports = transportsByNodeId.values().toArray(PurchaseTransport[]::new);
+        this.ring = new ConsistentHashRing(new ArrayList<>(transportsByNodeId.keySet()), virtualNodesPerNode);
+    }
+
+    /**
+     * Routes to {@code shards} {@link LocalShard}s, each with a TicketService
+     * of its own from the factory.
+     */
+    public static ShardedTicketService ofLocalShards(int shards, IntFunction<TicketService> ticketServiceForShard,
+            int maxPurchasesInFlightPerShard, int virtualNodesPerShard) {
+        Map<String, PurchaseTransport> transportsByNodeId = new LinkedHashMap<>();
+        for (int shard = 0; shard < shards; shard++) {
+            String nodeId = "shard-" + shard;
+            transportsByNodeId.put(nodeId, new LocalShard(nodeId, ticketServiceForShard.apply(shard),
+                    maxPurchasesInFlightPerShard));
+        }
+        return new ShardedTicketService(transportsByNodeId, virtualNodesPerShard);
+    }
+
+    @Override
+    public void purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest) throws InvalidPurchaseException {
+        try {
+            purchaseTicketsAsync(ticketPurchaseRequest).join();
+        } catch (CompletionException e) {
+            Throwable cause = e;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> purchaseTicketsAsync(TicketPurchaseRequest ticketPurchaseRequest) {
+        if (ticketPurchaseRequest == null) {
+            return CompletableFuture.failedFuture(
+                    InvalidPurchaseException.fromMask(ValidationError.TICKETPURCHASEREQUEST_CANNOT_BE_NULL.bit()));
+        }
+        return transportFor(ticketPurchaseRequest.accountId()).send(ticketPurchaseRequest);
+    }
+
+    public PurchaseTransport transportFor(long accountId) {
+        return transports[ring.nodeFor(accountId)];
+    }
+
+    public List<PurchaseTransport> getTransports() {
+        return List.of(transports);
+    }
+
+    /**
+     * Closes every transport.
+     */
+    public void close() {
+        for (PurchaseTransport transport : transports) {
+            transport.close();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package uk.gov.dwp.uc.pairtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNT_TICKET_QUOTA_EXCEEDED;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.compensation.SeatCompensation;
+import uk.gov.dwp.uc.pairtest.discount.PurchaseDiscounts;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.quota.TicketQuota;
+import uk.gov.dwp.uc.pairtest.quota.WindowedTicketQuota;
+
+public class AsyncTicketServiceImplTest {
+
+        private ExecutorService executor;
+
+        @BeforeEach
+        void beforeEach() {
+                executor = PurchaseExecutors.newThreadPerTaskExecutor();
+        }
+
+        @AfterEach
+        void afterEach() {
+                executor.shutdownNow();
+        }
+
+        private static TicketPurchaseRequest adults(long accountId, int noOfTickets) {
+                return new TicketPurchaseRequest(accountId,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, noOfTickets) });
+        }
+
+        @Test
+        void testValidRequestReservesSeatsThenPays() throws Exception {
+                SeatReservationService seatReservationService = mock(SeatReservationService.class);
+                TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+                AsyncTicketService ticketService = new AsyncTicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                seatReservationService, ticketPaymentService, executor, 1, 1);
+
+                ticketService.purchaseTicketsAsync(adults(1, 3)).get(5, TimeUnit.SECONDS);
+
+                verify(seatReservationService).reserveSeat(1, 3);
+                verify(ticketPaymentService).makePayment(1, 60);
+        }
+
+        @Test
+        void testInvalidRequestCompletesExceptionallyWithoutCallingServices() {
+                SeatReservationService seatReservationService = mock(SeatReservationService.class);
+                TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+                AsyncTicketService ticketService = new AsyncTicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                seatReservationService, ticketPaymentService, executor, 1, 1);
+
+                CompletableFuture<Void> purchase = ticketService.purchaseTicketsAsync(adults(0, 1));
+
+                ExecutionException exception = assertThrows(ExecutionException.class, purchase::get);
+                assertInstanceOf(InvalidPurchaseException.class, exception.getCause());
+                verifyNoInteractions(seatReservationService, ticketPaymentService);
+        }
+
+        @Test
+        void testFailedReservationSkipsPayment() {
+                SeatReservationService seatReservationService = mock(SeatReservationService.class);
+                TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+                RuntimeException failure = new IllegalStateException("No seats");
+                doThrow(failure).when(seatReservationService).reserveSeat(1, 2);
+                AsyncTicketService ticketService = new AsyncTicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                seatReservationService, ticketPaymentService, executor, 1, 1);
+
+                ExecutionException exception = assertThrows(ExecutionException.class,
+                                () -> ticketService.purchaseTicketsAsync(adults(1, 2)).get(5, TimeUnit.SECONDS));
+
+                assertSame(failure, exception.getCause());
+                verifyNoInteractions(ticketPaymentService);
+        }
+
+        @Test
+        void testSeatsAreReleasedWhenPaymentFails() throws Exception {
+                TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+                RuntimeException failure = new IllegalStateException("Card declined");
+                doThrow(failure).when(ticketPaymentService).makePayment(1, 40);
+                CompletableFuture<String> released = new CompletableFuture<>();
+                AsyncTicketService ticketService = new AsyncTicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                mock(SeatReservationService.class), ticketPaymentService, PurchaseDiscounts.NONE,
+                                PurchaseJournal.NOOP,
+                                (accountId, totalSeats, heldSinceNanos, onReleased) -> released
+                                                .complete(accountId + ":" + totalSeats),
+                                TicketQuota.NONE, executor, 1, 1);
+
+                ExecutionException exception = assertThrows(ExecutionException.class,
+                                () -> ticketService.purchaseTicketsAsync(adults(1, 2)).get(5, TimeUnit.SECONDS));
+
+                assertSame(failure, exception.getCause());
+                assertEquals("1:2", released.get(5, TimeUnit.SECONDS));
+        }
+
+        @Test
+        void testAccountOverItsTicketQuotaIsRejectedAndFailedPurchasesGiveTicketsBack() throws Exception {
+                TicketPaymentService ticketPaymentService = mock(TicketPaymentService.class);
+                doThrow(new IllegalStateException("Card declined")).when(ticketPaymentService).makePayment(1, 100);
+                WindowedTicketQuota ticketQuota = new WindowedTicketQuota(10, Duration.ofDays(1), 1000);
+                AsyncTicketService ticketService = new AsyncTicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                mock(SeatReservationService.class), ticketPaymentService, PurchaseDiscounts.NONE,
+                                PurchaseJournal.NOOP, SeatCompensation.NONE, ticketQuota, executor, 1, 1);
+
+                ticketService.purchaseTicketsAsync(adults(1, 6)).get(5, TimeUnit.SECONDS);
+                ExecutionException exception = assertThrows(ExecutionException.class,
+                                () -> ticketService.purchaseTicketsAsync(adults(1, 5)).get(5, TimeUnit.SECONDS));
+                assertEquals(List.of(ACCOUNT_TICKET_QUOTA_EXCEEDED),
+                                ((InvalidPurchaseException) exception.getCause()).getValidationErrors());
+                assertEquals(6, ticketQuota.ticketsTaken(1));
+
+                // A failed payment gives its tickets back
+                ticketQuota.giveBack(1, 6);
+                assertThrows(ExecutionException.class,
+                                () -> ticketService.purchaseTicketsAsync(adults(1, 5)).get(5, TimeUnit.SECONDS));
+                assertEquals(0, ticketQuota.ticketsTaken(1));
+        }
+
+        @Test
+        void testConcurrentCallsToEachServiceAreLimited() throws Exception {
+                AtomicInteger inFlight = new AtomicInteger();
+                AtomicInteger maxInFlight = new AtomicInteger();
+                SeatReservationService seatReservationService = (accountId, totalSeatsToAllocate) -> {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        sleep(5);
+                        inFlight.decrementAndGet();
+                };
+                AsyncTicketService ticketService = new AsyncTicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                seatReservationService, mock(TicketPaymentService.class), executor, 2, 2);
+
+                List<CompletableFuture<Void>> purchases = new ArrayList<>();
+                for (int i = 1; i <= 20; i++) {
+                        purchases.add(ticketService.purchaseTicketsAsync(adults(i, 1)));
+                }
+                CompletableFuture.allOf(purchases.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+                assertTrue(maxInFlight.get() <= 2);
+        }
+
+        @Test
+        void testPurchasesWaitingForAPermitDoNotHoldThreads() throws Exception {
+                CountDownLatch release = new CountDownLatch(1);
+                SeatReservationService seatReservationService = (accountId, totalSeatsToAllocate) -> {
+                        if (accountId == 1) {
+                                await(release);
+                        }
+                };
+                ExecutorService twoThreads = Executors.newFixedThreadPool(2);
+                try {
+                        AsyncTicketService ticketService = new AsyncTicketServiceImpl(
+                                        new TicketPurchaseRequestValidator(), seatReservationService,
+                                        mock(TicketPaymentService.class), twoThreads, 1, 1);
+
+                        List<CompletableFuture<Void>> purchases = new ArrayList<>();
+                        for (int i = 1; i <= 10; i++) {
+                                purchases.add(ticketService.purchaseTicketsAsync(adults(i, 1)));
+                        }
+                        // One thread is in the blocked reservation, the other is still free
+                        twoThreads.submit(release::countDown).get(5, TimeUnit.SECONDS);
+                        CompletableFuture.allOf(purchases.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+                } finally {
+                        twoThreads.shutdownNow();
+                }
+        }
+
+        @Test
+        void testLongQueueBehindARejectingExecutorIsFailedWithoutRecursing() {
+                List<Runnable> accepted = new ArrayList<>();
+                AtomicBoolean shutDown = new AtomicBoolean();
+                Executor shuttingDown = task -> {
+                        if (shutDown.get()) {
+                                throw new RejectedExecutionException();
+                        }
+                        accepted.add(task);
+                };
+                StageLimiter stageLimiter = new StageLimiter(1);
+                CompletableFuture<String> running = stageLimiter.submit(() -> "done", shuttingDown);
+                List<CompletableFuture<String>> queued = new ArrayList<>();
+                for (int i = 0; i < 100_000; i++) {
+                        queued.add(stageLimiter.submit(() -> "never", shuttingDown));
+                }
+
+                shutDown.set(true);
+                accepted.get(0).run();
+
+                assertEquals("done", running.join());
+                queued.forEach(call -> assertInstanceOf(RejectedExecutionException.class,
+                                assertThrows(CompletionException.class, call::join).getCause()));
+                // Every place has been given back
+                shutDown.set(false);
+                stageLimiter.submit(() -> "again", shuttingDown);
+                assertEquals(2, accepted.size());
+        }
+
+        @Test
+        void testPaymentOverlapsWithNextReservation() throws Exception {
+                CountDownLatch secondReservationStarted = new CountDownLatch(1);
+                SeatReservationService seatReservationService = (accountId, totalSeatsToAllocate) -> {
+                        if (accountId == 2) {
+                                secondReservationStarted.countDown();
+                        }
+                };
+                AtomicInteger overlappedPayments = new AtomicInteger();
+                TicketPaymentService ticketPaymentService = (accountId, totalAmountToPay) -> {
+                        if (accountId == 1 && await(secondReservationStarted)) {
+                                overlappedPayments.incrementAndGet();
+                        }
+                };
+                AsyncTicketService ticketService = new AsyncTicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                seatReservationService, ticketPaymentService, executor, 1, 1);
+
+                CompletableFuture<Void> first = ticketService.purchaseTicketsAsync(adults(1, 1));
+                CompletableFuture<Void> second = ticketService.purchaseTicketsAsync(adults(2, 1));
+                CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+
+                assertEquals(1, overlappedPayments.get());
+        }
+
+        private static void sleep(long millis) {
+                try {
+                        Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                }
+        }
+
+        private static boolean await(CountDownLatch latch) {
+                try {
+                        return latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                }
+        }
+
+}
@@ -0,0 +1,233 @@
+package uk.gov.dwp.uc.pairtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNT_TICKET_QUOTA_EXCEEDED;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.compensation.SeatReleaseQueue;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult;
+import uk.gov.dwp.uc.pairtest.domain.PurchaseResult.Status;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord.Stage;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.quota.WindowedTicketQuota;
+import uk.gov.dwp.uc.pairtest.seating.InMemorySeatInventory;
+import uk.gov.dwp.uc.pairtest.seating.ScreeningSeatReservations;
+
+public class BatchTicketServiceImplTest {
+
+        private BatchTicketService batchTicketService;
+        private SeatReservationService mockedSeatReservationService;
+        private TicketPaymentService mockedTicketPaymentService;
+
+        @BeforeEach
+        void beforeEach() {
+                mockedSeatReservationService = mock(SeatReservationService.class);
+                mockedTicketPaymentService = mock(TicketPaymentService.class);
+                batchTicketService = new BatchTicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                mockedSeatReservationService,
+                                mockedTicketPaymentService);
+        }
+
+        private static TicketPurchaseRequest adults(long accountId, int noOfTickets) {
+                return new TicketPurchaseRequest(accountId,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, noOfTickets) });
+        }
+
+        @Test
+        void testCallsAreCoalescedPerAccount() {
+                List<PurchaseResult> results = batchTicketService.purchaseTicketsBatch(List.of(
+                                adults(1, 1), adults(2, 2), adults(1, 3)));
+
+                verify(mockedSeatReservationService).reserveSeat(1, 4);
+                verify(mockedSeatReservationService).reserveSeat(2, 2);
+                verify(mockedTicketPaymentService).makePayment(1, 80);
+                verify(mockedTicketPaymentService).makePayment(2, 40);
+                verifyNoMoreInteractions(mockedSeatReservationService, mockedTicketPaymentService);
+                results.forEach(result -> assertEquals(Status.ACCEPTED, result.status()));
+        }
+
+        @Test
+        void testInvalidRequestIsRejectedWithoutAffectingTheOthers() {
+                TicketPurchaseRequest invalid = new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 1),
+                                                new TicketTypeRequest(Type.INFANT, 2) });
+
+                List<PurchaseResult> results = batchTicketService.purchaseTicketsBatch(List.of(
+                                invalid, adults(1, 2)));
+
+                assertEquals(Status.REJECTED, results.get(0).status());
+                assertEquals(Set.of(CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS), results.get(0).validationErrors());
+                assertEquals(Status.ACCEPTED, results.get(1).status());
+                verify(mockedSeatReservationService).reserveSeat(1, 2);
+                verify(mockedTicketPaymentService).makePayment(1, 40);
+        }
+
+        @Test
+        void testFailedCoalescedReservationIsReplayedPerRequest() {
+                RuntimeException failure = new IllegalStateException("No seats");
+                doThrow(failure).when(mockedSeatReservationService).reserveSeat(1, 5);
+                doThrow(failure).when(mockedSeatReservationService).reserveSeat(1, 3);
+
+                List<PurchaseResult> results = batchTicketService.purchaseTicketsBatch(List.of(
+                                adults(1, 2), adults(1, 3)));
+
+                assertEquals(Status.ACCEPTED, results.get(0).status());
+                assertEquals(Status.FAILED, results.get(1).status());
+                assertSame(failure, results.get(1).failure());
+                verify(mockedTicketPaymentService).makePayment(1, 40);
+                verifyNoMoreInteractions(mockedTicketPaymentService);
+        }
+
+        @Test
+        void testFailedCoalescedPaymentIsReplayedPerRequest() {
+                RuntimeException failure = new IllegalStateException("Card declined");
+                doThrow(failure).when(mockedTicketPaymentService).makePayment(1, 100);
+                doThrow(failure).when(mockedTicketPaymentService).makePayment(1, 60);
+
+                List<PurchaseResult> results = batchTicketService.purchaseTicketsBatch(List.of(
+                                adults(1, 2), adults(1, 3), adults(2, 1)));
+
+                assertEquals(Status.ACCEPTED, results.get(0).status());
+                assertEquals(Status.FAILED, results.get(1).status());
+                assertEquals(Status.ACCEPTED, results.get(2).status());
+                verify(mockedSeatReservationService).reserveSeat(1, 5);
+                verify(mockedTicketPaymentService).makePayment(1, 40);
+        }
+
+        @Test
+        void testSeatsOfRequestsWhosePaymentFailsAreReleasedAndJournalled() {
+                RuntimeException failure = new IllegalStateException("Card declined");
+                doThrow(failure).when(mockedTicketPaymentService).makePayment(1, 100);
+                doThrow(failure).when(mockedTicketPaymentService).makePayment(1, 60);
+                doThrow(failure).when(mockedTicketPaymentService).makePayment(2, 20);
+                List<String> releases = new ArrayList<>();
+                List<PurchaseJournalRecord> journalled = new ArrayList<>();
+                AtomicLong purchaseIds = new AtomicLong();
+                PurchaseJournal purchaseJournal = new PurchaseJournal() {
+
+                        @Override
+                        public long nextPurchaseId() {
+                                return purchaseIds.incrementAndGet();
+                        }
+
+                        @Override
+                        public CompletableFuture<Void> append(PurchaseJournalRecord record) {
+                                journalled.add(record);
+                                return CompletableFuture.completedFuture(null);
+                        }
+                };
+                batchTicketService = BatchTicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                .seatReservationService(mockedSeatReservationService)
+                                .ticketPaymentService(mockedTicketPaymentService)
+                                .purchaseJournal(purchaseJournal)
+                                .seatCompensation((accountId, totalSeats, heldSinceNanos, onReleased) -> {
+                                        releases.add(accountId + ":" + totalSeats);
+                                        onReleased.run();
+                                })
+                                .build();
+
+                List<PurchaseResult> results = batchTicketService.purchaseTicketsBatch(List.of(
+                                adults(1, 2), adults(1, 3), adults(2, 1)));
+
+                assertEquals(List.of(Status.ACCEPTED, Status.FAILED, Status.FAILED),
+                                results.stream().map(PurchaseResult::status).toList());
+                assertEquals(List.of("1:3", "2:1"), releases);
+                assertEquals(List.of(Stage.STARTED, Stage.SEATS_RESERVED, Stage.COMPLETED),
+                                stagesOf(journalled, 1));
+                assertEquals(List.of(Stage.STARTED, Stage.SEATS_RESERVED, Stage.PAYMENT_FAILED, Stage.SEATS_RELEASED),
+                                stagesOf(journalled, 2));
+                assertEquals(List.of(Stage.STARTED, Stage.SEATS_RESERVED, Stage.PAYMENT_FAILED, Stage.SEATS_RELEASED),
+                                stagesOf(journalled, 3));
+        }
+
+        @Test
+        void testSeatsOfARequestWhoseReplayedPaymentFailsAreReleasedAtTheScreening() throws Exception {
+                InMemorySeatInventory inventory = new InMemorySeatInventory();
+                inventory.addScreening(1, 2, 10);
+                ScreeningSeatReservations reservations = inventory.forScreening(1);
+                RuntimeException failure = new IllegalStateException("Card declined");
+                doThrow(failure).when(mockedTicketPaymentService).makePayment(1, 100);
+                doThrow(failure).when(mockedTicketPaymentService).makePayment(1, 60);
+                CountDownLatch released = new CountDownLatch(1);
+                PurchaseMetrics purchaseMetrics = new PurchaseMetrics() {
+                        @Override
+                        public void onSeatsReleased(int seats, long heldNanos) {
+                                super.onSeatsReleased(seats, heldNanos);
+                                released.countDown();
+                        }
+                };
+                try (SeatReleaseQueue seatReleaseQueue = new SeatReleaseQueue(reservations, purchaseMetrics, 16,
+                                TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(10), 3)) {
+                        batchTicketService = BatchTicketServiceImpl.builder()
+                                        .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                        .seatReservationService(reservations)
+                                        .ticketPaymentService(mockedTicketPaymentService)
+                                        .seatCompensation(seatReleaseQueue)
+                                        .build();
+
+                        List<PurchaseResult> results = batchTicketService.purchaseTicketsBatch(List.of(
+                                        adults(1, 2), adults(1, 3)));
+
+                        assertEquals(List.of(Status.ACCEPTED, Status.FAILED),
+                                        results.stream().map(PurchaseResult::status).toList());
+                        assertTrue(released.await(5, TimeUnit.SECONDS));
+                        assertEquals(0, seatReleaseQueue.getPending());
+                        assertEquals(3, purchaseMetrics.getSeatsReleased());
+                        assertEquals(18, inventory.getScreening(1).availableSeats());
+                }
+        }
+
+        @Test
+        void testRequestsOverTheAccountsQuotaAreRejectedAndFailedOnesGiveTicketsBack() {
+                doThrow(new IllegalStateException("Card declined")).when(mockedTicketPaymentService).makePayment(2, 80);
+                WindowedTicketQuota ticketQuota = new WindowedTicketQuota(10, Duration.ofDays(1), 1000);
+                batchTicketService = BatchTicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                .seatReservationService(mockedSeatReservationService)
+                                .ticketPaymentService(mockedTicketPaymentService)
+                                .ticketQuota(ticketQuota)
+                                .build();
+
+                List<PurchaseResult> results = batchTicketService.purchaseTicketsBatch(List.of(
+                                adults(1, 6), adults(1, 5), adults(1, 4), adults(2, 4)));
+
+                assertEquals(List.of(Status.ACCEPTED, Status.REJECTED, Status.ACCEPTED, Status.FAILED),
+                                results.stream().map(PurchaseResult::status).toList());
+                assertEquals(Set.of(ACCOUNT_TICKET_QUOTA_EXCEEDED), results.get(1).validationErrors());
+                verify(mockedSeatReservationService).reserveSeat(1, 10);
+                assertEquals(10, ticketQuota.ticketsTaken(1));
+                assertEquals(0, ticketQuota.ticketsTaken(2));
+        }
+
+        private static List<Stage> stagesOf(List<PurchaseJournalRecord> journalled, long purchaseId) {
+                return journalled.stream().filter(record -> record.purchaseId() == purchaseId)
+                                .map(PurchaseJournalRecord::stage).toList();
+        }
+
+}
@@ -0,0 +1,59 @@
+package uk.gov.dwp.uc.pairtest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_THAN_20_TICKETS;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.TICKETPURCHASEREQUEST_CANNOT_BE_NULL;
+
+import java.util.EnumSet;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+
+public class TicketPurchaseRequestValidatorTest {
+
+        private final TicketPurchaseRequestValidator validator = new TicketPurchaseRequestValidator();
+
+        @Test
+        void testCheckOfValidRequestIsValid() {
+                assertEquals(TicketPurchaseRequestValidator.VALID, validator.check(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                                                new TicketTypeRequest(Type.INFANT, 2) })));
+        }
+
+        @Test
+        void testCheckOfNullRequest() {
+                assertEquals(TICKETPURCHASEREQUEST_CANNOT_BE_NULL.bit(), validator.check(null));
+        }
+
+        @Test
+        void testCheckReturnsEveryBrokenRule() {
+                int validationErrors = validator.check(new TicketPurchaseRequest(0,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 10),
+                                                new TicketTypeRequest(Type.INFANT, 11) }));
+
+                assertEquals(EnumSet.of(ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE, CANNOT_PURCHASE_MORE_THAN_20_TICKETS,
+                                CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS), ValidationError.setOf(validationErrors));
+        }
+
+        @Test
+        void testValidateThrowsStacklessExceptionWithTheBrokenRules() {
+                InvalidPurchaseException exception = assertThrows(InvalidPurchaseException.class,
+                                () -> validator.validate(new TicketPurchaseRequest(-1,
+                                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 21) })));
+
+                assertThat(exception.getValidationErrors(), Matchers.containsInAnyOrder(
+                                ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE, CANNOT_PURCHASE_MORE_THAN_20_TICKETS));
+                assertEquals(0, exception.getStackTrace().length);
+        }
+
+}
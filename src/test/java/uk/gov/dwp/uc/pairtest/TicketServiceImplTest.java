@@ -2,20 +2,29 @@ package uk.gov.dwp.uc.pairtest;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNT_TICKET_QUOTA_EXCEEDED;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_THAN_20_TICKETS;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.DISCOUNT_CODE_IS_NOT_VALID;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.NOOFTICKETS_CANNOT_BE_ZERO_OR_NEGATIVE;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.TICKETPURCHASEREQUEST_CANNOT_BE_NULL;
 import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.TICKETTYPEREQUESTS_CANNOT_BE_NULL_OR_EMPTY;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 import org.hamcrest.Matchers;
@@ -30,13 +39,19 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import com.google.common.collect.Lists;
 
+import thirdparty.discount.Discount;
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.discount.PurchaseDiscounts;
 import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
 import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetricsListener;
+import uk.gov.dwp.uc.pairtest.pricing.PricingRules;
+import uk.gov.dwp.uc.pairtest.pricing.TicketPriceTable;
+import uk.gov.dwp.uc.pairtest.quota.WindowedTicketQuota;
 
 public class TicketServiceImplTest {
 
@@ -297,4 +312,96 @@ public class TicketServiceImplTest {
                 verifyNoInteractions(mockedSeatReservationService);
         }
 
+        @Test
+        void testDiscountIsAppliedToThePayment() {
+                ticketService = TicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                .seatReservationService(mockedSeatReservationService)
+                                .ticketPaymentService(mockedTicketPaymentService)
+                                .purchaseDiscounts(new PurchaseDiscounts((accountId, discountCode) -> new Discount(25)))
+                                .build();
+
+                ticketService.purchaseTickets(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                                                new TicketTypeRequest(Type.CHILD, 1) },
+                                "PROMO"));
+
+                verify(mockedSeatReservationService).reserveSeat(1, 3);
+                verify(mockedTicketPaymentService).makePayment(1, 38);
+        }
+
+        @Test
+        void testNonFiniteDiscountPercentageIsAnInvalidDiscountCode() {
+                ticketService = TicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                .seatReservationService(mockedSeatReservationService)
+                                .ticketPaymentService(mockedTicketPaymentService)
+                                .purchaseDiscounts(new PurchaseDiscounts(
+                                                (accountId, discountCode) -> new Discount(Double.NaN)))
+                                .build();
+
+                assertThrowsExceptionWithExpectedErrors(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2) }, "PROMO"),
+                                Lists.newArrayList(DISCOUNT_CODE_IS_NOT_VALID));
+
+                verifyNoInteractions(mockedTicketPaymentService);
+                verifyNoInteractions(mockedSeatReservationService);
+        }
+
+        @Test
+        void testPaymentIsPricedByTheValidatorsRules() {
+                PricingRules pricingRules = new PricingRules(
+                                new TicketPriceTable(Map.of(Type.ADULT, 25, Type.CHILD, 15, Type.INFANT, 0)), 20);
+                ticketService = TicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator(
+                                                PurchaseMetricsListener.NOOP, pricingRules))
+                                .seatReservationService(mockedSeatReservationService)
+                                .ticketPaymentService(mockedTicketPaymentService)
+                                .build();
+
+                ticketService.purchaseTickets(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                                                new TicketTypeRequest(Type.CHILD, 1) }));
+
+                verify(mockedTicketPaymentService).makePayment(1, 65);
+        }
+
+        @Test
+        void testInvalidDiscountCodeThenTicketPaymentServiceAndSeatBookingServiceAreNotCalled() {
+                assertThrowsExceptionWithExpectedErrors(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2) }, "PROMO"),
+                                Lists.newArrayList(DISCOUNT_CODE_IS_NOT_VALID));
+
+                verifyNoInteractions(mockedTicketPaymentService);
+                verifyNoInteractions(mockedSeatReservationService);
+        }
+
+        @Test
+        void testAccountOverItsTicketQuotaIsRejectedAndFailedPurchasesGiveTicketsBack() {
+                WindowedTicketQuota ticketQuota = new WindowedTicketQuota(30, Duration.ofDays(1), 1000);
+                ticketService = TicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                .seatReservationService(mockedSeatReservationService)
+                                .ticketPaymentService(mockedTicketPaymentService)
+                                .ticketQuota(ticketQuota)
+                                .build();
+                TicketPurchaseRequest twentyTickets = new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 10),
+                                                new TicketTypeRequest(Type.INFANT, 10) });
+
+                ticketService.purchaseTickets(twentyTickets);
+                assertThrowsExceptionWithExpectedErrors(twentyTickets,
+                                Lists.newArrayList(ACCOUNT_TICKET_QUOTA_EXCEEDED));
+                assertEquals(20, ticketQuota.ticketsTaken(1));
+
+                doThrow(new IllegalStateException("Card declined")).when(mockedTicketPaymentService)
+                                .makePayment(anyLong(), anyInt());
+                TicketPurchaseRequest tenTickets = new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 10) });
+                assertThrows(IllegalStateException.class, () -> ticketService.purchaseTickets(tenTickets));
+                assertEquals(20, ticketQuota.ticketsTaken(1));
+
+                verify(mockedSeatReservationService, times(2)).reserveSeat(1, 10);
+        }
+
 }
@@ -0,0 +1,59 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class AccountRateLimiterTest {
+
+        private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+        private final AccountRateLimiter accountRateLimiter = new AccountRateLimiter(2, 3, 4096);
+
+        @Test
+        void testIdleAccountMayBurstThenIsLimitedToTheRate() {
+                for (int i = 0; i < 3; i++) {
+                        assertTrue(accountRateLimiter.tryAcquire(1, 0));
+                }
+                assertFalse(accountRateLimiter.tryAcquire(1, 0));
+
+                assertTrue(accountRateLimiter.tryAcquire(1, SECOND / 2));
+                assertFalse(accountRateLimiter.tryAcquire(1, SECOND / 2));
+        }
+
+        @Test
+        void testAccountsAreLimitedSeparately() {
+                for (int i = 0; i < 3; i++) {
+                        accountRateLimiter.tryAcquire(1, 0);
+                }
+
+                assertFalse(accountRateLimiter.tryAcquire(1, 0));
+                assertTrue(accountRateLimiter.tryAcquire(2, 0));
+        }
+
+        @Test
+        void testInvalidAccountIdsAreNotLimited() {
+                for (int i = 0; i < 10; i++) {
+                        assertTrue(accountRateLimiter.tryAcquire(0, 0));
+                        assertTrue(accountRateLimiter.tryAcquire(-1, 0));
+                }
+        }
+
+        @Test
+        void testMillionsOfAccountsFitInAFixedTable() {
+                AccountRateLimiter limiter = new AccountRateLimiter(1, 1, 1 << 16);
+
+                for (long accountId = 1; accountId <= 2_000_000; accountId++) {
+                        assertTrue(limiter.tryAcquire(accountId, accountId * 1_000));
+                }
+
+                assertEquals(1 << 16, limiter.capacity());
+                // The most recent account is still tracked
+                assertFalse(limiter.tryAcquire(2_000_000, 2_000_000_000L));
+        }
+
+}
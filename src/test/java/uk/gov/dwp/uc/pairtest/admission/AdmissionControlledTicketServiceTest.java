@@ -0,0 +1,72 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException.Reason;
+
+public class AdmissionControlledTicketServiceTest {
+
+        private static TicketPurchaseRequest adults(long accountId) {
+                return new TicketPurchaseRequest(accountId,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 1) });
+        }
+
+        @Test
+        void testAccountOverItsRateIsRejectedBeforeReachingTheService() {
+                TicketService mockedTicketService = mock(TicketService.class);
+                TicketService ticketService = new AdmissionControlledTicketService(mockedTicketService,
+                                new AccountRateLimiter(1, 2, 1024), 10, () -> 0);
+
+                ticketService.purchaseTickets(adults(1));
+                ticketService.purchaseTickets(adults(1));
+                PurchaseRejectedException exception = assertThrows(PurchaseRejectedException.class,
+                                () -> ticketService.purchaseTickets(adults(1)));
+                ticketService.purchaseTickets(adults(2));
+
+                assertEquals(Reason.RATE_LIMITED, exception.getReason());
+                verify(mockedTicketService, times(2)).purchaseTickets(argThat(request -> request.accountId() == 1));
+        }
+
+        @Test
+        void testLoadIsShedWhenTooManyPurchasesAreInFlight() throws Exception {
+                CountDownLatch entered = new CountDownLatch(1);
+                CountDownLatch release = new CountDownLatch(1);
+                TicketService slowTicketService = request -> {
+                        entered.countDown();
+                        try {
+                                release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                };
+                TicketService ticketService = new AdmissionControlledTicketService(slowTicketService,
+                                new AccountRateLimiter(100, 100, 1024), 1);
+
+                CompletableFuture<Void> first = CompletableFuture.runAsync(() -> ticketService.purchaseTickets(adults(1)));
+                entered.await(5, TimeUnit.SECONDS);
+                PurchaseRejectedException exception = assertThrows(PurchaseRejectedException.class,
+                                () -> ticketService.purchaseTickets(adults(2)));
+                release.countDown();
+                first.get(5, TimeUnit.SECONDS);
+
+                assertEquals(Reason.OVERLOADED, exception.getReason());
+                ticketService.purchaseTickets(adults(2));
+        }
+
+}
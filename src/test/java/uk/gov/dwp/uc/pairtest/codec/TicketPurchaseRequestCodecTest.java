@@ -0,0 +1,162 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.pricing.TicketPricingEngine;
+
+public class TicketPurchaseRequestCodecTest {
+
+        private final TicketPurchaseRequestValidator validator = new TicketPurchaseRequestValidator();
+        private final TicketPricingEngine ticketPricingEngine = new TicketPricingEngine();
+
+        private static TicketPurchaseRequest request(long accountId, TicketTypeRequest... ticketTypeRequests) {
+                return new TicketPurchaseRequest(accountId, ticketTypeRequests);
+        }
+
+        private static Stream<TicketPurchaseRequest> requests() {
+                return Stream.of(
+                                request(1, new TicketTypeRequest(Type.ADULT, 1)),
+                                request(Long.MAX_VALUE, new TicketTypeRequest(Type.ADULT, 4),
+                                                new TicketTypeRequest(Type.CHILD, 2),
+                                                new TicketTypeRequest(Type.INFANT, 3)),
+                                request(7, new TicketTypeRequest(Type.ADULT, 7), new TicketTypeRequest(Type.INFANT, 7),
+                                                new TicketTypeRequest(Type.CHILD, 7)),
+                                request(-1, new TicketTypeRequest(Type.ADULT, 1)),
+                                request(0),
+                                new TicketPurchaseRequest(1, null),
+                                request(1, new TicketTypeRequest(Type.ADULT, 0)),
+                                request(1, new TicketTypeRequest(Type.ADULT, 3), new TicketTypeRequest(Type.ADULT, -1)),
+                                request(1, new TicketTypeRequest(Type.CHILD, 1)),
+                                request(1, new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.INFANT, 2)),
+                                request(1, new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE),
+                                                new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE)),
+                                new TicketPurchaseRequest(1, new TicketTypeRequest[] {
+                                                new TicketTypeRequest(Type.ADULT, 2) }, "SUMMER-£5"));
+        }
+
+        @ParameterizedTest
+        @MethodSource("requests")
+        void testViewValidatesAndPricesLikeTheRequest(TicketPurchaseRequest ticketPurchaseRequest) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+                TicketPurchaseRequestCodec.encode(ticketPurchaseRequest, buffer);
+                TicketPurchaseRequestView view = new TicketPurchaseRequestView().wrap(buffer, 0);
+
+                PurchaseTally expected = ticketPricingEngine.tally(ticketPurchaseRequest, new PurchaseTally());
+                PurchaseTally actual = ticketPricingEngine.tallyEncoded(view, new PurchaseTally());
+
+                assertEquals(buffer.position(), view.encodedLength());
+                assertEquals(ticketPurchaseRequest.accountId(), view.accountId());
+                assertEquals(ticketPurchaseRequest.discountCode(), view.discountCode());
+                assertEquals(validator.check(ticketPurchaseRequest, expected), validator.checkEncoded(view, actual));
+                if (!expected.isNonPositiveTickets()) {
+                        for (Type type : Type.values()) {
+                                // The view bounds each type's count to the int range
+                                assertEquals(Math.min(Integer.MAX_VALUE, expected.getTickets(type)),
+                                                actual.getTickets(type));
+                        }
+                }
+        }
+
+        @ParameterizedTest
+        @MethodSource("requests")
+        void testRequestRoundTrips(TicketPurchaseRequest ticketPurchaseRequest) {
+                ByteBuffer buffer = ByteBuffer.allocate(64);
+                TicketPurchaseRequestCodec.encode(ticketPurchaseRequest, buffer);
+                int encodedLength = buffer.position();
+                buffer.flip();
+
+                TicketPurchaseRequest decoded = TicketPurchaseRequestCodec.decode(buffer);
+
+                assertEquals(encodedLength, buffer.position());
+                assertEquals(validator.check(ticketPurchaseRequest), validator.check(decoded));
+                assertEquals(ticketPurchaseRequest.accountId(), decoded.accountId());
+                assertEquals(ticketPurchaseRequest.discountCode(), decoded.discountCode());
+        }
+
+        @Test
+        void testCountsBeyondTheIntRangeAreBoundedSoTheTallyCannotWrap() {
+                ByteBuffer buffer = ByteBuffer.allocate(64);
+                buffer.putLong(1);
+                buffer.put((byte) ((1 << Type.ADULT.ordinal()) | (1 << Type.CHILD.ordinal())));
+                TicketPurchaseRequestCodec.putVarint(buffer, TicketPurchaseRequestCodec.zigZag(Long.MAX_VALUE / 2 + 1));
+                TicketPurchaseRequestCodec.putVarint(buffer, TicketPurchaseRequestCodec.zigZag(Long.MAX_VALUE / 2 + 1));
+                TicketPurchaseRequestView view = new TicketPurchaseRequestView().wrap(buffer, 0);
+
+                PurchaseTally tally = ticketPricingEngine.tallyEncoded(view, new PurchaseTally());
+
+                assertEquals(Integer.MAX_VALUE, view.tickets(Type.ADULT));
+                assertEquals(2L * Integer.MAX_VALUE, tally.getTotalTickets());
+                assertEquals(ValidationError.CANNOT_PURCHASE_MORE_THAN_20_TICKETS.bit(),
+                                validator.checkEncoded(view, tally));
+        }
+
+        @Test
+        void testEncodingIsCompact() {
+                ByteBuffer buffer = ByteBuffer.allocate(64);
+                TicketPurchaseRequestCodec.encode(request(1, new TicketTypeRequest(Type.ADULT, 2),
+                                new TicketTypeRequest(Type.CHILD, 2), new TicketTypeRequest(Type.INFANT, 1)), buffer);
+
+                assertEquals(12, buffer.position());
+        }
+
+        @Test
+        void testViewIsReusedAcrossMessagesInOneBuffer() {
+                ByteBuffer buffer = ByteBuffer.allocate(128).order(ByteOrder.LITTLE_ENDIAN);
+                TicketPurchaseRequestCodec.encode(request(1, new TicketTypeRequest(Type.ADULT, 2)), buffer);
+                int second = buffer.position();
+                TicketPurchaseRequestCodec.encode(request(2, new TicketTypeRequest(Type.CHILD, 5)), buffer);
+                TicketPurchaseRequestView view = new TicketPurchaseRequestView();
+
+                view.wrap(buffer, 0);
+                assertEquals(1, view.accountId());
+                assertEquals(2, view.tickets(Type.ADULT));
+
+                view.wrap(buffer, second);
+                assertEquals(2, view.accountId());
+                assertFalse(view.hasTickets(Type.ADULT));
+                assertTrue(view.hasTickets(Type.CHILD));
+                assertEquals(5, view.tickets(Type.CHILD));
+                assertNull(view.discountCode());
+        }
+
+        @Test
+        void testTruncatedOrUnknownEncodingIsRejected() {
+                ByteBuffer buffer = ByteBuffer.allocate(64);
+                TicketPurchaseRequestCodec.encode(new TicketPurchaseRequest(1, new TicketTypeRequest[] {
+                                new TicketTypeRequest(Type.ADULT, 200) }, "CODE"), buffer);
+                TicketPurchaseRequestView view = new TicketPurchaseRequestView();
+
+                for (int limit = 0; limit < buffer.position(); limit++) {
+                        ByteBuffer truncated = buffer.duplicate().limit(limit);
+                        assertThrows(IllegalArgumentException.class, () -> view.wrap(truncated, 0));
+                }
+                buffer.put(8, (byte) 0x40);
+                assertThrows(IllegalArgumentException.class, () -> view.wrap(buffer, 0));
+        }
+
+        @Test
+        void testEncodingThatDoesNotFitOverflows() {
+                assertThrows(BufferOverflowException.class, () -> TicketPurchaseRequestCodec
+                                .encode(request(1, new TicketTypeRequest(Type.ADULT, 1)), ByteBuffer.allocate(9)));
+        }
+
+}
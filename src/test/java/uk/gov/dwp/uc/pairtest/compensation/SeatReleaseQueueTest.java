@@ -0,0 +1,121 @@
+package uk.gov.dwp.uc.pairtest.compensation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetricsListener;
+import uk.gov.dwp.uc.pairtest.seating.InMemorySeatInventory;
+import uk.gov.dwp.uc.pairtest.seating.ScreeningSeatReservations;
+
+public class SeatReleaseQueueTest {
+
+        private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+        @Test
+        void testSeatsAreReleasedWhenPaymentFails() throws Exception {
+                InMemorySeatInventory inventory = new InMemorySeatInventory();
+                inventory.addScreening(1, 2, 10);
+                ScreeningSeatReservations reservations = inventory.forScreening(1);
+                CountDownLatch released = new CountDownLatch(1);
+                PurchaseMetrics purchaseMetrics = new PurchaseMetrics() {
+                        @Override
+                        public void onSeatsReleased(int seats, long heldNanos) {
+                                super.onSeatsReleased(seats, heldNanos);
+                                released.countDown();
+                        }
+                };
+                try (SeatReleaseQueue seatReleaseQueue = new SeatReleaseQueue(reservations, purchaseMetrics, 16, MILLI,
+                                10 * MILLI, 3)) {
+                        TicketService ticketService = TicketServiceImpl.builder()
+                                        .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                        .seatReservationService(reservations)
+                                        .ticketPaymentService((accountId, totalAmountToPay) -> {
+                                                throw new IllegalStateException("Card declined");
+                                        })
+                                        .seatCompensation(seatReleaseQueue)
+                                        .build();
+
+                        assertThrows(IllegalStateException.class, () -> ticketService.purchaseTickets(
+                                        new TicketPurchaseRequest(1, new TicketTypeRequest[] {
+                                                        new TicketTypeRequest(Type.ADULT, 2),
+                                                        new TicketTypeRequest(Type.CHILD, 3) })));
+
+                        assertTrue(released.await(5, TimeUnit.SECONDS));
+                        assertEquals(20, inventory.getScreening(1).availableSeats());
+                        assertEquals(5, purchaseMetrics.getSeatsReleased());
+                        assertEquals(1, purchaseMetrics.getUnpaidSeatHolds().getCount());
+                        assertEquals(0, seatReleaseQueue.getPending());
+                }
+        }
+
+        @Test
+        void testFailedReleaseIsRetriedUntilItSucceeds() throws Exception {
+                AtomicInteger attempts = new AtomicInteger();
+                CountDownLatch released = new CountDownLatch(1);
+                try (SeatReleaseQueue seatReleaseQueue = new SeatReleaseQueue((accountId, totalSeatsToRelease) -> {
+                        if (attempts.incrementAndGet() < 3) {
+                                throw new IllegalStateException("Seat service unavailable");
+                        }
+                }, PurchaseMetricsListener.NOOP, 16, MILLI, 10 * MILLI, 5)) {
+                        seatReleaseQueue.releaseSeats(1, 2, System.nanoTime(), released::countDown);
+
+                        assertTrue(released.await(5, TimeUnit.SECONDS));
+                        assertEquals(3, attempts.get());
+                }
+        }
+
+        @Test
+        void testReleaseIsAbandonedAfterTheLastAttempt() throws Exception {
+                AtomicInteger attempts = new AtomicInteger();
+                CountDownLatch abandoned = new CountDownLatch(1);
+                PurchaseMetrics purchaseMetrics = new PurchaseMetrics() {
+                        @Override
+                        public void onSeatReleaseAbandoned(int seats) {
+                                super.onSeatReleaseAbandoned(seats);
+                                abandoned.countDown();
+                        }
+                };
+                try (SeatReleaseQueue seatReleaseQueue = new SeatReleaseQueue((accountId, totalSeatsToRelease) -> {
+                        attempts.incrementAndGet();
+                        throw new IllegalStateException("Seat service unavailable");
+                }, purchaseMetrics, 16, MILLI, 10 * MILLI, 4)) {
+                        seatReleaseQueue.releaseSeats(1, 3, System.nanoTime(), null);
+
+                        assertTrue(abandoned.await(5, TimeUnit.SECONDS));
+                        assertEquals(4, attempts.get());
+                        assertEquals(3, purchaseMetrics.getSeatsAbandoned());
+                        assertEquals(0, seatReleaseQueue.getPending());
+                }
+        }
+
+        @Test
+        void testThrowingCallbackDoesNotStopLaterReleases() throws Exception {
+                CountDownLatch released = new CountDownLatch(1);
+                try (SeatReleaseQueue seatReleaseQueue = new SeatReleaseQueue((accountId, totalSeatsToRelease) -> {
+                }, PurchaseMetricsListener.NOOP, 16, MILLI, 10 * MILLI, 3)) {
+                        seatReleaseQueue.releaseSeats(1, 2, System.nanoTime(), () -> {
+                                throw new IllegalStateException("Journal closed");
+                        });
+                        seatReleaseQueue.releaseSeats(2, 2, System.nanoTime(), released::countDown);
+
+                        assertTrue(released.await(5, TimeUnit.SECONDS));
+                        assertEquals(1, seatReleaseQueue.getCallbackFailures());
+                        assertEquals(0, seatReleaseQueue.getPending());
+                }
+        }
+
+}
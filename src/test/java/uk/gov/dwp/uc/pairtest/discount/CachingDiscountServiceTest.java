@@ -0,0 +1,147 @@
+package uk.gov.dwp.uc.pairtest.discount;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Ticker;
+
+import thirdparty.discount.Discount;
+import thirdparty.discount.DiscountService;
+import thirdparty.discount.exception.InvalidDiscountCodeException;
+
+public class CachingDiscountServiceTest {
+
+        private final AtomicInteger remoteCalls = new AtomicInteger();
+        private final AtomicLong nanos = new AtomicLong();
+        private final Ticker ticker = new Ticker() {
+                @Override
+                public long read() {
+                        return nanos.get();
+                }
+        };
+
+        private final DiscountService remoteDiscountService = (accountId, discountCode) -> {
+                remoteCalls.incrementAndGet();
+                if (discountCode.startsWith("BAD")) {
+                        throw new InvalidDiscountCodeException(discountCode);
+                }
+                return new Discount(10);
+        };
+
+        @Test
+        void testRepeatedLookupsAreServedFromTheCache() {
+                DiscountService discountService = new CachingDiscountService(remoteDiscountService, 10,
+                                Duration.ofMinutes(1), ticker);
+
+                assertEquals(new Discount(10), discountService.getDiscountPercentage(1, "PROMO"));
+                assertEquals(new Discount(10), discountService.getDiscountPercentage(1, "PROMO"));
+                assertEquals(1, remoteCalls.get());
+
+                discountService.getDiscountPercentage(2, "PROMO");
+                assertEquals(2, remoteCalls.get());
+        }
+
+        @Test
+        void testEntriesExpireAfterTimeToLive() {
+                DiscountService discountService = new CachingDiscountService(remoteDiscountService, 10,
+                                Duration.ofMinutes(1), ticker);
+
+                discountService.getDiscountPercentage(1, "PROMO");
+                nanos.addAndGet(Duration.ofSeconds(59).toNanos());
+                discountService.getDiscountPercentage(1, "PROMO");
+                assertEquals(1, remoteCalls.get());
+
+                nanos.addAndGet(Duration.ofSeconds(2).toNanos());
+                discountService.getDiscountPercentage(1, "PROMO");
+                assertEquals(2, remoteCalls.get());
+        }
+
+        @Test
+        void testCacheIsBoundedInSize() {
+                DiscountService discountService = new CachingDiscountService(remoteDiscountService, 2,
+                                Duration.ofMinutes(1), ticker);
+
+                for (int accountId = 1; accountId <= 3; accountId++) {
+                        discountService.getDiscountPercentage(accountId, "PROMO");
+                }
+                discountService.getDiscountPercentage(1, "PROMO");
+
+                assertEquals(4, remoteCalls.get());
+        }
+
+        @Test
+        void testInvalidDiscountCodesAreCachedButEachCallerGetsItsOwnException() {
+                DiscountService discountService = new CachingDiscountService(remoteDiscountService, 10,
+                                Duration.ofMinutes(1), ticker);
+
+                InvalidDiscountCodeException first = assertThrows(InvalidDiscountCodeException.class,
+                                () -> discountService.getDiscountPercentage(1, "BAD1"));
+                InvalidDiscountCodeException second = assertThrows(InvalidDiscountCodeException.class,
+                                () -> discountService.getDiscountPercentage(1, "BAD1"));
+
+                assertNotSame(first, second);
+                assertEquals("BAD1", second.getMessage());
+                assertEquals(0, second.getStackTrace().length);
+                assertEquals(1, remoteCalls.get());
+        }
+
+        @Test
+        void testOtherFailuresAreNotCached() {
+                AtomicInteger calls = new AtomicInteger();
+                DiscountService discountService = new CachingDiscountService((accountId, discountCode) -> {
+                        if (calls.incrementAndGet() == 1) {
+                                throw new IllegalStateException("Timed out");
+                        }
+                        return new Discount(5);
+                }, 10, Duration.ofMinutes(1), ticker);
+
+                assertThrows(IllegalStateException.class, () -> discountService.getDiscountPercentage(1, "PROMO"));
+                assertEquals(new Discount(5), discountService.getDiscountPercentage(1, "PROMO"));
+        }
+
+        @Test
+        void testConcurrentMissesShareOneRemoteCall() throws Exception {
+                CountDownLatch release = new CountDownLatch(1);
+                DiscountService discountService = new CachingDiscountService((accountId, discountCode) -> {
+                        remoteCalls.incrementAndGet();
+                        try {
+                                release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        return new Discount(15);
+                }, 10, Duration.ofMinutes(1), ticker);
+
+                ExecutorService executor = Executors.newFixedThreadPool(8);
+                try {
+                        List<Future<Discount>> lookups = new ArrayList<>();
+                        for (int i = 0; i < 8; i++) {
+                                lookups.add(executor.submit(() -> discountService.getDiscountPercentage(1, "PROMO")));
+                        }
+                        Thread.sleep(50);
+                        release.countDown();
+                        for (Future<Discount> lookup : lookups) {
+                                assertEquals(new Discount(15), lookup.get(5, TimeUnit.SECONDS));
+                        }
+                } finally {
+                        executor.shutdownNow();
+                }
+
+                assertEquals(1, remoteCalls.get());
+        }
+
+}
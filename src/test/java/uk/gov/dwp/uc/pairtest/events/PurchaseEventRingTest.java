@@ -0,0 +1,302 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+import uk.gov.dwp.uc.pairtest.pricing.PurchaseTally;
+import uk.gov.dwp.uc.pairtest.pricing.TicketPricingEngine;
+
+public class PurchaseEventRingTest {
+
+        private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+        private final PurchaseTally tally = new TicketPricingEngine().tally(new TicketPurchaseRequest(1,
+                        new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                                        new TicketTypeRequest(Type.CHILD, 1) }),
+                        PurchaseTally.scratch());
+
+        @TempDir
+        Path directory;
+
+        @Test
+        void testEveryPurchaseOutcomeReachesTheSinks() throws Exception {
+                InMemoryPurchaseEventSink sink = new InMemoryPurchaseEventSink();
+                TicketService ticketService;
+                try (PurchaseEventRing ring = new PurchaseEventRing(64, 16, List.of(sink))) {
+                        ticketService = TicketServiceImpl.builder()
+                                        .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                        .seatReservationService((accountId, totalSeats) -> {
+                                                if (accountId == 2) {
+                                                        throw new SeatsUnavailableException("Sold out");
+                                                }
+                                        })
+                                        .ticketPaymentService((accountId, totalCost) -> {
+                                                if (accountId == 3) {
+                                                        throw new IllegalStateException("Declined");
+                                                }
+                                        })
+                                        .purchaseEventPublisher(ring)
+                                        .build();
+
+                        for (long accountId = 1; accountId <= 3; accountId++) {
+                                TicketPurchaseRequest request = new TicketPurchaseRequest(accountId,
+                                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                                                                new TicketTypeRequest(Type.CHILD, 1) });
+                                try {
+                                        ticketService.purchaseTickets(request);
+                                } catch (RuntimeException e) {
+                                        // The outcome is in the event
+                                }
+                        }
+                        assertThrows(InvalidPurchaseException.class, () -> ticketService.purchaseTickets(
+                                        new TicketPurchaseRequest(4,
+                                                        new TicketTypeRequest[] { new TicketTypeRequest(Type.CHILD, 1) })));
+                        assertThrows(InvalidPurchaseException.class, () -> ticketService.purchaseTickets(null));
+                }
+
+                List<PurchaseEvent> events = sink.getEvents();
+                assertEquals(5, events.size());
+                assertEquals(List.of(PurchaseOutcome.PURCHASED, PurchaseOutcome.SEATS_NOT_RESERVED,
+                                PurchaseOutcome.PAYMENT_FAILED, PurchaseOutcome.REJECTED, PurchaseOutcome.REJECTED),
+                                events.stream().map(PurchaseEvent::getOutcome).toList());
+                for (int i = 0; i < events.size(); i++) {
+                        assertEquals(i, events.get(i).getSequence());
+                }
+                PurchaseEvent purchased = events.get(0);
+                assertEquals(1, purchased.getAccountId());
+                assertEquals(2, purchased.getAdultTickets());
+                assertEquals(1, purchased.getChildTickets());
+                assertEquals(3, purchased.getTotalSeats());
+                assertEquals(50, purchased.getTotalCost());
+                assertEquals(EnumSet.of(ValidationError.CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET),
+                                events.get(3).getValidationErrors());
+                assertEquals(0, events.get(4).getAccountId());
+                assertEquals(EnumSet.of(ValidationError.TICKETPURCHASEREQUEST_CANNOT_BE_NULL),
+                                events.get(4).getValidationErrors());
+        }
+
+        @Test
+        void testOversizedRejectedRequestIsPublishedWithSaturatedTotals() throws Exception {
+                InMemoryPurchaseEventSink sink = new InMemoryPurchaseEventSink();
+                try (PurchaseEventRing ring = new PurchaseEventRing(64, 16, List.of(sink))) {
+                        TicketService ticketService = TicketServiceImpl.builder()
+                                        .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                        .seatReservationService((accountId, totalSeats) -> {
+                                        })
+                                        .ticketPaymentService((accountId, totalCost) -> {
+                                        })
+                                        .purchaseEventPublisher(ring)
+                                        .build();
+
+                        assertThrows(InvalidPurchaseException.class, () -> ticketService.purchaseTickets(
+                                        new TicketPurchaseRequest(1, new TicketTypeRequest[] {
+                                                        new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE),
+                                                        new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE) })));
+                }
+
+                List<PurchaseEvent> events = sink.getEvents();
+                assertEquals(1, events.size());
+                assertEquals(PurchaseOutcome.REJECTED, events.get(0).getOutcome());
+                assertEquals(Integer.MAX_VALUE, events.get(0).getAdultTickets());
+                assertEquals(Integer.MAX_VALUE, events.get(0).getTotalSeats());
+                assertEquals(0, events.get(0).getTotalCost());
+        }
+
+        @Test
+        void testFullRingDropsAndCountsEventsInsteadOfWaiting() throws Exception {
+                CountDownLatch release = new CountDownLatch(1);
+                InMemoryPurchaseEventSink sink = new InMemoryPurchaseEventSink();
+                PurchaseEventSink blockingSink = event -> {
+                        try {
+                                release.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                };
+                PurchaseEventRing ring = new PurchaseEventRing(8, 4, List.of(blockingSink, sink));
+
+                for (int accountId = 1; accountId <= 100; accountId++) {
+                        ring.publish(PurchaseOutcome.PURCHASED, accountId, 0, tally, 50);
+                }
+                assertEquals(8, ring.getPublished());
+                assertEquals(92, ring.getDropped());
+
+                release.countDown();
+                assertTrue(sink.awaitEvents(8, TIMEOUT));
+                // Freed slots take events again
+                ring.publish(PurchaseOutcome.PURCHASED, 101, 0, tally, 50);
+                ring.close();
+
+                List<PurchaseEvent> events = sink.getEvents();
+                assertEquals(9, events.size());
+                assertEquals(8, events.get(7).getAccountId());
+                assertEquals(101, events.get(8).getAccountId());
+                assertEquals(9, ring.getDrained());
+        }
+
+        @Test
+        void testEventsFromManyThreadsArriveInSequenceOrder() throws Exception {
+                InMemoryPurchaseEventSink sink = new InMemoryPurchaseEventSink();
+                int threads = 4;
+                int eventsPerThread = 2_000;
+                try (PurchaseEventRing ring = new PurchaseEventRing(1 << 14, 64, List.of(sink))) {
+                        List<Thread> publishers = new ArrayList<>();
+                        for (int thread = 0; thread < threads; thread++) {
+                                long accountId = thread + 1;
+                                publishers.add(new Thread(() -> {
+                                        for (int i = 0; i < eventsPerThread; i++) {
+                                                ring.publish(PurchaseOutcome.PURCHASED, accountId, 0, tally, i);
+                                        }
+                                }));
+                        }
+                        publishers.forEach(Thread::start);
+                        for (Thread publisher : publishers) {
+                                publisher.join();
+                        }
+                        assertEquals(0, ring.getDropped());
+                }
+
+                List<PurchaseEvent> events = sink.getEvents();
+                assertEquals(threads * eventsPerThread, events.size());
+                int[] lastCostByAccount = new int[threads + 1];
+                Arrays.fill(lastCostByAccount, -1);
+                for (int i = 0; i < events.size(); i++) {
+                        PurchaseEvent event = events.get(i);
+                        assertEquals(i, event.getSequence());
+                        // Each thread's events keep the order it published them in
+                        int account = (int) event.getAccountId();
+                        assertEquals(lastCostByAccount[account] + 1, event.getTotalCost());
+                        lastCostByAccount[account] = event.getTotalCost();
+                }
+        }
+
+        @Test
+        void testEveryEventIsEitherDrainedOrDroppedWhenClosingUnderLoad() throws Exception {
+                for (int round = 0; round < 20; round++) {
+                        InMemoryPurchaseEventSink sink = new InMemoryPurchaseEventSink();
+                        PurchaseEventRing ring = new PurchaseEventRing(1024, 64, List.of(sink));
+                        AtomicLong attempts = new AtomicLong();
+                        AtomicBoolean stop = new AtomicBoolean();
+                        List<Thread> publishers = new ArrayList<>();
+                        for (int thread = 0; thread < 4; thread++) {
+                                publishers.add(new Thread(() -> {
+                                        while (!stop.get()) {
+                                                ring.publish(PurchaseOutcome.PURCHASED, 1, 0, tally, 50);
+                                                attempts.incrementAndGet();
+                                        }
+                                }));
+                        }
+                        publishers.forEach(Thread::start);
+                        Thread.sleep(2);
+                        ring.close();
+                        stop.set(true);
+                        for (Thread publisher : publishers) {
+                                publisher.join();
+                        }
+
+                        assertEquals(ring.getPublished(), sink.getEvents().size());
+                        assertEquals(ring.getPublished(), ring.getDrained());
+                        assertEquals(attempts.get(), ring.getPublished() + ring.getDropped());
+                }
+        }
+
+        @Test
+        void testFailingSinkIsCountedAndDoesNotStopTheOthers() throws Exception {
+                InMemoryPurchaseEventSink sink = new InMemoryPurchaseEventSink();
+                PurchaseEventSink failingSink = event -> {
+                        throw new IOException("Disk full");
+                };
+                try (PurchaseEventRing ring = new PurchaseEventRing(16, 4, List.of(failingSink, sink))) {
+                        for (int accountId = 1; accountId <= 10; accountId++) {
+                                ring.publish(PurchaseOutcome.PURCHASED, accountId, 0, tally, 50);
+                        }
+                        assertTrue(sink.awaitEvents(10, TIMEOUT));
+                        assertEquals(10, ring.getSinkFailures());
+                }
+        }
+
+        @Test
+        void testRollingFileKeepsTheNewestFiles() throws Exception {
+                int events = 200;
+                try (PurchaseEventRing ring = new PurchaseEventRing(256, 32,
+                                List.of(new RollingFilePurchaseEventSink(directory, 4096, 3)))) {
+                        for (int accountId = 1; accountId <= events; accountId++) {
+                                ring.publish(PurchaseOutcome.PURCHASED, accountId, 0, tally, 50);
+                        }
+                }
+
+                List<Path> files = RollingFilePurchaseEventSink.files(directory);
+                assertEquals(3, files.size());
+                List<String> lines = new ArrayList<>();
+                for (Path file : files) {
+                        assertTrue(Files.size(file) <= 4096);
+                        lines.addAll(Files.readAllLines(file));
+                }
+                // What is left is the end of the stream, without gaps
+                long firstSequence = events - lines.size();
+                for (int i = 0; i < lines.size(); i++) {
+                        assertTrue(lines.get(i).startsWith("{\"sequence\":" + (firstSequence + i) + ","), lines.get(i));
+                }
+                assertTrue(lines.get(lines.size() - 1).endsWith(
+                                "\"accountId\":200,\"outcome\":\"PURCHASED\",\"validationErrors\":[],\"adultTickets\":2,"
+                                                + "\"childTickets\":1,\"infantTickets\":0,\"totalSeats\":3,\"totalCost\":50}"));
+
+                // A new sink carries on after the files already there
+                try (RollingFilePurchaseEventSink sink = new RollingFilePurchaseEventSink(directory, 4096, 3)) {
+                        PurchaseEvent event = new PurchaseEvent();
+                        event.set(events, 0, 201, PurchaseOutcome.REJECTED,
+                                        ValidationError.ACCOUNT_TICKET_QUOTA_EXCEEDED.bit(), 2, 1, 0, 3, 50);
+                        sink.accept(event);
+                }
+                assertTrue(RollingFilePurchaseEventSink.files(directory).get(3).getFileName().toString()
+                                .compareTo(files.get(2).getFileName().toString()) > 0);
+        }
+
+        @Test
+        void testPublishingDoesNotAllocate() throws Exception {
+                com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                                .getThreadMXBean();
+                try (PurchaseEventRing ring = new PurchaseEventRing(1024, 256, List.of(event -> {
+                }))) {
+                        for (int i = 0; i < 100_000; i++) {
+                                ring.publish(PurchaseOutcome.PURCHASED, i, 0, tally, 50);
+                        }
+
+                        long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+                        for (int i = 0; i < 100_000; i++) {
+                                ring.publish(PurchaseOutcome.PURCHASED, i, 0, tally, 50);
+                        }
+                        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+                        // Allow for the bean's own bookkeeping, far less than a byte an event
+                        assertTrue(allocated < 1024, allocated + " bytes allocated");
+                }
+        }
+
+}
@@ -0,0 +1,51 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+public class FingerprintWindowTest {
+
+        private final FingerprintWindow fingerprintWindow = new FingerprintWindow(1024, Duration.ofNanos(100));
+
+        @Test
+        void testFingerprintIsLiveUntilItExpires() {
+                assertTrue(fingerprintWindow.tryClaim(42, 0));
+                assertFalse(fingerprintWindow.tryClaim(42, 99));
+                assertTrue(fingerprintWindow.tryClaim(42, 100));
+        }
+
+        @Test
+        void testReleasedFingerprintCanBeClaimedAgain() {
+                fingerprintWindow.tryClaim(42, 0);
+                fingerprintWindow.release(42);
+
+                assertTrue(fingerprintWindow.tryClaim(42, 1));
+        }
+
+        @Test
+        void testOldestFingerprintIsEvictedWhenItsSlotsAreFull() {
+                // Same stripe and home slot, so they compete for the same probe window
+                long home = 7;
+                long stride = fingerprintWindow.capacity() / 64;
+                for (int i = 0; i <= FingerprintWindow.MAX_PROBES; i++) {
+                        assertTrue(fingerprintWindow.tryClaim(home + i * stride, i));
+                }
+
+                assertTrue(fingerprintWindow.tryClaim(home, 50));
+                assertFalse(fingerprintWindow.tryClaim(home + FingerprintWindow.MAX_PROBES * stride, 50));
+        }
+
+        @Test
+        void testCapacityIsFixed() {
+                assertEquals(1024, fingerprintWindow.capacity());
+                assertEquals(1 << 20, new FingerprintWindow(3_000_000 / 2, Duration.ofSeconds(1)).capacity());
+                assertThrows(IllegalArgumentException.class, () -> new FingerprintWindow(16, Duration.ofSeconds(1)));
+        }
+
+}
@@ -0,0 +1,147 @@
+package uk.gov.dwp.uc.pairtest.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+public class IdempotentTicketServiceTest {
+
+        private final AtomicLong nanos = new AtomicLong(1);
+        private SeatReservationService mockedSeatReservationService;
+        private TicketPaymentService mockedTicketPaymentService;
+        private IdempotentTicketService ticketService;
+
+        @BeforeEach
+        void beforeEach() {
+                mockedSeatReservationService = mock(SeatReservationService.class);
+                mockedTicketPaymentService = mock(TicketPaymentService.class);
+                ticketService = new IdempotentTicketService(
+                                new TicketServiceImpl(new TicketPurchaseRequestValidator(),
+                                                mockedSeatReservationService, mockedTicketPaymentService),
+                                new FingerprintWindow(4096, Duration.ofMinutes(5)), nanos::get);
+        }
+
+        private static TicketPurchaseRequest request(long accountId, TicketTypeRequest... ticketTypeRequests) {
+                return new TicketPurchaseRequest(accountId, ticketTypeRequests);
+        }
+
+        @Test
+        void testRetryOfTheSamePurchaseIsNotRepeated() {
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2),
+                                new TicketTypeRequest(Type.CHILD, 1)));
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.CHILD, 1),
+                                new TicketTypeRequest(Type.ADULT, 1), new TicketTypeRequest(Type.ADULT, 1)));
+
+                verify(mockedSeatReservationService, times(1)).reserveSeat(1, 3);
+                verify(mockedTicketPaymentService, times(1)).makePayment(1, 50);
+                assertEquals(1, ticketService.getDuplicates());
+        }
+
+        @Test
+        void testDifferentPurchasesAreNotDuplicates() {
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2)));
+                ticketService.purchaseTickets(request(2, new TicketTypeRequest(Type.ADULT, 2)));
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 3)));
+
+                verify(mockedTicketPaymentService).makePayment(1, 40);
+                verify(mockedTicketPaymentService).makePayment(2, 40);
+                verify(mockedTicketPaymentService).makePayment(1, 60);
+                assertEquals(0, ticketService.getDuplicates());
+        }
+
+        @Test
+        void testPurchaseCanBeRepeatedOnceTheWindowHasPassed() {
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2)));
+                nanos.addAndGet(Duration.ofMinutes(5).toNanos());
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2)));
+
+                verify(mockedTicketPaymentService, times(2)).makePayment(1, 40);
+        }
+
+        @Test
+        void testFailedPurchaseCanBeRetried() {
+                doThrow(new IllegalStateException("Gateway timeout")).doNothing()
+                                .when(mockedTicketPaymentService).makePayment(1, 40);
+
+                assertThrows(IllegalStateException.class,
+                                () -> ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2))));
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2)));
+
+                verify(mockedTicketPaymentService, times(2)).makePayment(1, 40);
+        }
+
+        @Test
+        void testRepeatWhileTheFirstAttemptIsRunningGetsItsOutcome() throws Exception {
+                CountDownLatch paymentStarted = new CountDownLatch(1);
+                CountDownLatch failPayment = new CountDownLatch(1);
+                RuntimeException failure = new IllegalStateException("Gateway timeout");
+                doAnswer(invocation -> {
+                        paymentStarted.countDown();
+                        failPayment.await(5, TimeUnit.SECONDS);
+                        throw failure;
+                }).doNothing().when(mockedTicketPaymentService).makePayment(1, 40);
+
+                CompletableFuture<Void> first = CompletableFuture.runAsync(
+                                () -> ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2))));
+                assertTrue(paymentStarted.await(5, TimeUnit.SECONDS));
+                CompletableFuture<Void> repeat = CompletableFuture.runAsync(
+                                () -> ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2))));
+                while (ticketService.getDuplicates() == 0) {
+                        Thread.sleep(1);
+                }
+                failPayment.countDown();
+
+                assertSame(failure, assertThrows(CompletionException.class, first::join).getCause());
+                assertSame(failure, assertThrows(CompletionException.class, repeat::join).getCause());
+                verify(mockedTicketPaymentService, times(1)).makePayment(1, 40);
+
+                // The failure was forgotten, so the next retry goes through
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2)));
+                verify(mockedTicketPaymentService, times(2)).makePayment(1, 40);
+        }
+
+        @Test
+        void testInvalidPurchaseIsStillRejected() {
+                assertThrows(InvalidPurchaseException.class, () -> ticketService.purchaseTickets(null));
+                assertThrows(InvalidPurchaseException.class,
+                                () -> ticketService.purchaseTickets(request(0, new TicketTypeRequest(Type.ADULT, 2))));
+                assertThrows(InvalidPurchaseException.class,
+                                () -> ticketService.purchaseTickets(request(0, new TicketTypeRequest(Type.ADULT, 2))));
+        }
+
+        @Test
+        void testIdempotencyKeyAllowsTheSamePurchaseTwiceOnPurpose() {
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2)), "first");
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2)), "second");
+                ticketService.purchaseTickets(request(1, new TicketTypeRequest(Type.ADULT, 2)), "second");
+
+                verify(mockedTicketPaymentService, times(2)).makePayment(1, 40);
+                assertEquals(1, ticketService.getDuplicates());
+        }
+
+}
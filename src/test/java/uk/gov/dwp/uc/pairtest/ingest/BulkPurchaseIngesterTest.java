@@ -0,0 +1,194 @@
+package uk.gov.dwp.uc.pairtest.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import thirdparty.discount.Discount;
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.discount.PurchaseDiscounts;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+
+public class BulkPurchaseIngesterTest {
+
+        private static final String INPUT = "1,ADULT=2,CHILD=1\n"
+                        + "2,CHILD=1\r\n"
+                        + "\n"
+                        + "3,ADULT=1,DISCOUNT=SCHOOLS\n"
+                        + "not a purchase\n"
+                        + "4,ADULT=2,INFANT=3\n"
+                        + "5,ADULT=1";
+
+        private static final String RESULTS = "0,ACCEPTED\n"
+                        + "18,REJECTED,CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET_WITHOUT_ADULT_TICKET\n"
+                        + "30,ACCEPTED\n"
+                        + "57,REJECTED,MALFORMED_LINE\n"
+                        + "72,REJECTED,CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS\n"
+                        + "91,ACCEPTED\n";
+
+        @TempDir
+        Path directory;
+
+        private ExecutorService executor;
+        private List<TicketPurchaseRequest> purchases;
+        private TicketService ticketService;
+
+        @BeforeEach
+        void beforeEach() {
+                executor = Executors.newFixedThreadPool(2);
+                purchases = new ArrayList<>();
+                TicketPurchaseRequestValidator validator = new TicketPurchaseRequestValidator();
+                ticketService = request -> {
+                        validator.validate(request);
+                        purchases.add(request);
+                };
+        }
+
+        @AfterEach
+        void afterEach() {
+                executor.shutdownNow();
+        }
+
+        private BulkPurchaseIngester ingester(TicketService ticketService, int windowSize) {
+                return new BulkPurchaseIngester(ticketService, executor, 2, 2, windowSize);
+        }
+
+        private Path write(String name, String content) throws IOException {
+                return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = { 32, 33, 64, BulkPurchaseIngester.DEFAULT_WINDOW_SIZE })
+        void testEveryLineGetsAResultInFileOrder(int windowSize) throws Exception {
+                Path input = write("input.csv", INPUT);
+                Path results = directory.resolve("results.csv");
+                Path checkpoint = directory.resolve("checkpoint");
+
+                IngestSummary summary = ingester(ticketService, windowSize).ingest(input, results, checkpoint);
+
+                assertEquals(RESULTS, Files.readString(results));
+                assertEquals(List.of(1L, 3L, 5L), purchases.stream().map(TicketPurchaseRequest::accountId).toList());
+                assertEquals("SCHOOLS", purchases.get(1).discountCode());
+                assertEquals(new IngestSummary(6, 3, 3, 0, new IngestCheckpoint(INPUT.length(), RESULTS.length())),
+                                summary);
+                assertEquals(summary.checkpoint(), IngestCheckpoint.read(checkpoint));
+        }
+
+        @Test
+        void testEachParsedLineIsValidatedOnceByTheService() throws Exception {
+                Path input = write("input.csv", INPUT);
+                PurchaseMetrics purchaseMetrics = new PurchaseMetrics();
+                TicketService ticketServiceImpl = TicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator(purchaseMetrics))
+                                .seatReservationService((accountId, totalSeats) -> {
+                                })
+                                .ticketPaymentService((accountId, totalCost) -> {
+                                })
+                                .purchaseDiscounts(new PurchaseDiscounts((accountId, discountCode) -> new Discount(10)))
+                                .build();
+
+                ingester(ticketServiceImpl, 64).ingest(input, directory.resolve("results.csv"),
+                                directory.resolve("checkpoint"));
+
+                assertEquals(RESULTS, Files.readString(directory.resolve("results.csv")));
+                assertEquals(3, purchaseMetrics.getValidRequests());
+                assertEquals(1, purchaseMetrics
+                                .getValidationErrorCount(ValidationError.CANNOT_PURCHASE_MORE_INFANTS_THAN_ADULTS));
+        }
+
+        @Test
+        void testDownstreamRejectionsAndFailuresAreRecorded() throws Exception {
+                Path input = write("input.csv", "1,ADULT=1\n2,ADULT=1\n3,ADULT=1\n");
+                Path results = directory.resolve("results.csv");
+                TicketService failingTicketService = request -> {
+                        if (request.accountId() == 2) {
+                                throw InvalidPurchaseException.fromMask(ValidationError.DISCOUNT_CODE_IS_NOT_VALID.bit());
+                        }
+                        if (request.accountId() == 3) {
+                                throw new IllegalStateException();
+                        }
+                };
+
+                IngestSummary summary = ingester(failingTicketService, 64).ingest(input, results,
+                                directory.resolve("checkpoint"));
+
+                assertEquals("0,ACCEPTED\n10,REJECTED,DISCOUNT_CODE_IS_NOT_VALID\n20,FAILED,IllegalStateException\n",
+                                Files.readString(results));
+                assertEquals(1, summary.accepted());
+                assertEquals(1, summary.rejected());
+                assertEquals(1, summary.failed());
+        }
+
+        @Test
+        void testIngestResumesFromCheckpointAndDropsResultsWrittenAfterIt() throws Exception {
+                Path input = write("input.csv", INPUT);
+                Path results = write("results.csv", "0,ACCEPTED\n18,REJECTED,CANNOT_PURCHASE_INFANT_OR_CHILD_TICKET"
+                                + "_WITHOUT_ADULT_TICKET\n30,ACCEPT");
+                Path checkpoint = directory.resolve("checkpoint");
+                new IngestCheckpoint(29, RESULTS.indexOf("30,")).write(checkpoint);
+
+                IngestSummary summary = ingester(ticketService, 64).ingest(input, results, checkpoint);
+
+                assertEquals(RESULTS, Files.readString(results));
+                assertEquals(List.of(3L, 5L), purchases.stream().map(TicketPurchaseRequest::accountId).toList());
+                assertEquals(4, summary.lines());
+
+                ingester(ticketService, 64).ingest(input, results, checkpoint);
+                assertEquals(RESULTS, Files.readString(results));
+                assertEquals(2, purchases.size());
+        }
+
+        @Test
+        void testLineLongerThanTheWindowIsAnError() throws Exception {
+                Path input = write("input.csv", "1,ADULT=1\n1234567890,ADULT=1,CHILD=1,INFANT=1\n");
+
+                assertThrows(IOException.class, () -> ingester(ticketService, 16).ingest(input,
+                                directory.resolve("results.csv"), directory.resolve("checkpoint")));
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "", ",ADULT=1", "1,", "1,ADULT", "1,ADULT=", "1,ADULT=x", "1,SENIOR=1",
+                        "1,ADULT=2147483648", "99999999999999999999,ADULT=1", "1,DISCOUNT=A,DISCOUNT=B", "-,ADULT=1" })
+        void testMalformedLinesAreNotParsed(String line) {
+                ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+
+                assertNull(PurchaseLineParser.parse(buffer, 0, buffer.limit()));
+        }
+
+        @Test
+        void testLineIsParsedIntoARequest() {
+                ByteBuffer buffer = ByteBuffer.wrap("xx-7,INFANT=-1,ADULT=20,DISCOUNT=été".getBytes(StandardCharsets.UTF_8));
+
+                TicketPurchaseRequest request = PurchaseLineParser.parse(buffer, 2, buffer.limit());
+
+                assertEquals(-7, request.accountId());
+                assertEquals(List.of(new TicketTypeRequest(Type.INFANT, -1), new TicketTypeRequest(Type.ADULT, 20)),
+                                List.of(request.ticketTypeRequests()));
+                assertEquals("été", request.discountCode());
+        }
+
+}
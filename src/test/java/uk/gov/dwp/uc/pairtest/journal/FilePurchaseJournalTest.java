@@ -0,0 +1,154 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournalRecord.Stage;
+
+public class FilePurchaseJournalTest {
+
+        @TempDir
+        Path directory;
+
+        private static PurchaseJournalRecord record(long purchaseId, Stage stage) {
+                return new PurchaseJournalRecord(purchaseId, 1000 + purchaseId, 2, 1, 1, 3, 50, stage);
+        }
+
+        private List<PurchaseJournalRecord> replay() throws IOException {
+                List<PurchaseJournalRecord> records = new ArrayList<>();
+                PurchaseJournalReader.replay(directory, records::add);
+                return records;
+        }
+
+        @Test
+        void testRecordsAreReplayedInOrderAcrossSegments() throws Exception {
+                List<PurchaseJournalRecord> appended = new ArrayList<>();
+                List<CompletableFuture<Void>> written = new ArrayList<>();
+                try (FilePurchaseJournal journal = new FilePurchaseJournal(directory,
+                                3 * PurchaseJournalRecord.ENCODED_LENGTH, 4)) {
+                        for (int i = 0; i < 10; i++) {
+                                PurchaseJournalRecord record = record(journal.nextPurchaseId(), Stage.STARTED);
+                                appended.add(record);
+                                written.add(journal.append(record));
+                        }
+                        CompletableFuture.allOf(written.toArray(CompletableFuture[]::new)).join();
+                }
+
+                assertEquals(appended, replay());
+                assertEquals(4, PurchaseJournalReader.segments(directory).size());
+        }
+
+        @Test
+        void testTornRecordIsCutOffWhenTheJournalIsReopened() throws Exception {
+                try (FilePurchaseJournal journal = new FilePurchaseJournal(directory, 1 << 20, 8)) {
+                        journal.appendAndWait(record(journal.nextPurchaseId(), Stage.STARTED));
+                        journal.appendAndWait(record(journal.nextPurchaseId(), Stage.STARTED));
+                }
+                Path segment = PurchaseJournalReader.segments(directory).get(0);
+                Files.write(segment, new byte[PurchaseJournalRecord.ENCODED_LENGTH - 1], StandardOpenOption.APPEND);
+
+                try (FilePurchaseJournal journal = new FilePurchaseJournal(directory, 1 << 20, 8)) {
+                        assertEquals(3, journal.nextPurchaseId());
+                        journal.appendAndWait(record(3, Stage.COMPLETED));
+                }
+
+                assertEquals(List.of(record(1, Stage.STARTED), record(2, Stage.STARTED), record(3, Stage.COMPLETED)),
+                                replay());
+        }
+
+        @Test
+        void testReplayStopsAtACorruptRecord() throws Exception {
+                try (FilePurchaseJournal journal = new FilePurchaseJournal(directory, 1 << 20, 8)) {
+                        for (int i = 1; i <= 3; i++) {
+                                journal.appendAndWait(record(i, Stage.STARTED));
+                        }
+                }
+                try (FileChannel channel = FileChannel.open(PurchaseJournalReader.segments(directory).get(0),
+                                StandardOpenOption.WRITE)) {
+                        channel.write(ByteBuffer.wrap(new byte[] { 9 }), PurchaseJournalRecord.ENCODED_LENGTH + 12);
+                }
+
+                assertEquals(List.of(record(1, Stage.STARTED)), replay());
+        }
+
+        @Test
+        void testUnsettledPurchasesAreThoseThatStoppedPartWay() throws Exception {
+                try (FilePurchaseJournal journal = new FilePurchaseJournal(directory, 1 << 20, 8)) {
+                        journal.append(record(1, Stage.STARTED));
+                        journal.append(record(2, Stage.STARTED));
+                        journal.append(record(3, Stage.STARTED));
+                        journal.append(record(4, Stage.STARTED));
+                        journal.append(record(1, Stage.SEATS_RESERVED));
+                        journal.append(record(2, Stage.SEATS_NOT_RESERVED));
+                        journal.append(record(3, Stage.SEATS_RESERVED));
+                        journal.append(record(3, Stage.COMPLETED));
+                        journal.append(record(4, Stage.SEATS_RESERVED));
+                        journal.appendAndWait(record(4, Stage.PAYMENT_FAILED));
+                }
+
+                assertEquals(List.of(record(1, Stage.SEATS_RESERVED), record(4, Stage.PAYMENT_FAILED)),
+                                PurchaseJournalReader.unsettledPurchases(directory));
+        }
+
+        @Test
+        void testAppendAfterCloseFails() throws Exception {
+                FilePurchaseJournal journal = new FilePurchaseJournal(directory, 1 << 20, 8);
+                journal.close();
+
+                CompletionException exception = assertThrows(CompletionException.class,
+                                () -> journal.append(record(1, Stage.STARTED)).join());
+                assertEquals(IllegalStateException.class, exception.getCause().getClass());
+        }
+
+        @Test
+        void testTicketServiceJournalsEachStageOfAPurchase() throws Exception {
+                TicketPaymentService mockedTicketPaymentService = mock(TicketPaymentService.class);
+                doThrow(new IllegalStateException()).when(mockedTicketPaymentService).makePayment(anyLong(), anyInt());
+                try (FilePurchaseJournal journal = new FilePurchaseJournal(directory, 1 << 20, 8)) {
+                        TicketService ticketService = TicketServiceImpl.builder()
+                                        .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                        .seatReservationService(mock(SeatReservationService.class))
+                                        .ticketPaymentService(mockedTicketPaymentService)
+                                        .purchaseJournal(journal)
+                                        .build();
+
+                        assertThrows(IllegalStateException.class, () -> ticketService.purchaseTickets(
+                                        new TicketPurchaseRequest(7, new TicketTypeRequest[] {
+                                                        new TicketTypeRequest(Type.ADULT, 2),
+                                                        new TicketTypeRequest(Type.INFANT, 1) })));
+                }
+
+                PurchaseJournalRecord started = new PurchaseJournalRecord(1, 7, 2, 0, 1, 2, 40, Stage.STARTED);
+                assertEquals(List.of(started, started.withStage(Stage.SEATS_RESERVED),
+                                started.withStage(Stage.PAYMENT_FAILED)), replay());
+                assertEquals(List.of(started.withStage(Stage.PAYMENT_FAILED)),
+                                PurchaseJournalReader.unsettledPurchases(directory));
+        }
+
+}
@@ -0,0 +1,49 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class LatencyHistogramTest {
+
+        @ParameterizedTest
+        @ValueSource(longs = { 0, 1, 31, 32, 33, 1000, 123_456_789, Long.MAX_VALUE })
+        void testValueIsReportedWithinSixPercent(long value) {
+                int bucket = LatencyHistogram.bucketOf(value);
+                long highest = LatencyHistogram.highestValueIn(bucket);
+
+                assertTrue(bucket < LatencyHistogram.BUCKETS);
+                assertTrue(highest >= value);
+                assertTrue(highest - value <= value / 16);
+        }
+
+        @Test
+        void testBucketsAreOrdered() {
+                for (int bucket = 1; bucket < LatencyHistogram.BUCKETS; bucket++) {
+                        assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.highestValueIn(bucket)));
+                        assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.highestValueIn(bucket - 1) + 1));
+                }
+        }
+
+        @Test
+        void testPercentiles() {
+                LatencyHistogram histogram = new LatencyHistogram();
+                for (long value = 1; value <= 1000; value++) {
+                        histogram.record(value * 1000);
+                }
+
+                assertEquals(1000, histogram.getCount());
+                assertEquals(500_500, histogram.getMean(), 0.001);
+                assertEquals(500_000, histogram.valueAtPercentile(50), 500_000 / 16);
+                assertEquals(990_000, histogram.valueAtPercentile(99), 990_000 / 16);
+                assertEquals(1_000_000, histogram.getMax(), 1_000_000 / 16);
+
+                histogram.reset();
+                assertEquals(0, histogram.getCount());
+                assertEquals(0, histogram.valueAtPercentile(99));
+        }
+
+}
@@ -0,0 +1,80 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE;
+import static uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError.CANNOT_PURCHASE_MORE_THAN_20_TICKETS;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+public class PurchaseMetricsTest {
+
+        private PurchaseMetrics purchaseMetrics;
+        private TicketPaymentService mockedTicketPaymentService;
+        private TicketService ticketService;
+
+        @BeforeEach
+        void beforeEach() {
+                purchaseMetrics = new PurchaseMetrics();
+                mockedTicketPaymentService = mock(TicketPaymentService.class);
+                ticketService = TicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator(purchaseMetrics))
+                                .seatReservationService(mock(SeatReservationService.class))
+                                .ticketPaymentService(mockedTicketPaymentService)
+                                .purchaseMetricsListener(purchaseMetrics)
+                                .build();
+        }
+
+        @Test
+        void testCompletedPurchaseRecordsEveryStageAndTicketsSold() {
+                ticketService.purchaseTickets(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                                                new TicketTypeRequest(Type.INFANT, 1) }));
+
+                for (PurchaseStage stage : PurchaseStage.values()) {
+                        assertEquals(1, purchaseMetrics.getStageLatency(stage).getCount());
+                }
+                assertEquals(1, purchaseMetrics.getValidRequests());
+                assertEquals(2, purchaseMetrics.getTicketsSold(Type.ADULT));
+                assertEquals(0, purchaseMetrics.getTicketsSold(Type.CHILD));
+                assertEquals(1, purchaseMetrics.getTicketsSold(Type.INFANT));
+        }
+
+        @Test
+        void testRejectedPurchaseCountsEachValidationError() {
+                assertThrows(InvalidPurchaseException.class, () -> ticketService.purchaseTickets(
+                                new TicketPurchaseRequest(0,
+                                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 21) })));
+
+                assertEquals(1, purchaseMetrics.getValidationErrorCount(ACCOUNTID_CANNOT_BE_ZERO_OR_NEGATIVE));
+                assertEquals(1, purchaseMetrics.getValidationErrorCount(CANNOT_PURCHASE_MORE_THAN_20_TICKETS));
+                assertEquals(1, purchaseMetrics.getStageLatency(PurchaseStage.VALIDATE).getCount());
+                assertEquals(0, purchaseMetrics.getStageLatency(PurchaseStage.RESERVE_SEATS).getCount());
+        }
+
+        @Test
+        void testFailedPaymentIsTimedButSellsNoTickets() {
+                doThrow(new IllegalStateException("Declined")).when(mockedTicketPaymentService).makePayment(1, 20);
+
+                assertThrows(IllegalStateException.class, () -> ticketService.purchaseTickets(
+                                new TicketPurchaseRequest(1,
+                                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 1) })));
+
+                assertEquals(1, purchaseMetrics.getStageLatency(PurchaseStage.MAKE_PAYMENT).getCount());
+                assertEquals(0, purchaseMetrics.getTicketsSold(Type.ADULT));
+        }
+
+}
@@ -0,0 +1,131 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.ZonedDateTime;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetricsListener;
+
+public class PricingRulesTest {
+
+        private static final String STANDARD = "price.ADULT=20\nprice.CHILD=10\nprice.INFANT=0\nmaxTicketsPerPurchase=20\n";
+
+        @TempDir
+        Path directory;
+
+        private static Properties properties(String content) throws IOException {
+                Properties properties = new Properties();
+                properties.load(new StringReader(content));
+                return properties;
+        }
+
+        private static long utcMillis(int hour) {
+                return ZonedDateTime.parse(String.format("2024-03-01T%02d:30:00Z", hour)).toInstant().toEpochMilli();
+        }
+
+        @Test
+        void testPeakPricesApplyInPeakHoursOnly() throws Exception {
+                AtomicLong now = new AtomicLong(utcMillis(11));
+                PricingRules pricingRules = PricingRules.parse(properties(STANDARD
+                                + "peak.hours=12-14, 22-2\npeak.price.ADULT=25\nzone=UTC\n"), now::get);
+
+                assertEquals(20, pricingRules.priceTableNow().priceOf(Type.ADULT));
+                now.set(utcMillis(13));
+                assertEquals(25, pricingRules.priceTableNow().priceOf(Type.ADULT));
+                assertEquals(10, pricingRules.priceTableNow().priceOf(Type.CHILD));
+                now.set(utcMillis(14));
+                assertEquals(20, pricingRules.priceTableNow().priceOf(Type.ADULT));
+                now.set(utcMillis(1));
+                assertEquals(25, pricingRules.priceTableNow().priceOf(Type.ADULT));
+                now.set(utcMillis(2));
+                assertEquals(20, pricingRules.priceTableNow().priceOf(Type.ADULT));
+        }
+
+        @Test
+        void testRulesWithoutPeakHoursUseOneTable() throws Exception {
+                PricingRules pricingRules = PricingRules.parse(properties(STANDARD), () -> {
+                        throw new AssertionError("The clock should not be read");
+                });
+
+                assertSame(pricingRules.priceTableAt(0), pricingRules.priceTableNow());
+                assertEquals(20, pricingRules.getMaxTicketsPerPurchase());
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = { "price.ADULT=20\nprice.CHILD=10\nmaxTicketsPerPurchase=20",
+                        "price.ADULT=20\nprice.CHILD=10\nprice.INFANT=-1\nmaxTicketsPerPurchase=20",
+                        "price.ADULT=twenty\nprice.CHILD=10\nprice.INFANT=0\nmaxTicketsPerPurchase=20",
+                        "price.ADULT=20\nprice.CHILD=10\nprice.INFANT=0\nmaxTicketsPerPurchase=0",
+                        "price.ADULT=20\nprice.CHILD=10\nprice.INFANT=0",
+                        STANDARD + "peak.hours=9",
+                        STANDARD + "peak.hours=9-9",
+                        STANDARD + "peak.hours=24-2",
+                        STANDARD + "zone=Nowhere/Special" })
+        void testInvalidConfigurationIsRejected(String content) {
+                assertThrows(IllegalArgumentException.class, () -> PricingRules.parse(properties(content)));
+        }
+
+        @Test
+        void testReloadSwapsInNewRulesAndKeepsOldRulesOnError() throws Exception {
+                Path path = Files.writeString(directory.resolve("pricing.properties"), STANDARD);
+                ReloadablePricingRules reloadablePricingRules = new ReloadablePricingRules(path);
+                PricingRules original = reloadablePricingRules.currentRules();
+
+                assertFalse(reloadablePricingRules.reloadIfChanged());
+
+                Files.writeString(path, STANDARD.replace("price.ADULT=20", "price.ADULT=30"));
+                Files.setLastModifiedTime(path, FileTime.fromMillis(1));
+                assertTrue(reloadablePricingRules.reloadIfChanged());
+                PricingRules reloaded = reloadablePricingRules.currentRules();
+                assertEquals(30, reloaded.priceTableNow().priceOf(Type.ADULT));
+
+                Files.writeString(path, "price.ADULT=");
+                Files.setLastModifiedTime(path, FileTime.fromMillis(2));
+                assertThrows(IllegalArgumentException.class, reloadablePricingRules::reloadIfChanged);
+                assertSame(reloaded, reloadablePricingRules.currentRules());
+                assertEquals(20, original.priceTableNow().priceOf(Type.ADULT));
+        }
+
+        @Test
+        void testEngineAndValidatorFollowTheRulesInForce() throws Exception {
+                Path path = Files.writeString(directory.resolve("pricing.properties"), STANDARD);
+                ReloadablePricingRules reloadablePricingRules = new ReloadablePricingRules(path);
+                TicketPricingEngine ticketPricingEngine = new TicketPricingEngine(reloadablePricingRules);
+                TicketPurchaseRequestValidator validator = new TicketPurchaseRequestValidator(
+                                PurchaseMetricsListener.NOOP, reloadablePricingRules);
+                TicketPurchaseRequest request = new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 6) });
+
+                assertEquals(120, ticketPricingEngine.tally(request, new PurchaseTally()).getTotalCost());
+                assertEquals(TicketPurchaseRequestValidator.VALID, validator.check(request));
+
+                Files.writeString(path, "price.ADULT=15\nprice.CHILD=10\nprice.INFANT=0\nmaxTicketsPerPurchase=5\n");
+                Files.setLastModifiedTime(path, FileTime.fromMillis(1));
+                reloadablePricingRules.reloadIfChanged();
+
+                assertEquals(90, ticketPricingEngine.tally(request, new PurchaseTally()).getTotalCost());
+                assertEquals(ValidationError.CANNOT_PURCHASE_MORE_THAN_20_TICKETS.bit(), validator.check(request));
+        }
+
+}
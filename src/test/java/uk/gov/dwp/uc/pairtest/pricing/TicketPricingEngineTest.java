@@ -0,0 +1,105 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+
+public class TicketPricingEngineTest {
+
+        private final TicketPricingEngine ticketPricingEngine = new TicketPricingEngine();
+
+        @Test
+        void testTallyOfAllTicketTypes() {
+                PurchaseTally tally = ticketPricingEngine.tally(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 4),
+                                                new TicketTypeRequest(Type.CHILD, 2),
+                                                new TicketTypeRequest(Type.INFANT, 3),
+                                                new TicketTypeRequest(Type.ADULT, 1) }),
+                                new PurchaseTally());
+
+                assertEquals(4, tally.getLines());
+                assertEquals(10, tally.getTotalTickets());
+                assertEquals(5, tally.getAdultTickets());
+                assertEquals(2, tally.getTickets(Type.CHILD));
+                assertEquals(3, tally.getInfantTickets());
+                assertEquals(7, tally.getTotalSeats());
+                assertEquals(120, tally.getTotalCost());
+                assertFalse(tally.isNonPositiveTickets());
+        }
+
+        @Test
+        void testTallyStopsAtFirstNonPositiveNumberOfTickets() {
+                PurchaseTally tally = ticketPricingEngine.tally(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                                                new TicketTypeRequest(Type.CHILD, 0),
+                                                new TicketTypeRequest(Type.ADULT, 5) }),
+                                new PurchaseTally());
+
+                assertTrue(tally.isNonPositiveTickets());
+                assertEquals(2, tally.getLines());
+                assertEquals(2, tally.getAdultTickets());
+        }
+
+        @Test
+        void testTallyIsEmptyForNullRequestOrTicketTypeRequests() {
+                PurchaseTally tally = new PurchaseTally();
+
+                assertEquals(0, ticketPricingEngine.tally(null, tally).getLines());
+                assertEquals(0, ticketPricingEngine.tally(new TicketPurchaseRequest(1, null), tally).getLines());
+        }
+
+        @Test
+        void testTallyIsResetBetweenRequests() {
+                PurchaseTally tally = new PurchaseTally();
+                ticketPricingEngine.tally(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, -1) }), tally);
+                ticketPricingEngine.tally(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.CHILD, 3) }), tally);
+
+                assertFalse(tally.isNonPositiveTickets());
+                assertEquals(1, tally.getLines());
+                assertEquals(0, tally.getAdultTickets());
+                assertEquals(30, tally.getTotalCost());
+        }
+
+        @Test
+        void testTotalTicketsDoNotOverflow() {
+                PurchaseTally tally = ticketPricingEngine.tally(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE),
+                                                new TicketTypeRequest(Type.ADULT, Integer.MAX_VALUE) }),
+                                new PurchaseTally());
+
+                assertEquals(2L * Integer.MAX_VALUE, tally.getTotalTickets());
+        }
+
+        @Test
+        void testPricesComeFromThePriceTable() {
+                TicketPricingEngine engine = new TicketPricingEngine(
+                                new TicketPriceTable(Map.of(Type.ADULT, 25, Type.CHILD, 15, Type.INFANT, 5)));
+
+                PurchaseTally tally = engine.tally(new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2),
+                                                new TicketTypeRequest(Type.CHILD, 1),
+                                                new TicketTypeRequest(Type.INFANT, 1) }),
+                                new PurchaseTally());
+
+                assertEquals(70, tally.getTotalCost());
+                assertEquals(3, tally.getTotalSeats());
+        }
+
+        @Test
+        void testPriceTableRequiresEveryType() {
+                assertThrows(IllegalArgumentException.class,
+                                () -> new TicketPriceTable(Map.of(Type.ADULT, 20, Type.CHILD, 10)));
+        }
+
+}
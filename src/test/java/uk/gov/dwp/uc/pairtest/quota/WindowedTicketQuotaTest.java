@@ -0,0 +1,174 @@
+package uk.gov.dwp.uc.pairtest.quota;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WindowedTicketQuotaTest {
+
+        private static final Duration WINDOW = Duration.ofHours(1);
+
+        private final AtomicLong millisClock = new AtomicLong(WINDOW.toMillis() * 1000);
+
+        @TempDir
+        Path directory;
+
+        private WindowedTicketQuota quota(int expectedAccounts) {
+                return new WindowedTicketQuota(10, WINDOW, expectedAccounts, millisClock::get);
+        }
+
+        @Test
+        void testTicketsAreTakenUpToTheQuota() {
+                WindowedTicketQuota quota = quota(100);
+
+                assertTrue(quota.tryTake(1, 6));
+                assertTrue(quota.tryTake(1, 4));
+                assertFalse(quota.tryTake(1, 1));
+                assertTrue(quota.tryTake(2, 10));
+                assertFalse(quota.tryTake(3, 11));
+
+                assertEquals(10, quota.ticketsTaken(1));
+                assertEquals(0, quota.ticketsTaken(3));
+                assertEquals(2, quota.accounts());
+        }
+
+        @Test
+        void testTicketsGivenBackCanBeTakenAgain() {
+                WindowedTicketQuota quota = quota(100);
+                quota.tryTake(1, 10);
+
+                quota.giveBack(1, 4);
+
+                assertEquals(6, quota.ticketsTaken(1));
+                assertTrue(quota.tryTake(1, 4));
+                quota.giveBack(2, 5);
+                assertEquals(0, quota.ticketsTaken(2));
+        }
+
+        @Test
+        void testTicketsExpireAtTheEndOfTheWindow() {
+                WindowedTicketQuota quota = quota(100);
+                quota.tryTake(1, 10);
+                millisClock.addAndGet(WINDOW.toMillis() - 1);
+                assertFalse(quota.tryTake(1, 1));
+
+                millisClock.incrementAndGet();
+                quota.giveBack(1, 10);
+
+                assertEquals(0, quota.ticketsTaken(1));
+                assertTrue(quota.tryTake(1, 10));
+                assertEquals(1, quota.accounts());
+        }
+
+        @Test
+        void testTablesGrowPastTheExpectedAccounts() {
+                WindowedTicketQuota quota = quota(0);
+
+                for (long accountId = 1; accountId <= 200_000; accountId++) {
+                        assertTrue(quota.tryTake(accountId, (int) (accountId % 10) + 1));
+                }
+
+                assertEquals(200_000, quota.accounts());
+                for (long accountId = 1; accountId <= 200_000; accountId++) {
+                        assertEquals((int) (accountId % 10) + 1, quota.ticketsTaken(accountId));
+                }
+
+                // Expired accounts make way for new ones
+                millisClock.addAndGet(WINDOW.toMillis());
+                for (long accountId = 200_001; accountId <= 400_000; accountId++) {
+                        assertTrue(quota.tryTake(accountId, 1));
+                }
+                assertEquals(200_000, quota.accounts());
+                assertEquals(0, quota.ticketsTaken(1));
+        }
+
+        @Test
+        void testConcurrentPurchasesNeverTakeMoreThanTheQuota() throws InterruptedException {
+                WindowedTicketQuota quota = quota(1000);
+                AtomicLong taken = new AtomicLong();
+                List<Thread> threads = new ArrayList<>();
+                for (int thread = 0; thread < 4; thread++) {
+                        threads.add(new Thread(() -> {
+                                for (int attempt = 0; attempt < 10_000; attempt++) {
+                                        long accountId = 1 + attempt % 100;
+                                        if (quota.tryTake(accountId, 1)) {
+                                                taken.incrementAndGet();
+                                        }
+                                }
+                        }));
+                }
+                threads.forEach(Thread::start);
+                for (Thread thread : threads) {
+                        thread.join();
+                }
+
+                assertEquals(1000, taken.get());
+                for (long accountId = 1; accountId <= 100; accountId++) {
+                        assertEquals(10, quota.ticketsTaken(accountId));
+                }
+        }
+
+        @Test
+        void testSnapshotIsRestoredAndExpiredCountsAreSkipped() throws IOException {
+                Path snapshot = directory.resolve("quota.snapshot");
+                WindowedTicketQuota quota = quota(100);
+                for (long accountId = 1; accountId <= 10_000; accountId++) {
+                        quota.tryTake(accountId, (int) (accountId % 10) + 1);
+                }
+                quota.snapshot(snapshot);
+
+                WindowedTicketQuota restored = quota(100);
+                restored.tryTake(1, 10);
+                restored.restore(snapshot);
+
+                assertEquals(10_000, restored.accounts());
+                for (long accountId = 1; accountId <= 10_000; accountId++) {
+                        assertEquals((int) (accountId % 10) + 1, restored.ticketsTaken(accountId));
+                }
+
+                millisClock.addAndGet(WINDOW.toMillis());
+                WindowedTicketQuota restoredLater = quota(100);
+                restoredLater.restore(snapshot);
+                assertEquals(0, restoredLater.accounts());
+        }
+
+        @Test
+        void testCorruptOrMismatchedSnapshotIsRejected() throws IOException {
+                Path snapshot = directory.resolve("quota.snapshot");
+                WindowedTicketQuota quota = quota(100);
+                quota.tryTake(1, 5);
+                quota.tryTake(2, 5);
+                quota.snapshot(snapshot);
+
+                WindowedTicketQuota otherWindow = new WindowedTicketQuota(10, WINDOW.multipliedBy(2), 100,
+                                millisClock::get);
+                assertThrows(IOException.class, () -> otherWindow.restore(snapshot));
+
+                try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+                        channel.write(ByteBuffer.wrap(new byte[] { 0x7F }), 20);
+                }
+                WindowedTicketQuota restored = quota(100);
+                assertThrows(IOException.class, () -> restored.restore(snapshot));
+                assertEquals(0, restored.accounts());
+
+                try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+                        channel.truncate(channel.size() - 3);
+                }
+                assertThrows(IOException.class, () -> restored.restore(snapshot));
+        }
+
+}
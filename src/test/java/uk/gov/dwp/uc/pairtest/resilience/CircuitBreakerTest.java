@@ -0,0 +1,199 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import uk.gov.dwp.uc.pairtest.resilience.CircuitBreaker.Phase;
+import uk.gov.dwp.uc.pairtest.resilience.CircuitBreaker.State;
+
+public class CircuitBreakerTest {
+
+        private static final long SLOW_NANOS = Duration.ofMillis(100).toNanos();
+
+        private final AtomicLong nanoClock = new AtomicLong();
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker(CircuitBreakerConfig.builder()
+                        .windowSize(10)
+                        .minimumCalls(5)
+                        .failureRatePercent(50)
+                        .slowCallDuration(Duration.ofNanos(SLOW_NANOS))
+                        .slowCallRatePercent(60)
+                        .openDuration(Duration.ofSeconds(5))
+                        .halfOpenCalls(2)
+                        .build(), nanoClock::get);
+
+        private void record(int calls, boolean failed, long durationNanos) {
+                for (int call = 0; call < calls; call++) {
+                        Phase admittedIn = circuitBreaker.tryAcquirePermission();
+                        assertNotNull(admittedIn);
+                        circuitBreaker.onResult(admittedIn, durationNanos, failed);
+                }
+        }
+
+        @Test
+        void testOpensOnceTheFailureRateIsReachedOverEnoughCalls() {
+                record(4, true, 0);
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+
+                record(1, false, 0);
+                assertEquals(State.OPEN, circuitBreaker.getState());
+        }
+
+        @Test
+        void testOpensExactlyAtTheFailureRate() {
+                record(4, false, 0);
+                record(3, true, 0);
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+
+                record(1, true, 0);
+                assertEquals(State.OPEN, circuitBreaker.getState());
+                assertNull(circuitBreaker.tryAcquirePermission());
+        }
+
+        @Test
+        void testOldOutcomesLeaveTheWindow() {
+                record(5, false, 0);
+                record(4, true, 0);
+                record(10, false, 0);
+                record(4, true, 0);
+
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+        }
+
+        @Test
+        void testOpensWhenTooManyCallsAreSlow() {
+                record(3, false, 0);
+                record(3, false, SLOW_NANOS);
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+
+                record(1, false, SLOW_NANOS);
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+                record(1, false, SLOW_NANOS);
+                assertEquals(State.OPEN, circuitBreaker.getState());
+        }
+
+        @Test
+        void testHalfOpenTrialsCloseTheCircuitOnlyIfTheyAllSucceed() {
+                record(5, true, 0);
+                nanoClock.addAndGet(Duration.ofSeconds(5).toNanos() - 1);
+                assertNull(circuitBreaker.tryAcquirePermission());
+
+                nanoClock.incrementAndGet();
+                Phase firstTrial = circuitBreaker.tryAcquirePermission();
+                Phase secondTrial = circuitBreaker.tryAcquirePermission();
+                assertNotNull(firstTrial);
+                assertNotNull(secondTrial);
+                assertNull(circuitBreaker.tryAcquirePermission());
+                assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+                circuitBreaker.onResult(firstTrial, 0, false);
+                circuitBreaker.onResult(secondTrial, 0, true);
+                assertEquals(State.OPEN, circuitBreaker.getState());
+
+                nanoClock.addAndGet(Duration.ofSeconds(5).toNanos());
+                firstTrial = circuitBreaker.tryAcquirePermission();
+                secondTrial = circuitBreaker.tryAcquirePermission();
+                circuitBreaker.onResult(firstTrial, 0, false);
+                circuitBreaker.onResult(secondTrial, 0, false);
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+
+                // The failures from before it opened are forgotten
+                record(4, true, 0);
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+        }
+
+        @Test
+        void testCallsLetThroughBeforeTheCircuitOpenedDoNotSettleTheTrials() {
+                Phase slowCall = circuitBreaker.tryAcquirePermission();
+                record(5, true, 0);
+                nanoClock.addAndGet(Duration.ofSeconds(5).toNanos());
+                Phase firstTrial = circuitBreaker.tryAcquirePermission();
+                Phase secondTrial = circuitBreaker.tryAcquirePermission();
+
+                circuitBreaker.onResult(slowCall, SLOW_NANOS, true);
+                assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+                circuitBreaker.onResult(firstTrial, 0, false);
+                assertEquals(State.HALF_OPEN, circuitBreaker.getState());
+                circuitBreaker.onResult(secondTrial, 0, false);
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+
+                // Nor is it counted once the circuit has closed again
+                circuitBreaker.onResult(firstTrial, 0, true);
+                record(4, true, 0);
+                assertEquals(State.CLOSED, circuitBreaker.getState());
+        }
+
+        @Test
+        void testOnlyTheHalfOpenCallsAreLetThroughWhenThreadsRace() throws InterruptedException {
+                for (int round = 0; round < 200; round++) {
+                        record(5, true, 0);
+                        nanoClock.addAndGet(Duration.ofSeconds(5).toNanos());
+                        Queue<Phase> permitted = new ConcurrentLinkedQueue<>();
+                        CountDownLatch start = new CountDownLatch(1);
+                        List<Thread> threads = new ArrayList<>();
+                        for (int thread = 0; thread < 4; thread++) {
+                                threads.add(new Thread(() -> {
+                                        try {
+                                                start.await();
+                                        } catch (InterruptedException e) {
+                                                Thread.currentThread().interrupt();
+                                        }
+                                        for (int call = 0; call < 100; call++) {
+                                                Phase admittedIn = circuitBreaker.tryAcquirePermission();
+                                                if (admittedIn != null) {
+                                                        permitted.add(admittedIn);
+                                                }
+                                        }
+                                }));
+                        }
+                        threads.forEach(Thread::start);
+                        start.countDown();
+                        for (Thread thread : threads) {
+                                thread.join();
+                        }
+
+                        assertEquals(2, permitted.size());
+                        permitted.forEach(admittedIn -> circuitBreaker.onResult(admittedIn, 0, false));
+                        assertEquals(State.CLOSED, circuitBreaker.getState());
+                }
+        }
+
+        @Test
+        void testWindowCountsStayExactUnderConcurrentRecording() throws InterruptedException {
+                OutcomeWindow window = new OutcomeWindow(64);
+
+                recordConcurrently(window, true);
+                assertEquals(64, window.calls());
+                assertEquals(64, window.failures());
+                assertEquals(0, window.slowCalls());
+
+                recordConcurrently(window, false);
+                assertEquals(0, window.failures());
+                assertEquals(64, window.slowCalls());
+        }
+
+        private static void recordConcurrently(OutcomeWindow window, boolean failed) throws InterruptedException {
+                List<Thread> threads = new ArrayList<>();
+                for (int thread = 0; thread < 4; thread++) {
+                        threads.add(new Thread(() -> {
+                                for (int call = 0; call < 50_000; call++) {
+                                        window.record(failed, !failed);
+                                }
+                        }));
+                }
+                threads.forEach(Thread::start);
+                for (Thread thread : threads) {
+                        thread.join();
+                }
+        }
+
+}
@@ -0,0 +1,221 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException;
+import uk.gov.dwp.uc.pairtest.exception.GatewayUnavailableException.Reason;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+import uk.gov.dwp.uc.pairtest.resilience.CircuitBreaker.State;
+
+public class ResilientGatewaysTest {
+
+        private static final Duration CALL_TIMEOUT = Duration.ofMillis(300);
+
+        private final List<GatewayGuard> guards = new ArrayList<>();
+
+        @AfterEach
+        void afterEach() {
+                guards.forEach(GatewayGuard::close);
+        }
+
+        private GatewayGuard guard(int maxConcurrentCalls) {
+                GatewayGuard guard = new GatewayGuard("test", new CircuitBreaker(CircuitBreakerConfig.builder()
+                                .windowSize(10)
+                                .minimumCalls(4)
+                                .failureRatePercent(50)
+                                .slowCallDuration(CALL_TIMEOUT)
+                                .openDuration(Duration.ofMinutes(1))
+                                .build()), maxConcurrentCalls, CALL_TIMEOUT,
+                                e -> !(e instanceof SeatsUnavailableException));
+                guards.add(guard);
+                return guard;
+        }
+
+        private static Reason reasonFor(Runnable call) {
+                return assertThrows(GatewayUnavailableException.class, call::run).getReason();
+        }
+
+        @Test
+        void testSlowPaymentTimesOutWithoutWaitingForTheGateway() {
+                StubGateway gateway = new StubGateway().latency(Duration.ofSeconds(2));
+                ResilientPaymentService paymentService = new ResilientPaymentService(gateway, guard(4));
+
+                long startNanos = System.nanoTime();
+                assertEquals(Reason.TIMED_OUT, reasonFor(() -> paymentService.makePayment(1, 50)));
+
+                assertTrue(System.nanoTime() - startNanos < Duration.ofSeconds(1).toNanos());
+                assertEquals(1, gateway.getCalls());
+        }
+
+        @Test
+        void testFullBulkheadTurnsCallsAwayAtOnce() throws Exception {
+                CountDownLatch release = new CountDownLatch(1);
+                StubGateway gateway = new StubGateway().latency(call -> {
+                        try {
+                                release.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                        return Duration.ZERO;
+                });
+                GatewayGuard guard = guard(2);
+                ResilientPaymentService paymentService = new ResilientPaymentService(gateway, guard);
+
+                CompletableFuture<Void> first = guard.submit(() -> gateway.makePayment(1, 10));
+                CompletableFuture<Void> second = guard.submit(() -> gateway.makePayment(2, 10));
+                assertEquals(Reason.BULKHEAD_FULL, reasonFor(() -> paymentService.makePayment(3, 10)));
+
+                // Timed out calls keep their place until the gateway answers
+                assertEquals(Reason.TIMED_OUT, reasonFor(() -> GatewayGuard.join(first)));
+                assertEquals(Reason.BULKHEAD_FULL, reasonFor(() -> paymentService.makePayment(3, 10)));
+
+                release.countDown();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (true) {
+                        try {
+                                paymentService.makePayment(3, 10);
+                                break;
+                        } catch (GatewayUnavailableException e) {
+                                assertEquals(Reason.BULKHEAD_FULL, e.getReason());
+                                assertTrue(System.nanoTime() < deadline);
+                                Thread.sleep(5);
+                        }
+                }
+                second.exceptionally(e -> null).join();
+                assertEquals(3, gateway.getCalls());
+                assertEquals(2, gateway.getMostCallsInProgress());
+        }
+
+        @Test
+        void testRejectedCallGivesBackItsPlaceInTheBulkhead() {
+                StubGateway gateway = new StubGateway();
+                GatewayGuard guard = guard(1);
+                guard.close();
+
+                for (int call = 0; call < 3; call++) {
+                        CompletableFuture<Void> called = guard.submit(() -> gateway.makePayment(1, 10));
+                        assertThrows(RejectedExecutionException.class, () -> GatewayGuard.join(called));
+                }
+                assertEquals(0, gateway.getCalls());
+        }
+
+        @Test
+        void testFailingGatewayOpensTheCircuitAndIsNoLongerCalled() {
+                StubGateway gateway = new StubGateway().failing(call -> true);
+                GatewayGuard guard = guard(4);
+                ResilientPaymentService paymentService = new ResilientPaymentService(gateway, guard);
+
+                for (int call = 0; call < 4; call++) {
+                        assertThrows(IllegalStateException.class, () -> paymentService.makePayment(1, 10));
+                }
+
+                assertEquals(State.OPEN, guard.getCircuitBreaker().getState());
+                assertEquals(Reason.CIRCUIT_OPEN, reasonFor(() -> paymentService.makePayment(1, 10)));
+                assertEquals(4, gateway.getCalls());
+        }
+
+        @Test
+        void testSoldOutSeatsAreNeitherRetriedNorCountedAgainstTheGateway() {
+                StubGateway gateway = new StubGateway().failing(call -> true)
+                                .failWith(() -> new SeatsUnavailableException("Sold out"));
+                GatewayGuard guard = guard(4);
+                ResilientSeatReservationService seatReservationService = new ResilientSeatReservationService(gateway,
+                                guard, CALL_TIMEOUT, 3, Duration.ofMillis(1));
+
+                for (int call = 0; call < 10; call++) {
+                        assertThrows(SeatsUnavailableException.class, () -> seatReservationService.reserveSeat(1, 2));
+                }
+
+                assertEquals(10, gateway.getCalls());
+                assertEquals(State.CLOSED, guard.getCircuitBreaker().getState());
+        }
+
+        @Test
+        void testFailedReservationsAreRetried() {
+                StubGateway gateway = new StubGateway().failing(call -> call <= 2);
+                ResilientSeatReservationService seatReservationService = new ResilientSeatReservationService(gateway,
+                                guard(4), CALL_TIMEOUT, 3, Duration.ofMillis(1));
+
+                seatReservationService.reserveSeat(1, 2);
+
+                assertEquals(3, gateway.getCalls());
+                // The circuit opens on the next failure, which ends the retries
+                gateway.failing(call -> true);
+                assertEquals(Reason.CIRCUIT_OPEN, reasonFor(() -> seatReservationService.reserveSeat(1, 2)));
+                assertEquals(4, gateway.getCalls());
+        }
+
+        @Test
+        void testSlowReservationIsHedged() {
+                StubGateway gateway = new StubGateway()
+                                .latency(call -> call == 1 ? Duration.ofMillis(250) : Duration.ZERO);
+                ResilientSeatReservationService seatReservationService = new ResilientSeatReservationService(gateway,
+                                guard(4), Duration.ofMillis(20), 1, Duration.ofMillis(1));
+
+                long startNanos = System.nanoTime();
+                seatReservationService.reserveSeat(1, 2);
+
+                assertTrue(System.nanoTime() - startNanos < Duration.ofMillis(200).toNanos());
+                assertEquals(2, gateway.getCalls());
+        }
+
+        @Test
+        void testReservationsThatAreNotIdempotentAreNeitherHedgedNorRetried() {
+                StubGateway gateway = new StubGateway()
+                                .latency(call -> call == 1 ? Duration.ofMillis(100) : Duration.ZERO)
+                                .failing(call -> call == 2);
+                SeatReservationService notIdempotent = gateway::reserveSeat;
+                ResilientSeatReservationService seatReservationService = new ResilientSeatReservationService(
+                                notIdempotent, guard(4), Duration.ofMillis(10), 3, Duration.ofMillis(1));
+
+                seatReservationService.reserveSeat(1, 2);
+                assertEquals(1, gateway.getCalls());
+
+                assertThrows(IllegalStateException.class, () -> seatReservationService.reserveSeat(1, 2));
+                assertEquals(2, gateway.getCalls());
+        }
+
+        @Test
+        void testPurchasesFailFastOnceThePaymentCircuitIsOpen() {
+                StubGateway seatGateway = new StubGateway().latencyBetween(Duration.ZERO, Duration.ofMillis(2));
+                StubGateway paymentGateway = new StubGateway().failureRate(1.0);
+                GatewayGuard paymentGuard = guard(4);
+                TicketService ticketService = TicketServiceImpl.builder()
+                                .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                .seatReservationService(new ResilientSeatReservationService(seatGateway, guard(4),
+                                                Duration.ofMillis(50), 2, Duration.ofMillis(1)))
+                                .ticketPaymentService(new ResilientPaymentService(paymentGateway, paymentGuard))
+                                .build();
+                TicketPurchaseRequest request = new TicketPurchaseRequest(1,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, 2) });
+
+                for (int purchase = 0; purchase < 4; purchase++) {
+                        assertThrows(IllegalStateException.class, () -> ticketService.purchaseTickets(request));
+                }
+                assertEquals(Reason.CIRCUIT_OPEN, reasonFor(() -> ticketService.purchaseTickets(request)));
+
+                assertEquals(4, paymentGateway.getCalls());
+                assertEquals(5, seatGateway.getCalls());
+        }
+
+}
@@ -0,0 +1,97 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+/**
+ * A stand-in for either third-party gateway, with latency and failures
+ * injected by call number. Calls are numbered from 1 in the order they
+ * arrive. It holds nothing, so repeated seat reservations are harmless.
+ */
+class StubGateway implements TicketPaymentService, IdempotentSeatReservationService {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger callsInProgress = new AtomicInteger();
+        private final AtomicInteger mostCallsInProgress = new AtomicInteger();
+        private volatile IntFunction<Duration> latency = call -> Duration.ZERO;
+        private volatile IntPredicate failsOnCall = call -> false;
+        private volatile Supplier<RuntimeException> failure = () -> new IllegalStateException("Gateway error");
+
+        StubGateway latency(Duration latency) {
+                return latency(call -> latency);
+        }
+
+        StubGateway latency(IntFunction<Duration> latency) {
+                this.latency = latency;
+                return this;
+        }
+
+        /**
+         * Latency drawn uniformly between the bounds on every call.
+         */
+        StubGateway latencyBetween(Duration min, Duration max) {
+                return latency(call -> Duration.ofNanos(
+                                ThreadLocalRandom.current().nextLong(min.toNanos(), max.toNanos() + 1)));
+        }
+
+        StubGateway failing(IntPredicate failsOnCall) {
+                this.failsOnCall = failsOnCall;
+                return this;
+        }
+
+        /**
+         * Fails each call with the given probability.
+         */
+        StubGateway failureRate(double probability) {
+                return failing(call -> ThreadLocalRandom.current().nextDouble() < probability);
+        }
+
+        StubGateway failWith(Supplier<RuntimeException> failure) {
+                this.failure = failure;
+                return this;
+        }
+
+        int getCalls() {
+                return calls.get();
+        }
+
+        int getMostCallsInProgress() {
+                return mostCallsInProgress.get();
+        }
+
+        @Override
+        public void makePayment(long accountId, int totalAmountToPay) {
+                call();
+        }
+
+        @Override
+        public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+                call();
+        }
+
+        private void call() {
+                int call = calls.incrementAndGet();
+                mostCallsInProgress.accumulateAndGet(callsInProgress.incrementAndGet(), Math::max);
+                try {
+                        long latencyNanos = latency.apply(call).toNanos();
+                        if (latencyNanos > 0) {
+                                TimeUnit.NANOSECONDS.sleep(latencyNanos);
+                        }
+                        if (failsOnCall.test(call)) {
+                                throw failure.get();
+                        }
+                } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted", e);
+                } finally {
+                        callsInProgress.decrementAndGet();
+                }
+        }
+}
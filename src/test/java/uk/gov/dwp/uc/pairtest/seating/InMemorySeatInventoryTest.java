@@ -0,0 +1,62 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+
+public class InMemorySeatInventoryTest {
+
+        private final InMemorySeatInventory inventory = new InMemorySeatInventory();
+
+        @Test
+        void testReservationsOnlyTakeSeatsFromTheirScreening() {
+                inventory.addScreening(1, 2, 10);
+                inventory.addScreening(2, 2, 10);
+
+                inventory.forScreening(1).reserveSeat(100, 5);
+
+                assertEquals(15, inventory.getScreening(1).availableSeats());
+                assertEquals(20, inventory.getScreening(2).availableSeats());
+        }
+
+        @Test
+        void testSoldOutScreeningThrows() {
+                inventory.addScreening(1, 1, 4);
+                SeatReservationService seatReservationService = inventory.forScreening(1);
+                seatReservationService.reserveSeat(100, 3);
+
+                assertThrows(SeatsUnavailableException.class, () -> seatReservationService.reserveSeat(101, 2));
+                assertEquals(1, inventory.getScreening(1).availableSeats());
+        }
+
+        @Test
+        void testReleaseGivesBackTheSeatsOfTheAccountsReservation() {
+                inventory.addScreening(1, 1, 10);
+                ScreeningSeatReservations reservations = inventory.forScreening(1);
+                reservations.reserveSeat(100, 3);
+                reservations.reserveSeat(101, 2);
+                reservations.reserveSeat(100, 4);
+
+                reservations.releaseSeat(100, 3);
+
+                assertEquals(4, inventory.getScreening(1).availableSeats());
+                assertThrows(IllegalStateException.class, () -> reservations.releaseSeat(100, 3));
+                assertThrows(IllegalStateException.class, () -> reservations.releaseSeat(102, 2));
+                reservations.releaseSeat(100, 4);
+                reservations.releaseSeat(101, 2);
+                assertEquals(10, inventory.getScreening(1).availableSeats());
+        }
+
+        @Test
+        void testUnknownOrDuplicateScreeningIsRejected() {
+                inventory.addScreening(1, 1, 4);
+
+                assertThrows(IllegalArgumentException.class, () -> inventory.addScreening(1, 1, 4));
+                assertThrows(IllegalArgumentException.class, () -> inventory.forScreening(2));
+        }
+
+}
@@ -0,0 +1,133 @@
+package uk.gov.dwp.uc.pairtest.seating;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class ScreeningSeatMapTest {
+
+        @Test
+        void testSeatsAreReservedSideBySide() {
+                ScreeningSeatMap seatMap = new ScreeningSeatMap(1, 1, 10);
+
+                SeatAllocation first = seatMap.reserve(3);
+                SeatAllocation second = seatMap.reserve(4);
+
+                assertTrue(first.isContiguous());
+                assertEquals(0b111L, first.seatMasks()[0]);
+                assertEquals(0b1111000L, second.seatMasks()[0]);
+                assertEquals(3, seatMap.availableSeats());
+        }
+
+        @Test
+        void testSeatsAreScatteredWhenNoRowHasEnoughTogether() {
+                ScreeningSeatMap seatMap = new ScreeningSeatMap(1, 2, 4);
+                seatMap.reserve(3);
+                seatMap.reserve(3);
+
+                SeatAllocation allocation = seatMap.reserve(2);
+
+                assertNotNull(allocation);
+                assertFalse(allocation.isContiguous());
+                assertEquals(2, allocation.seatCount());
+                assertEquals(0, seatMap.availableSeats());
+        }
+
+        @Test
+        void testNothingIsTakenWhenThereAreNotEnoughSeats() {
+                ScreeningSeatMap seatMap = new ScreeningSeatMap(1, 3, 4);
+                seatMap.reserve(2);
+
+                assertNull(seatMap.reserve(11));
+                assertEquals(10, seatMap.availableSeats());
+        }
+
+        @Test
+        void testReleasedSeatsCanBeReservedAgain() {
+                ScreeningSeatMap seatMap = new ScreeningSeatMap(1, 1, 64);
+                SeatAllocation allocation = seatMap.reserve(64);
+                assertNull(seatMap.reserve(1));
+
+                seatMap.release(allocation);
+
+                assertEquals(64, seatMap.availableSeats());
+                assertEquals(-1L, seatMap.reserve(64).seatMasks()[0]);
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = { 0, 65 })
+        void testSeatsPerRowMustFitInAWord(int seatsPerRow) {
+                assertThrows(IllegalArgumentException.class, () -> new ScreeningSeatMap(1, 1, seatsPerRow));
+        }
+
+        @Test
+        void testConcurrentReservationsNeverShareASeat() throws Exception {
+                int rows = 40;
+                int seatsPerRow = 25;
+                ScreeningSeatMap seatMap = new ScreeningSeatMap(1, rows, seatsPerRow);
+                ConcurrentLinkedQueue<SeatAllocation> allocations = new ConcurrentLinkedQueue<>();
+                int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+                CountDownLatch start = new CountDownLatch(1);
+
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                try {
+                        List<Future<?>> workers = new ArrayList<>();
+                        for (int i = 0; i < threads; i++) {
+                                workers.add(executor.submit(() -> {
+                                        start.await();
+                                        int misses = 0;
+                                        while (misses < 100) {
+                                                SeatAllocation allocation = seatMap
+                                                                .reserve(ThreadLocalRandom.current().nextInt(1, 8));
+                                                if (allocation == null) {
+                                                        misses++;
+                                                } else {
+                                                        allocations.add(allocation);
+                                                        if (ThreadLocalRandom.current().nextInt(4) == 0
+                                                                        && allocations.remove(allocation)) {
+                                                                seatMap.release(allocation);
+                                                        }
+                                                }
+                                        }
+                                        return null;
+                                }));
+                        }
+                        start.countDown();
+                        for (Future<?> worker : workers) {
+                                worker.get(30, TimeUnit.SECONDS);
+                        }
+                } finally {
+                        executor.shutdownNow();
+                }
+
+                long[] seen = new long[rows];
+                int reservedSeats = 0;
+                for (SeatAllocation allocation : allocations) {
+                        for (int i = 0; i < allocation.rows().length; i++) {
+                                int row = allocation.rows()[i];
+                                assertEquals(0, seen[row] & allocation.seatMasks()[i], "Seat reserved twice");
+                                seen[row] |= allocation.seatMasks()[i];
+                        }
+                        reservedSeats += allocation.seatCount();
+                }
+                assertEquals(rows * seatsPerRow - reservedSeats, seatMap.availableSeats());
+        }
+
+}
@@ -0,0 +1,204 @@
+package uk.gov.dwp.uc.pairtest.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import uk.gov.dwp.uc.pairtest.TicketPurchaseRequestValidator;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketTypeRequest.Type;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException.ValidationError;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException;
+import uk.gov.dwp.uc.pairtest.exception.PurchaseRejectedException.Reason;
+import uk.gov.dwp.uc.pairtest.exception.RemotePurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.SeatsUnavailableException;
+
+public class ShardedTicketServiceTest {
+
+        private final List<ShardedTicketService> services = new ArrayList<>();
+
+        @AfterEach
+        void afterEach() {
+                services.forEach(ShardedTicketService::close);
+        }
+
+        private ShardedTicketService track(ShardedTicketService service) {
+                services.add(service);
+                return service;
+        }
+
+        private static TicketPurchaseRequest adults(long accountId, int noOfTickets) {
+                return new TicketPurchaseRequest(accountId,
+                                new TicketTypeRequest[] { new TicketTypeRequest(Type.ADULT, noOfTickets) });
+        }
+
+        private static List<String> nodeIds(int nodes) {
+                List<String> nodeIds = new ArrayList<>();
+                for (int node = 0; node < nodes; node++) {
+                        nodeIds.add("node-" + node);
+                }
+                return nodeIds;
+        }
+
+        @Test
+        void testRingSpreadsAccountsEvenlyAndMovesFewWhenANodeIsAdded() {
+                ConsistentHashRing ring = new ConsistentHashRing(nodeIds(4), 256);
+                ConsistentHashRing grownRing = new ConsistentHashRing(nodeIds(5), 256);
+                int[] accountsPerNode = new int[4];
+                int moved = 0;
+                int accounts = 100_000;
+
+                for (long accountId = 1; accountId <= accounts; accountId++) {
+                        int node = ring.nodeFor(accountId);
+                        accountsPerNode[node]++;
+                        int grownNode = grownRing.nodeFor(accountId);
+                        if (grownNode != node) {
+                                moved++;
+                                assertEquals(4, grownNode);
+                        }
+                }
+
+                for (int count : accountsPerNode) {
+                        assertEquals(accounts / 4.0, count, accounts * 0.04);
+                }
+                assertEquals(accounts / 5.0, moved, accounts * 0.04);
+        }
+
+        @Test
+        void testEachAccountIsServedInOrderByOneShard() {
+                Map<Long, List<Integer>> ticketsByAccount = new HashMap<>();
+                Map<Long, String> threadByAccount = new HashMap<>();
+                ShardedTicketService shardedTicketService = track(ShardedTicketService.ofLocalShards(4,
+                                shard -> request -> {
+                                        synchronized (ticketsByAccount) {
+                                                ticketsByAccount.computeIfAbsent(request.accountId(),
+                                                                accountId -> new ArrayList<>())
+                                                                .add(request.ticketTypeRequests()[0].noOfTickets());
+                                                String thread = Thread.currentThread().getName();
+                                                assertEquals(thread, threadByAccount.merge(request.accountId(),
+                                                                thread, (first, next) -> first));
+                                        }
+                                }, 1000, 64));
+                List<CompletableFuture<Void>> purchases = new ArrayList<>();
+
+                for (int noOfTickets = 1; noOfTickets <= 20; noOfTickets++) {
+                        for (long accountId = 1; accountId <= 30; accountId++) {
+                                purchases.add(shardedTicketService.purchaseTicketsAsync(adults(accountId, noOfTickets)));
+                        }
+                }
+                CompletableFuture.allOf(purchases.toArray(CompletableFuture[]::new)).join();
+
+                List<Integer> inOrder = new ArrayList<>();
+                for (int noOfTickets = 1; noOfTickets <= 20; noOfTickets++) {
+                        inOrder.add(noOfTickets);
+                }
+                assertEquals(30, ticketsByAccount.size());
+                ticketsByAccount.values().forEach(tickets -> assertEquals(inOrder, tickets));
+                assertTrue(Collections.frequency(new ArrayList<>(threadByAccount.values()),
+                                threadByAccount.get(1L)) < 30);
+        }
+
+        @Test
+        void testShardRejectsPurchasesOverItsInFlightLimit() throws Exception {
+                CountDownLatch entered = new CountDownLatch(1);
+                CountDownLatch release = new CountDownLatch(1);
+                LocalShard shard = new LocalShard("test", request -> {
+                        entered.countDown();
+                        try {
+                                release.await();
+                        } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                        }
+                }, 1);
+                try {
+                        CompletableFuture<Void> first = shard.send(adults(1, 1));
+                        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+                        CompletionException exception = assertThrows(CompletionException.class,
+                                        () -> shard.send(adults(2, 1)).join());
+                        assertEquals(Reason.OVERLOADED, ((PurchaseRejectedException) exception.getCause()).getReason());
+
+                        release.countDown();
+                        first.get(5, TimeUnit.SECONDS);
+                        shard.send(adults(3, 1)).get(5, TimeUnit.SECONDS);
+                } finally {
+                        shard.close();
+                }
+        }
+
+        @Test
+        void testPurchasesAreRoutedToOtherNodesThroughATransport() {
+                Map<Long, String> nodeByAccount = new HashMap<>();
+                Map<String, PurchaseTransport> transportsByNodeId = new LinkedHashMap<>();
+                for (String nodeId : nodeIds(3)) {
+                        ShardedTicketService node = track(ShardedTicketService.ofLocalShards(2,
+                                        shard -> TicketServiceImpl.builder()
+                                                        .ticketPurchaseRequestValidator(new TicketPurchaseRequestValidator())
+                                                        .seatReservationService((accountId, totalSeatsToAllocate) -> {
+                                                                synchronized (nodeByAccount) {
+                                                                        nodeByAccount.put(accountId, nodeId);
+                                                                }
+                                                                if (accountId == 99) {
+                                                                        throw new SeatsUnavailableException("Sold out");
+                                                                }
+                                                        })
+                                                        .ticketPaymentService((accountId, totalAmountToPay) -> {
+                                                                if (accountId == 98) {
+                                                                        throw new IllegalStateException("Declined");
+                                                                }
+                                                        })
+                                                        .build(),
+                                        100, 64));
+                        transportsByNodeId.put(nodeId, new InProcessTransport(new PurchaseNode(node)));
+                }
+                ShardedTicketService router = track(new ShardedTicketService(transportsByNodeId, 64));
+                ConsistentHashRing ring = new ConsistentHashRing(nodeIds(3), 64);
+
+                for (long accountId = 1; accountId <= 50; accountId++) {
+                        router.purchaseTickets(adults(accountId, 2));
+                        assertEquals("node-" + ring.nodeFor(accountId), nodeByAccount.get(accountId));
+                }
+
+                InvalidPurchaseException invalid = assertThrows(InvalidPurchaseException.class,
+                                () -> router.purchaseTickets(adults(1, 21)));
+                assertEquals(List.of(ValidationError.CANNOT_PURCHASE_MORE_THAN_20_TICKETS),
+                                invalid.getValidationErrors());
+                assertThrows(SeatsUnavailableException.class, () -> router.purchaseTickets(adults(99, 1)));
+                RemotePurchaseException failed = assertThrows(RemotePurchaseException.class,
+                                () -> router.purchaseTickets(adults(98, 1)));
+                assertEquals(IllegalStateException.class.getName(), failed.getRemoteExceptionClassName());
+                assertThrows(InvalidPurchaseException.class, () -> router.purchaseTickets(null));
+        }
+
+        @Test
+        void testLocalFailuresReachTheCaller() {
+                TicketService failing = request -> {
+                        throw new IllegalStateException("Payment gateway down");
+                };
+                ShardedTicketService shardedTicketService = track(ShardedTicketService.ofLocalShards(2,
+                                shard -> failing, 10, 16));
+
+                IllegalStateException exception = assertThrows(IllegalStateException.class,
+                                () -> shardedTicketService.purchaseTickets(adults(1, 1)));
+                assertEquals("Payment gateway down", exception.getMessage());
+        }
+
+}